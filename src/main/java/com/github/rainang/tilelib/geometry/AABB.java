@@ -22,6 +22,11 @@ public class AABB
 		return Points.at(maxX(), maxY());
 	}
 	
+	public MutablePoint max(MutablePoint dest)
+	{
+		return dest.set(maxX(), maxY());
+	}
+	
 	public Point dimensions()
 	{
 		return dimensions;
@@ -67,9 +72,66 @@ public class AABB
 		return y() + height() / 2;
 	}
 	
+	public boolean isEmpty()
+	{
+		return width() <= 0 || height() <= 0;
+	}
+	
+	public boolean contains(int x, int y)
+	{
+		return x >= x() && y >= y() && x <= maxX() && y <= maxY();
+	}
+	
 	public boolean contains(Point p)
 	{
-		return p.x() >= x() && p.y() >= y() && p.x() <= maxX() && p.y() <= maxY();
+		return contains(p.x(), p.y());
+	}
+	
+	public boolean contains(AABB other)
+	{
+		return other.x() >= x() && other.y() >= y() && other.maxX() <= maxX() && other.maxY() <= maxY();
+	}
+	
+	public boolean intersects(AABB other)
+	{
+		if (isEmpty() || other.isEmpty())
+			return false;
+		return other.x() <= maxX() && other.y() <= maxY() && other.maxX() >= x() && other.maxY() >= y();
+	}
+	
+	public MutableAABB intersection(AABB other, MutableAABB dest)
+	{
+		int x = Math.max(x(), other.x());
+		int y = Math.max(y(), other.y());
+		int w = Math.min(maxX(), other.maxX()) - x + 1;
+		int h = Math.min(maxY(), other.maxY()) - y + 1;
+		return dest.set(x, y, Math.max(w, 0), Math.max(h, 0));
+	}
+	
+	// An empty box adds nothing to the union, wherever it lies
+	public MutableAABB union(AABB other, MutableAABB dest)
+	{
+		if (isEmpty())
+			return dest.set(other);
+		if (other.isEmpty())
+			return dest.set(this);
+		int x = Math.min(x(), other.x());
+		int y = Math.min(y(), other.y());
+		int w = Math.max(maxX(), other.maxX()) - x + 1;
+		int h = Math.max(maxY(), other.maxY()) - y + 1;
+		return dest.set(x, y, w, h);
+	}
+	
+	public void forEachPoint(IntBinaryConsumer consumer)
+	{
+		// counted loops, as i <= maxX never ends for a box reaching Integer.MAX_VALUE
+		int x = x();
+		int y = y();
+		int w = width();
+		int h = height();
+		for (int j = 0; j < h; j++)
+			for (int i = 0; i < w; i++)
+				consumer.accept(x + i, y + j);
 	}
 	
 	@Override
@@ -13,6 +13,12 @@ public class AABB3 extends AABB
 		return Points.at(maxX(), maxY(), maxZ());
 	}
 	
+	@Override
+	public MutablePoint max(MutablePoint dest)
+	{
+		return dest.set(maxX(), maxY(), maxZ());
+	}
+	
 	public int z()
 	{
 		return location.z();
@@ -33,8 +39,88 @@ public class AABB3 extends AABB
 		return z() + length() / 2;
 	}
 	
+	@Override
+	public boolean isEmpty()
+	{
+		return super.isEmpty() || length() <= 0;
+	}
+	
+	public boolean contains(int x, int y, int z)
+	{
+		return contains(x, y) && z >= z() && z <= maxZ();
+	}
+	
+	@Override
 	public boolean contains(Point p)
 	{
-		return super.contains(p) && p.z() >= z() && p.z() <= maxZ();
+		return contains(p.x(), p.y(), p.z());
+	}
+	
+	// 2-dimensional boxes are compared on their x and y axes only
+	@Override
+	public boolean contains(AABB other)
+	{
+		if (!(other instanceof AABB3))
+			return super.contains(other);
+		AABB3 o = (AABB3) other;
+		return super.contains(o) && o.z() >= z() && o.maxZ() <= maxZ();
+	}
+	
+	// 2-dimensional boxes are compared on their x and y axes only
+	@Override
+	public boolean intersects(AABB other)
+	{
+		if (!(other instanceof AABB3))
+			return super.intersects(other);
+		AABB3 o = (AABB3) other;
+		return super.intersects(o) && o.z() <= maxZ() && o.maxZ() >= z();
+	}
+	
+	public MutableAABB3 intersection(AABB3 other, MutableAABB3 dest)
+	{
+		int x = Math.max(x(), other.x());
+		int y = Math.max(y(), other.y());
+		int z = Math.max(z(), other.z());
+		int w = Math.min(maxX(), other.maxX()) - x + 1;
+		int h = Math.min(maxY(), other.maxY()) - y + 1;
+		int l = Math.min(maxZ(), other.maxZ()) - z + 1;
+		return dest.set(x, y, z, Math.max(w, 0), Math.max(h, 0), Math.max(l, 0));
+	}
+	
+	// An empty box adds nothing to the union, wherever it lies
+	public MutableAABB3 union(AABB3 other, MutableAABB3 dest)
+	{
+		if (isEmpty())
+			return dest.set(other);
+		if (other.isEmpty())
+			return dest.set(this);
+		int x = Math.min(x(), other.x());
+		int y = Math.min(y(), other.y());
+		int z = Math.min(z(), other.z());
+		int w = Math.max(maxX(), other.maxX()) - x + 1;
+		int h = Math.max(maxY(), other.maxY()) - y + 1;
+		int l = Math.max(maxZ(), other.maxZ()) - z + 1;
+		return dest.set(x, y, z, w, h, l);
+	}
+	
+	// Visits the x and y coordinates of the box once each, ignoring its z range
+	@Override
+	public void forEachPoint(IntBinaryConsumer consumer)
+	{
+		super.forEachPoint(consumer);
+	}
+	
+	public void forEachPoint(IntTernaryConsumer consumer)
+	{
+		int x = x();
+		int y = y();
+		int z = z();
+		int w = width();
+		int h = height();
+		int l = length();
+		for (int k = 0; k < l; k++)
+			for (int j = 0; j < h; j++)
+				for (int i = 0; i < w; i++)
+					consumer.accept(x + i, y + j, z + k);
 	}
 }
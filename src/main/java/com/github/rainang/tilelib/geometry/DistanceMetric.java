@@ -0,0 +1,155 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * A metric measuring the distance between points specified in integer precision, and the lower bound of the distance
+ * between a point and the points inside a box.
+ * <p>
+ * The z-coordinate is only taken into account if both points are 3-dimensional, or the point is 3-dimensional and the
+ * box is an {@link AABB3}.</p>
+ *
+ * @see Points
+ */
+public enum DistanceMetric
+{
+	/**
+	 * The straight line distance.
+	 */
+	EUCLIDEAN
+			{
+				@Override
+				public double distance(Point p1, Point p2)
+				{
+					double dx = (double) p1.x() - p2.x();
+					double dy = (double) p1.y() - p2.y();
+					double dz = dz(p1, p2);
+					return Math.sqrt(dx * dx + dy * dy + dz * dz);
+				}
+				
+				@Override
+				public double distance(Point p, AABB box)
+				{
+					double dx = gapX(p, box);
+					double dy = gapY(p, box);
+					double dz = gapZ(p, box);
+					return Math.sqrt(dx * dx + dy * dy + dz * dz);
+				}
+			},
+	/**
+	 * The sum of the absolute differences of the coordinates.
+	 */
+	MANHATTAN
+			{
+				@Override
+				public double distance(Point p1, Point p2)
+				{
+					return Math.abs(dx(p1, p2)) + Math.abs(dy(p1, p2)) + Math.abs(dz(p1, p2));
+				}
+				
+				@Override
+				public double distance(Point p, AABB box)
+				{
+					return gapX(p, box) + gapY(p, box) + gapZ(p, box);
+				}
+			},
+	/**
+	 * The greatest absolute difference of the coordinates.
+	 */
+	CHEBYSHEV
+			{
+				@Override
+				public double distance(Point p1, Point p2)
+				{
+					return Math.max(Math.max(Math.abs(dx(p1, p2)), Math.abs(dy(p1, p2))), Math.abs(dz(p1, p2)));
+				}
+				
+				@Override
+				public double distance(Point p, AABB box)
+				{
+					return Math.max(Math.max(gapX(p, box), gapY(p, box)), gapZ(p, box));
+				}
+			},
+	/**
+	 * The number of steps between hex points, derived from the x- and y-coordinates of cube coordinates.
+	 */
+	HEX
+			{
+				@Override
+				public double distance(Point p1, Point p2)
+				{
+					long dx = dx(p1, p2);
+					long dy = dy(p1, p2);
+					return (Math.abs(dx) + Math.abs(dy) + Math.abs(dx + dy)) / 2;
+				}
+				
+				@Override
+				public double distance(Point p, AABB box)
+				{
+					long minX = (long) box.x() - p.x();
+					long maxX = (long) box.maxX() - p.x();
+					long minY = (long) box.y() - p.y();
+					long maxY = (long) box.maxY() - p.y();
+					return Math.max(Math.max(gapX(p, box), gapY(p, box)), gap(0, minX + minY, maxX + maxY));
+				}
+			};
+	
+	/**
+	 * Returns the distance between two points.
+	 *
+	 * @param p1 the first point
+	 * @param p2 the second point
+	 *
+	 * @return the distance between the points
+	 */
+	public abstract double distance(Point p1, Point p2);
+	
+	/**
+	 * Returns a lower bound of the distance between a point and every point inside a box, or <code>0</code> if the box
+	 * contains the point.
+	 *
+	 * @param p   the point
+	 * @param box the box
+	 *
+	 * @return a lower bound of the distance between the point and the box
+	 */
+	public abstract double distance(Point p, AABB box);
+	
+	// Helpers
+	
+	private static long gap(long v, long min, long max)
+	{
+		return v < min ? min - v : v > max ? v - max : 0;
+	}
+	
+	private static long gapX(Point p, AABB box)
+	{
+		return gap(p.x(), box.x(), box.maxX());
+	}
+	
+	private static long gapY(Point p, AABB box)
+	{
+		return gap(p.y(), box.y(), box.maxY());
+	}
+	
+	private static long gapZ(Point p, AABB box)
+	{
+		if (p.dimensions() != 3 || !(box instanceof AABB3))
+			return 0;
+		AABB3 box3 = (AABB3) box;
+		return gap(p.z(), box3.z(), box3.maxZ());
+	}
+	
+	private static long dx(Point p1, Point p2)
+	{
+		return (long) p1.x() - p2.x();
+	}
+	
+	private static long dy(Point p1, Point p2)
+	{
+		return (long) p1.y() - p2.y();
+	}
+	
+	private static long dz(Point p1, Point p2)
+	{
+		return p1.dimensions() == 3 && p2.dimensions() == 3 ? (long) p1.z() - p2.z() : 0;
+	}
+}
@@ -0,0 +1,298 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * This class consists exclusively of static methods for a hierarchical index of hex points.
+ * <p>
+ * Each cell of the hierarchy groups a center cell and its 6 neighbours, like {@link
+ * com.github.rainang.tilelib.tile.HexFinder#range(Point, int, java.util.function.Consumer) HexFinder.range} with a
+ * radius of 1. A cell of level 0 is a single hex, and a cell of level <code>k</code> holds <code>7^k</code> hexes. The
+ * id of a hex lists the digit of the cell at each level, using 3 bits per level with the finest level lowest. The
+ * origin has the id 0.</p>
+ * <p>
+ * Ids are non-negative and a cell of level <code>k</code> holds exactly the ids <code>id &lt;&lt; 3k</code> up to
+ * <code>(id + 1) &lt;&lt; 3k</code>, so sorting hexes by id keeps every cell contiguous. Hexes are given in axial form,
+ * the x and y coordinates of a hex point.</p>
+ *
+ * @see PointCodec
+ */
+public final class HexIndex
+{
+	// Suppresses default constructor, ensuring non-instantiability.
+	private HexIndex()
+	{
+		throw new IllegalStateException();
+	}
+	
+	/**
+	 * The number of levels of the index. Hexes whose id needs more levels cannot be indexed, which includes no hex within
+	 * a distance of <code>2^28</code> from the origin.
+	 */
+	public static final int LEVELS = 21;
+	
+	/**
+	 * The number of children of a cell
+	 */
+	public static final int APERTURE = 7;
+	
+	// The offset from the center of a cell to each of its children, by digit
+	private static final int[] OFFSET_X = {0, 0, 1, 1, -1, -1, 0};
+	
+	private static final int[] OFFSET_Y = {0, 1, -1, 0, 0, 1, -1};
+	
+	// The offsets of children at each level, as the centers of a level are spread out by M = (2x - y, x + 3y)
+	private static final long[][] CHILD_X = new long[LEVELS][APERTURE];
+	
+	private static final long[][] CHILD_Y = new long[LEVELS][APERTURE];
+	
+	// The largest distance from the center of a cell of each level to any of its hexes
+	private static final long[] RADIUS = new long[LEVELS + 1];
+	
+	static
+	{
+		for (int d = 0; d < APERTURE; d++)
+		{
+			long x = OFFSET_X[d];
+			long y = OFFSET_Y[d];
+			for (int j = 0; j < LEVELS; j++)
+			{
+				CHILD_X[j][d] = x;
+				CHILD_Y[j][d] = y;
+				long t = 2 * x - y;
+				y = x + 3 * y;
+				x = t;
+			}
+		}
+		
+		for (int j = 0; j < LEVELS; j++)
+		{
+			long max = 0;
+			for (int d = 0; d < APERTURE; d++)
+				max = Math.max(max, distance(CHILD_X[j][d], CHILD_Y[j][d]));
+			RADIUS[j + 1] = RADIUS[j] + max;
+		}
+	}
+	
+	/**
+	 * Returns the id of a hex.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the id of the hex
+	 *
+	 * @throws IllegalArgumentException if the hex lies too far from the origin
+	 */
+	public static long id(int x, int y)
+	{
+		long id = find(x, y);
+		if (id < 0)
+			throw new IllegalArgumentException("Hex out of range: " + x + ", " + y);
+		return id;
+	}
+	
+	/**
+	 * Returns the id of a hex point.
+	 *
+	 * @param hex the hex point
+	 *
+	 * @return the id of the hex
+	 *
+	 * @throws IllegalArgumentException if the hex lies too far from the origin
+	 */
+	public static long id(Point hex)
+	{
+		return id(hex.x(), hex.y());
+	}
+	
+	/**
+	 * Returns whether a hex can be indexed.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return <code>true</code> if the hex has an id
+	 */
+	public static boolean contains(int x, int y)
+	{
+		return find(x, y) >= 0;
+	}
+	
+	/**
+	 * Returns the id of a hex, or -1 if the hex lies too far from the origin.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the id of the hex, or -1
+	 */
+	public static long find(int x, int y)
+	{
+		long q = x;
+		long r = y;
+		long id = 0;
+		
+		for (int j = 0; q != 0 || r != 0; j++)
+		{
+			if (j == LEVELS)
+				return -1;
+			
+			int d = digitOf(q, r);
+			q -= OFFSET_X[d];
+			r -= OFFSET_Y[d];
+			
+			// The inverse of M, exact as q and r now lie on the centers of the next level
+			long t = (3 * q + r) / 7;
+			r = (2 * r - q) / 7;
+			q = t;
+			id |= (long) d << 3 * j;
+		}
+		return id;
+	}
+	
+	private static int digitOf(long q, long r)
+	{
+		return (int) Math.floorMod(3 * q + r, 7L);
+	}
+	
+	// Hierarchy
+	
+	/**
+	 * Returns the digit of a cell, which is its position among the children of its parent.
+	 *
+	 * @param id the id of the cell
+	 *
+	 * @return the digit of the cell, from 0 to 6
+	 */
+	public static int digit(long id)
+	{
+		return (int) (id & 7);
+	}
+	
+	/**
+	 * Returns the id of the parent of a cell.
+	 *
+	 * @param id the id of the cell
+	 *
+	 * @return the id of the parent
+	 */
+	public static long parent(long id)
+	{
+		return id >>> 3;
+	}
+	
+	/**
+	 * Returns the id of the ancestor of a cell a number of levels up.
+	 *
+	 * @param id     the id of the cell
+	 * @param levels the number of levels
+	 *
+	 * @return the id of the ancestor
+	 */
+	public static long parent(long id, int levels)
+	{
+		return levels >= LEVELS ? 0 : id >>> 3 * levels;
+	}
+	
+	/**
+	 * Returns the id of a child of a cell.
+	 *
+	 * @param id    the id of the cell
+	 * @param digit the digit of the child, from 0 to 6
+	 *
+	 * @return the id of the child
+	 */
+	public static long child(long id, int digit)
+	{
+		if (digit < 0 || digit >= APERTURE)
+			throw new IllegalArgumentException("Illegal digit: " + digit);
+		return id << 3 | digit;
+	}
+	
+	/**
+	 * Returns the smallest id of a hex in a cell.
+	 *
+	 * @param id    the id of the cell
+	 * @param level the level of the cell
+	 *
+	 * @return the first id of the cell
+	 */
+	public static long first(long id, int level)
+	{
+		return id << 3 * level;
+	}
+	
+	/**
+	 * Returns the id following the largest id of a hex in a cell.
+	 *
+	 * @param id    the id of the cell
+	 * @param level the level of the cell
+	 *
+	 * @return the end of the ids of the cell
+	 */
+	public static long end(long id, int level)
+	{
+		return id + 1 << 3 * level;
+	}
+	
+	// Geometry
+	
+	/**
+	 * Sets <code>dest</code> to the center of a cell.
+	 *
+	 * @param id    the id of the cell
+	 * @param level the level of the cell
+	 * @param dest  the destination point
+	 *
+	 * @return <code>dest</code>
+	 */
+	public static MutablePoint center(long id, int level, MutablePoint dest)
+	{
+		long x = 0;
+		long y = 0;
+		for (int j = 0; id != 0; j++, id >>>= 3)
+		{
+			int d = digit(id);
+			x += CHILD_X[level + j][d];
+			y += CHILD_Y[level + j][d];
+		}
+		return dest.set((int) x, (int) y, (int) (-x - y));
+	}
+	
+	/**
+	 * Returns the hex point of an id.
+	 *
+	 * @param id the id of the hex
+	 *
+	 * @return the hex point
+	 */
+	public static Point toHex(long id)
+	{
+		MutablePoint p = center(id, 0, Points.mutableHexAt(0, 0));
+		return Points.hexAt(p.x(), p.y());
+	}
+	
+	/**
+	 * Returns the largest distance from the center of a cell of a level to any of its hexes.
+	 *
+	 * @param level the level
+	 *
+	 * @return the radius of the cells of the level
+	 */
+	public static long radius(int level)
+	{
+		return RADIUS[level];
+	}
+	
+	/**
+	 * Returns the hex distance of a hex from the origin.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the distance from the origin
+	 */
+	public static long distance(long x, long y)
+	{
+		return Math.max(Math.max(Math.abs(x), Math.abs(y)), Math.abs(x + y));
+	}
+}
@@ -0,0 +1,13 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * Represents an operation that accepts two <code>int</code> arguments and returns no result, such as the x and y
+ * coordinates of a point.
+ *
+ * @see AABB#forEachPoint(IntBinaryConsumer)
+ */
+@FunctionalInterface
+public interface IntBinaryConsumer
+{
+	void accept(int x, int y);
+}
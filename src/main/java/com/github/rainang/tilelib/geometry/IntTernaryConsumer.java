@@ -0,0 +1,13 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * Represents an operation that accepts three <code>int</code> arguments and returns no result, such as the x, y and z
+ * coordinates of a point.
+ *
+ * @see AABB3#forEachPoint(IntTernaryConsumer)
+ */
+@FunctionalInterface
+public interface IntTernaryConsumer
+{
+	void accept(int x, int y, int z);
+}
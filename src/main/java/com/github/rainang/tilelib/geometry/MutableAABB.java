@@ -0,0 +1,49 @@
+package com.github.rainang.tilelib.geometry;
+
+public class MutableAABB extends AABB
+{
+	public MutableAABB(int x, int y, int width, int height)
+	{
+		super(Points.mutableAt(x, y), Points.mutableAt(width, height));
+	}
+	
+	public MutableAABB()
+	{
+		this(0, 0, 0, 0);
+	}
+	
+	public MutableAABB set(int x, int y, int width, int height)
+	{
+		((MutablePoint) location).set(x, y);
+		((MutablePoint) dimensions).set(width, height);
+		return this;
+	}
+	
+	public MutableAABB set(AABB other)
+	{
+		return set(other.x(), other.y(), other.width(), other.height());
+	}
+	
+	public MutableAABB setLocation(int x, int y)
+	{
+		((MutablePoint) location).set(x, y);
+		return this;
+	}
+	
+	public MutableAABB setDimensions(int width, int height)
+	{
+		((MutablePoint) dimensions).set(width, height);
+		return this;
+	}
+	
+	public MutableAABB translate(int x, int y)
+	{
+		((MutablePoint) location).translate(x, y);
+		return this;
+	}
+	
+	public AABB asImmutable()
+	{
+		return new AABB(location.asImmutable(), dimensions.asImmutable());
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.rainang.tilelib.geometry;
+
+public class MutableAABB3 extends AABB3
+{
+	public MutableAABB3(int x, int y, int z, int width, int height, int length)
+	{
+		super(Points.mutableAt(x, y, z), Points.mutableAt(width, height, length));
+	}
+	
+	public MutableAABB3()
+	{
+		this(0, 0, 0, 0, 0, 0);
+	}
+	
+	public MutableAABB3 set(int x, int y, int z, int width, int height, int length)
+	{
+		((MutablePoint) location).set(x, y, z);
+		((MutablePoint) dimensions).set(width, height, length);
+		return this;
+	}
+	
+	public MutableAABB3 set(AABB3 other)
+	{
+		return set(other.x(), other.y(), other.z(), other.width(), other.height(), other.length());
+	}
+	
+	public MutableAABB3 setLocation(int x, int y, int z)
+	{
+		((MutablePoint) location).set(x, y, z);
+		return this;
+	}
+	
+	public MutableAABB3 setDimensions(int width, int height, int length)
+	{
+		((MutablePoint) dimensions).set(width, height, length);
+		return this;
+	}
+	
+	public MutableAABB3 translate(int x, int y, int z)
+	{
+		((MutablePoint) location).translate(x, y, z);
+		return this;
+	}
+	
+	public AABB3 asImmutable()
+	{
+		return new AABB3(location.asImmutable(), dimensions.asImmutable());
+	}
+}
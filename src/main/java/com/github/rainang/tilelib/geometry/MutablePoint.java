@@ -1,27 +1,22 @@
 package com.github.rainang.tilelib.geometry;
 
-import java.util.Arrays;
-
 /**
  A mutable point representing a location in 2- or 3-dimensional space, specified in integer precision.
  *
  * @see Points
  */
-public class MutablePoint extends Point
+public abstract class MutablePoint extends Point
 {
 	// Constructors
 	
-	MutablePoint(int[] array)
-	{
-		super(array);
-	}
+	MutablePoint() {}
 	
 	// Views
 	
 	@Override
 	public Point asImmutable()
 	{
-		return new Point(array);
+		return dimensions() == 2 ? new Point2(x(), y()) : new Point3(x(), y(), z());
 	}
 	
 	// Setters
@@ -33,11 +28,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint setX(int x)
-	{
-		array[0] = x;
-		return this;
-	}
+	public abstract MutablePoint setX(int x);
 	
 	/**
 	 Sets the y-coordinate.
@@ -46,11 +37,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint setY(int y)
-	{
-		array[1] = y;
-		return this;
-	}
+	public abstract MutablePoint setY(int y);
 	
 	/**
 	 Sets the z-coordinate.
@@ -61,11 +48,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePoint setZ(int z)
-	{
-		array[2] = z;
-		return this;
-	}
+	public abstract MutablePoint setZ(int z);
 	
 	/**
 	 Sets all values of this point to <code>n</code>.
@@ -74,11 +57,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint set(int n)
-	{
-		Arrays.fill(array, n);
-		return this;
-	}
+	public abstract MutablePoint set(int n);
 	
 	/**
 	 Sets the x and y coordinates.
@@ -88,12 +67,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint set(int x, int y)
-	{
-		array[0] = x;
-		array[1] = y;
-		return this;
-	}
+	public abstract MutablePoint set(int x, int y);
 	
 	/**
 	 Sets the x, y, and z coordinates.
@@ -106,13 +80,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePoint set(int x, int y, int z)
-	{
-		array[0] = x;
-		array[1] = y;
-		array[2] = z;
-		return this;
-	}
+	public abstract MutablePoint set(int x, int y, int z);
 	
 	/**
 	 Sets the values of this point to the values of the specified point <code>p</code>.
@@ -123,11 +91,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePoint set(Point p)
-	{
-		System.arraycopy(p.array, 0, array, 0, array.length);
-		return this;
-	}
+	public abstract MutablePoint set(Point p);
 	
 	// Operations
 	
@@ -136,12 +100,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint negate()
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] = -array[i];
-		return this;
-	}
+	public abstract MutablePoint negate();
 	
 	/**
 	 Adds the values of this point by the specified point <code>p</code>.
@@ -152,12 +111,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePoint add(Point p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] += p.array[i];
-		return this;
-	}
+	public abstract MutablePoint add(Point p);
 	
 	/**
 	 Subtracts the values of this point by the specified point <code>p</code>.
@@ -168,12 +122,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePoint sub(Point p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] -= p.array[i];
-		return this;
-	}
+	public abstract MutablePoint sub(Point p);
 	
 	/**
 	 Multiplies the values of this point by the specified point <code>p</code>.
@@ -184,12 +133,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePoint mul(Point p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] *= p.array[i];
-		return this;
-	}
+	public abstract MutablePoint mul(Point p);
 	
 	/**
 	 Translates the x-coordinate by <code>x</code>.
@@ -198,11 +142,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint translateX(int x)
-	{
-		array[0] += x;
-		return this;
-	}
+	public abstract MutablePoint translateX(int x);
 	
 	/**
 	 Translates the y-coordinate by <code>y</code>.
@@ -211,11 +151,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint translateY(int y)
-	{
-		array[1] += y;
-		return this;
-	}
+	public abstract MutablePoint translateY(int y);
 	
 	/**
 	 Translates the z-coordinate by <code>z</code>.
@@ -226,11 +162,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePoint translateZ(int z)
-	{
-		array[2] += z;
-		return this;
-	}
+	public abstract MutablePoint translateZ(int z);
 	
 	/**
 	 Translates the values of this point by <code>n</code>.
@@ -239,12 +171,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint translate(int n)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] += n;
-		return this;
-	}
+	public abstract MutablePoint translate(int n);
 	
 	/**
 	 Translates the x and y coordinates.
@@ -254,12 +181,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint translate(int x, int y)
-	{
-		array[0] += x;
-		array[1] += y;
-		return this;
-	}
+	public abstract MutablePoint translate(int x, int y);
 	
 	/**
 	 Translates the x, y, and z coordinates.
@@ -272,13 +194,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePoint translate(int x, int y, int z)
-	{
-		array[0] += x;
-		array[1] += y;
-		array[2] += z;
-		return this;
-	}
+	public abstract MutablePoint translate(int x, int y, int z);
 	
 	/**
 	 Scales the x-coordinate by <code>x</code>.
@@ -287,11 +203,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint scaleX(int x)
-	{
-		array[0] *= x;
-		return this;
-	}
+	public abstract MutablePoint scaleX(int x);
 	
 	/**
 	 Scales the y-coordinate by <code>y</code>.
@@ -300,11 +212,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint scaleY(int y)
-	{
-		array[1] *= y;
-		return this;
-	}
+	public abstract MutablePoint scaleY(int y);
 	
 	/**
 	 Scales the z-coordinate by <code>z</code>.
@@ -315,11 +223,7 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePoint scaleZ(int z)
-	{
-		array[2] *= z;
-		return this;
-	}
+	public abstract MutablePoint scaleZ(int z);
 	
 	/**
 	 Scales the values of this point by <code>n</code>.
@@ -328,12 +232,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint scale(int n)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] *= n;
-		return this;
-	}
+	public abstract MutablePoint scale(int n);
 	
 	/**
 	 Scales the x and y coordinate.
@@ -343,12 +242,7 @@ public class MutablePoint extends Point
 	 
 	 @return this <code>MutablePoint</code>
 	 */
-	public MutablePoint scale(int x, int y)
-	{
-		array[0] *= x;
-		array[1] *= y;
-		return this;
-	}
+	public abstract MutablePoint scale(int x, int y);
 	
 	/**
 	 Scales the x, y, and z coordinate.
@@ -361,19 +255,5 @@ public class MutablePoint extends Point
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePoint scale(int x, int y, int z)
-	{
-		array[0] *= x;
-		array[1] *= y;
-		array[2] *= z;
-		return this;
-	}
-	
-	// Overrides
-	
-	@Override
-	public String toString()
-	{
-		return String.format("MP%s", Arrays.toString(array));
+	public abstract MutablePoint scale(int x, int y, int z);
 	}
-}
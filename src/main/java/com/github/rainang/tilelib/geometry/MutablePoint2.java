@@ -0,0 +1,239 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * A mutable 2-dimensional {@link MutablePoint} storing its coordinates in fields.
+ */
+final class MutablePoint2 extends MutablePoint
+{
+	private int x;
+	
+	private int y;
+	
+	// Constructors
+	
+	MutablePoint2(int x, int y)
+	{
+		this.x = x;
+		this.y = y;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 2;
+	}
+	
+	@Override
+	public int x()
+	{
+		return x;
+	}
+	
+	@Override
+	public int y()
+	{
+		return y;
+	}
+	
+	@Override
+	public int z()
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Setters
+	
+	@Override
+	public MutablePoint setX(int x)
+	{
+		this.x = x;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint setY(int y)
+	{
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint setZ(int z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePoint set(int n)
+	{
+		x = y = n;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint set(int x, int y)
+	{
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint set(int x, int y, int z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePoint set(Point p)
+	{
+		x = p.x();
+		y = p.y();
+		return this;
+	}
+	
+	// Operations
+	
+	@Override
+	public MutablePoint negate()
+	{
+		x = -x;
+		y = -y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint add(Point p)
+	{
+		x += p.x();
+		y += p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePoint sub(Point p)
+	{
+		x -= p.x();
+		y -= p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePoint mul(Point p)
+	{
+		x *= p.x();
+		y *= p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translateX(int x)
+	{
+		this.x += x;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translateY(int y)
+	{
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translateZ(int z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePoint translate(int n)
+	{
+		x += n;
+		y += n;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translate(int x, int y)
+	{
+		this.x += x;
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translate(int x, int y, int z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePoint scaleX(int x)
+	{
+		this.x *= x;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scaleY(int y)
+	{
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scaleZ(int z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePoint scale(int n)
+	{
+		x *= n;
+		y *= n;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scale(int x, int y)
+	{
+		this.x *= x;
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scale(int x, int y, int z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof Point))
+			return false;
+		Point p = (Point) o;
+		return p.dimensions() == 2 && x == p.x() && y == p.y();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("MP[%s, %s]", x, y);
+	}
+}
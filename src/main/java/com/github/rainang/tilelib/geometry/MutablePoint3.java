@@ -0,0 +1,258 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * A mutable 3-dimensional {@link MutablePoint} storing its coordinates in fields.
+ */
+final class MutablePoint3 extends MutablePoint
+{
+	private int x;
+	
+	private int y;
+	
+	private int z;
+	
+	// Constructors
+	
+	MutablePoint3(int x, int y, int z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 3;
+	}
+	
+	@Override
+	public int x()
+	{
+		return x;
+	}
+	
+	@Override
+	public int y()
+	{
+		return y;
+	}
+	
+	@Override
+	public int z()
+	{
+		return z;
+	}
+	
+	// Setters
+	
+	@Override
+	public MutablePoint setX(int x)
+	{
+		this.x = x;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint setY(int y)
+	{
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint setZ(int z)
+	{
+		this.z = z;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint set(int n)
+	{
+		x = y = z = n;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint set(int x, int y)
+	{
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint set(int x, int y, int z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint set(Point p)
+	{
+		return set(p.x(), p.y(), p.z());
+	}
+	
+	// Operations
+	
+	@Override
+	public MutablePoint negate()
+	{
+		x = -x;
+		y = -y;
+		z = -z;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint add(Point p)
+	{
+		x += p.x();
+		y += p.y();
+		z += p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePoint sub(Point p)
+	{
+		x -= p.x();
+		y -= p.y();
+		z -= p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePoint mul(Point p)
+	{
+		x *= p.x();
+		y *= p.y();
+		z *= p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translateX(int x)
+	{
+		this.x += x;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translateY(int y)
+	{
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translateZ(int z)
+	{
+		this.z += z;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translate(int n)
+	{
+		x += n;
+		y += n;
+		z += n;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translate(int x, int y)
+	{
+		this.x += x;
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint translate(int x, int y, int z)
+	{
+		this.x += x;
+		this.y += y;
+		this.z += z;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scaleX(int x)
+	{
+		this.x *= x;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scaleY(int y)
+	{
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scaleZ(int z)
+	{
+		this.z *= z;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scale(int n)
+	{
+		x *= n;
+		y *= n;
+		z *= n;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scale(int x, int y)
+	{
+		this.x *= x;
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePoint scale(int x, int y, int z)
+	{
+		this.x *= x;
+		this.y *= y;
+		this.z *= z;
+		return this;
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y, z);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof Point))
+			return false;
+		Point p = (Point) o;
+		return p.dimensions() == 3 && x == p.x() && y == p.y() && z == p.z();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("MP[%s, %s, %s]", x, y, z);
+	}
+}
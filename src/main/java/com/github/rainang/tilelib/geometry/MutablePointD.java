@@ -1,27 +1,22 @@
 package com.github.rainang.tilelib.geometry;
 
-import java.util.Arrays;
-
 /**
  A mutable point representing a location in 2- or 3-dimensional space, specified in double precision.
  *
  * @see Points
  */
-public class MutablePointD extends PointD
+public abstract class MutablePointD extends PointD
 {
 	// Constructors
 	
-	MutablePointD(double[] array)
-	{
-		super(array);
-	}
+	MutablePointD() {}
 	
 	// Views
 	
 	@Override
 	public PointD asImmutable()
 	{
-		return new PointD(array);
+		return dimensions() == 2 ? new PointD2(x(), y()) : new PointD3(x(), y(), z());
 	}
 	
 	// Setters
@@ -33,11 +28,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD setX(double x)
-	{
-		array[0] = x;
-		return this;
-	}
+	public abstract MutablePointD setX(double x);
 	
 	/**
 	 Sets the y-coordinate.
@@ -46,11 +37,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD setY(double y)
-	{
-		array[1] = y;
-		return this;
-	}
+	public abstract MutablePointD setY(double y);
 	
 	/**
 	 Sets the z-coordinate.
@@ -61,11 +48,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePointD setZ(double z)
-	{
-		array[2] = z;
-		return this;
-	}
+	public abstract MutablePointD setZ(double z);
 	
 	/**
 	 Sets all values of this point to <code>n</code>.
@@ -74,11 +57,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD set(double n)
-	{
-		Arrays.fill(array, n);
-		return this;
-	}
+	public abstract MutablePointD set(double n);
 	
 	/**
 	 Sets the x and y coordinates.
@@ -88,12 +67,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD set(double x, double y)
-	{
-		array[0] = x;
-		array[1] = y;
-		return this;
-	}
+	public abstract MutablePointD set(double x, double y);
 	
 	/**
 	 Sets the x, y, and z coordinates.
@@ -106,13 +80,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePointD set(double x, double y, double z)
-	{
-		array[0] = x;
-		array[1] = y;
-		array[2] = z;
-		return this;
-	}
+	public abstract MutablePointD set(double x, double y, double z);
 	
 	/**
 	 Sets the values of this point to the values of the specified point <code>p</code>.
@@ -123,11 +91,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD set(PointD p)
-	{
-		System.arraycopy(p.array, 0, array, 0, array.length);
-		return this;
-	}
+	public abstract MutablePointD set(PointD p);
 	
 	// Operations
 	
@@ -136,12 +100,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD negate()
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] = -array[i];
-		return this;
-	}
+	public abstract MutablePointD negate();
 	
 	/**
 	 Adds the values of this point by the specified point <code>p</code>.
@@ -152,12 +111,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD add(PointD p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] += p.array[i];
-		return this;
-	}
+	public abstract MutablePointD add(PointD p);
 	
 	/**
 	 Subtracts the values of this point by the specified point <code>p</code>.
@@ -168,12 +122,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD sub(PointD p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] -= p.array[i];
-		return this;
-	}
+	public abstract MutablePointD sub(PointD p);
 	
 	/**
 	 Multiplies the values of this point by the specified point <code>p</code>.
@@ -184,12 +133,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD mul(PointD p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] *= p.array[i];
-		return this;
-	}
+	public abstract MutablePointD mul(PointD p);
 	
 	/**
 	 Adds the values of this point by the specified point <code>p</code>.
@@ -200,12 +144,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD add(Point p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] += p.array[i];
-		return this;
-	}
+	public abstract MutablePointD add(Point p);
 	
 	/**
 	 Subtracts the values of this point by the specified point <code>p</code>.
@@ -216,12 +155,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD sub(Point p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] += p.array[i];
-		return this;
-	}
+	public abstract MutablePointD sub(Point p);
 	
 	/**
 	 Multiplies the values of this point by the specified point <code>p</code>.
@@ -232,12 +166,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 3-dimensional point and <code>p</code> is not
 	 */
-	public MutablePointD mul(Point p)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] *= p.array[i];
-		return this;
-	}
+	public abstract MutablePointD mul(Point p);
 	
 	/**
 	 Translates the x-coordinate by <code>x</code>.
@@ -246,11 +175,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD translateX(double x)
-	{
-		array[0] += x;
-		return this;
-	}
+	public abstract MutablePointD translateX(double x);
 	
 	/**
 	 Translates the y-coordinate by <code>y</code>.
@@ -259,11 +184,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD translateY(double y)
-	{
-		array[1] += y;
-		return this;
-	}
+	public abstract MutablePointD translateY(double y);
 	
 	/**
 	 Translates the z-coordinate by <code>z</code>.
@@ -274,11 +195,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePointD translateZ(double z)
-	{
-		array[2] += z;
-		return this;
-	}
+	public abstract MutablePointD translateZ(double z);
 	
 	/**
 	 Translates the values of this point by <code>n</code>.
@@ -287,12 +204,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD translate(double n)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] += n;
-		return this;
-	}
+	public abstract MutablePointD translate(double n);
 	
 	/**
 	 Translates the x and y coordinates.
@@ -302,12 +214,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD translate(double x, double y)
-	{
-		array[0] += x;
-		array[1] += y;
-		return this;
-	}
+	public abstract MutablePointD translate(double x, double y);
 	
 	/**
 	 Translates the x, y, and z coordinates.
@@ -320,13 +227,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePointD translate(double x, double y, double z)
-	{
-		array[0] += x;
-		array[1] += y;
-		array[2] += z;
-		return this;
-	}
+	public abstract MutablePointD translate(double x, double y, double z);
 	
 	/**
 	 Scales the x-coordinate by <code>x</code>.
@@ -335,11 +236,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD scaleX(double x)
-	{
-		array[0] *= x;
-		return this;
-	}
+	public abstract MutablePointD scaleX(double x);
 	
 	/**
 	 Scales the y-coordinate by <code>y</code>.
@@ -348,11 +245,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD scaleY(double y)
-	{
-		array[1] *= y;
-		return this;
-	}
+	public abstract MutablePointD scaleY(double y);
 	
 	/**
 	 Scales the z-coordinate by <code>z</code>.
@@ -363,11 +256,7 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePointD scaleZ(double z)
-	{
-		array[2] *= z;
-		return this;
-	}
+	public abstract MutablePointD scaleZ(double z);
 	
 	/**
 	 Scales the values of this point by <code>n</code>.
@@ -376,12 +265,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD scale(double n)
-	{
-		for (int i = 0; i < array.length; i++)
-			array[i] *= n;
-		return this;
-	}
+	public abstract MutablePointD scale(double n);
 	
 	/**
 	 Scales the x and y coordinate.
@@ -391,12 +275,7 @@ public class MutablePointD extends PointD
 	 
 	 @return this <code>MutablePointD</code>
 	 */
-	public MutablePointD scale(double x, double y)
-	{
-		array[0] *= x;
-		array[1] *= y;
-		return this;
-	}
+	public abstract MutablePointD scale(double x, double y);
 	
 	/**
 	 Scales the x, y, and z coordinate.
@@ -409,19 +288,5 @@ public class MutablePointD extends PointD
 	 
 	 @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public MutablePointD scale(double x, double y, double z)
-	{
-		array[0] *= x;
-		array[1] *= y;
-		array[2] *= z;
-		return this;
-	}
-	
-	// Overrides
-	
-	@Override
-	public String toString()
-	{
-		return String.format("MP%s", Arrays.toString(array));
+	public abstract MutablePointD scale(double x, double y, double z);
 	}
-}
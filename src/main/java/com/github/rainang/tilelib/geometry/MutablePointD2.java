@@ -0,0 +1,263 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * A mutable 2-dimensional {@link MutablePointD} storing its coordinates in fields.
+ */
+final class MutablePointD2 extends MutablePointD
+{
+	private double x;
+	
+	private double y;
+	
+	// Constructors
+	
+	MutablePointD2(double x, double y)
+	{
+		this.x = x;
+		this.y = y;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 2;
+	}
+	
+	@Override
+	public double x()
+	{
+		return x;
+	}
+	
+	@Override
+	public double y()
+	{
+		return y;
+	}
+	
+	@Override
+	public double z()
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Setters
+	
+	@Override
+	public MutablePointD setX(double x)
+	{
+		this.x = x;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD setY(double y)
+	{
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD setZ(double z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePointD set(double n)
+	{
+		x = y = n;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD set(double x, double y)
+	{
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD set(double x, double y, double z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePointD set(PointD p)
+	{
+		x = p.x();
+		y = p.y();
+		return this;
+	}
+	
+	// Operations
+	
+	@Override
+	public MutablePointD negate()
+	{
+		x = -x;
+		y = -y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD add(PointD p)
+	{
+		x += p.x();
+		y += p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD sub(PointD p)
+	{
+		x -= p.x();
+		y -= p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD mul(PointD p)
+	{
+		x *= p.x();
+		y *= p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD add(Point p)
+	{
+		x += p.x();
+		y += p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD sub(Point p)
+	{
+		x -= p.x();
+		y -= p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD mul(Point p)
+	{
+		x *= p.x();
+		y *= p.y();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translateX(double x)
+	{
+		this.x += x;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translateY(double y)
+	{
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translateZ(double z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePointD translate(double n)
+	{
+		x += n;
+		y += n;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translate(double x, double y)
+	{
+		this.x += x;
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translate(double x, double y, double z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePointD scaleX(double x)
+	{
+		this.x *= x;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scaleY(double y)
+	{
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scaleZ(double z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	@Override
+	public MutablePointD scale(double n)
+	{
+		x *= n;
+		y *= n;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scale(double x, double y)
+	{
+		this.x *= x;
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scale(double x, double y, double z)
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof PointD))
+			return false;
+		PointD p = (PointD) o;
+		return p.dimensions() == 2 && Double.doubleToLongBits(x) == Double.doubleToLongBits(p.x()) && Double.doubleToLongBits(y) == Double.doubleToLongBits(p.y());
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("MP[%s, %s]", x, y);
+	}
+}
@@ -0,0 +1,285 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * A mutable 3-dimensional {@link MutablePointD} storing its coordinates in fields.
+ */
+final class MutablePointD3 extends MutablePointD
+{
+	private double x;
+	
+	private double y;
+	
+	private double z;
+	
+	// Constructors
+	
+	MutablePointD3(double x, double y, double z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 3;
+	}
+	
+	@Override
+	public double x()
+	{
+		return x;
+	}
+	
+	@Override
+	public double y()
+	{
+		return y;
+	}
+	
+	@Override
+	public double z()
+	{
+		return z;
+	}
+	
+	// Setters
+	
+	@Override
+	public MutablePointD setX(double x)
+	{
+		this.x = x;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD setY(double y)
+	{
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD setZ(double z)
+	{
+		this.z = z;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD set(double n)
+	{
+		x = y = z = n;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD set(double x, double y)
+	{
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD set(double x, double y, double z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD set(PointD p)
+	{
+		return set(p.x(), p.y(), p.z());
+	}
+	
+	// Operations
+	
+	@Override
+	public MutablePointD negate()
+	{
+		x = -x;
+		y = -y;
+		z = -z;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD add(PointD p)
+	{
+		x += p.x();
+		y += p.y();
+		z += p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD sub(PointD p)
+	{
+		x -= p.x();
+		y -= p.y();
+		z -= p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD mul(PointD p)
+	{
+		x *= p.x();
+		y *= p.y();
+		z *= p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD add(Point p)
+	{
+		x += p.x();
+		y += p.y();
+		z += p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD sub(Point p)
+	{
+		x -= p.x();
+		y -= p.y();
+		z -= p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD mul(Point p)
+	{
+		x *= p.x();
+		y *= p.y();
+		z *= p.z();
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translateX(double x)
+	{
+		this.x += x;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translateY(double y)
+	{
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translateZ(double z)
+	{
+		this.z += z;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translate(double n)
+	{
+		x += n;
+		y += n;
+		z += n;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translate(double x, double y)
+	{
+		this.x += x;
+		this.y += y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD translate(double x, double y, double z)
+	{
+		this.x += x;
+		this.y += y;
+		this.z += z;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scaleX(double x)
+	{
+		this.x *= x;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scaleY(double y)
+	{
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scaleZ(double z)
+	{
+		this.z *= z;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scale(double n)
+	{
+		x *= n;
+		y *= n;
+		z *= n;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scale(double x, double y)
+	{
+		this.x *= x;
+		this.y *= y;
+		return this;
+	}
+	
+	@Override
+	public MutablePointD scale(double x, double y, double z)
+	{
+		this.x *= x;
+		this.y *= y;
+		this.z *= z;
+		return this;
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y, z);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof PointD))
+			return false;
+		PointD p = (PointD) o;
+		return p.dimensions() == 3 && Double.doubleToLongBits(x) == Double.doubleToLongBits(p.x()) && Double.doubleToLongBits(y) == Double.doubleToLongBits(p.y()) && Double.doubleToLongBits(z) == Double.doubleToLongBits(p.z());
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("MP[%s, %s, %s]", x, y, z);
+	}
+}
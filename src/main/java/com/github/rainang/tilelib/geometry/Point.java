@@ -1,22 +1,15 @@
 package com.github.rainang.tilelib.geometry;
 
-import java.util.Arrays;
-
 /**
  * An immutable point representing a location in 2- or 3-dimensional space, specified in integer precision.
  *
  * @see Points
  */
-public class Point
+public abstract class Point
 {
-	final int[] array;
-	
 	// Constructors
 	
-	Point(int[] array)
-	{
-		this.array = Arrays.copyOf(array, array.length);
-	}
+	Point() {}
 	
 	// Views
 	
@@ -37,7 +30,7 @@ public class Point
 	 */
 	public MutablePoint asMutable()
 	{
-		return new MutablePoint(array);
+		return dimensions() == 2 ? new MutablePoint2(x(), y()) : new MutablePoint3(x(), y(), z());
 	}
 	
 	/**
@@ -47,10 +40,7 @@ public class Point
 	 */
 	public PointD asDouble()
 	{
-		double[] a = new double[array.length];
-		for (int i = 0; i < array.length; i++)
-			a[i] = array[i];
-		return new PointD(a);
+		return dimensions() == 2 ? new PointD2(x(), y()) : new PointD3(x(), y(), z());
 	}
 	
 	/**
@@ -60,33 +50,31 @@ public class Point
 	 */
 	public MutablePointD asDoubleMutable()
 	{
-		double[] a = new double[array.length];
-		for (int i = 0; i < array.length; i++)
-			a[i] = array[i];
-		return new MutablePointD(a);
+		return dimensions() == 2 ? new MutablePointD2(x(), y()) : new MutablePointD3(x(), y(), z());
 	}
 	
 	// Getters
 	
+	/**
+	 * Returns the number of dimensions of this point.
+	 *
+	 * @return <code>2</code> or <code>3</code>
+	 */
+	public abstract int dimensions();
+	
 	/**
 	 * Returns the x-coordinate of this point.
 	 *
 	 * @return the x-coordinate of this point
 	 */
-	public int x()
-	{
-		return array[0];
-	}
+	public abstract int x();
 	
 	/**
 	 * Returns the y-coordinate of this point.
 	 *
 	 * @return the y-coordinate of this point
 	 */
-	public int y()
-	{
-		return array[1];
-	}
+	public abstract int y();
 	
 	/**
 	 * Returns the z-coordinate of this point.
@@ -95,31 +83,25 @@ public class Point
 	 *
 	 * @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public int z()
-	{
-		return array[2];
-	}
+	public abstract int z();
 	
-	// Overrides
+	// Hashing
 	
-	// TODO: 2016-12-31 Fix hashing for 3-dimensional point
-	@Override
-	public int hashCode()
+	static int hash(int x, int y)
 	{
-		long bits = Double.doubleToLongBits(array[0]);
-		bits ^= Double.doubleToLongBits(array[1]) * 31;
-		return (((int) bits) ^ ((int) (bits >> 32)));
+		return mix(PointCodec.pack(x, y));
 	}
 	
-	@Override
-	public boolean equals(Object o)
+	static int hash(int x, int y, int z)
 	{
-		return o instanceof Point ? Arrays.equals(array, ((Point) o).array) : super.equals(o);
+		return mix(PointCodec.pack(x, y) * 0x9E3779B97F4A7C15L + z);
 	}
 	
-	@Override
-	public String toString()
+	// Variant 13 of the MurmurHash3 64-bit finalizer, spreading every input bit over the result
+	static int mix(long h)
 	{
-		return String.format("P%s", Arrays.toString(array));
+		h = (h ^ h >>> 30) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ h >>> 27) * 0x94D049BB133111EBL;
+		return (int) (h ^ h >>> 31);
 	}
 }
@@ -0,0 +1,70 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * An immutable 2-dimensional {@link Point} storing its coordinates in fields.
+ */
+final class Point2 extends Point
+{
+	private final int x;
+	
+	private final int y;
+	
+	// Constructors
+	
+	Point2(int x, int y)
+	{
+		this.x = x;
+		this.y = y;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 2;
+	}
+	
+	@Override
+	public int x()
+	{
+		return x;
+	}
+	
+	@Override
+	public int y()
+	{
+		return y;
+	}
+	
+	@Override
+	public int z()
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof Point))
+			return false;
+		Point p = (Point) o;
+		return p.dimensions() == 2 && x == p.x() && y == p.y();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("P[%s, %s]", x, y);
+	}
+}
@@ -0,0 +1,73 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * An immutable 3-dimensional {@link Point} storing its coordinates in fields.
+ */
+final class Point3 extends Point
+{
+	private final int x;
+	
+	private final int y;
+	
+	private final int z;
+	
+	// Constructors
+	
+	Point3(int x, int y, int z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 3;
+	}
+	
+	@Override
+	public int x()
+	{
+		return x;
+	}
+	
+	@Override
+	public int y()
+	{
+		return y;
+	}
+	
+	@Override
+	public int z()
+	{
+		return z;
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y, z);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof Point))
+			return false;
+		Point p = (Point) o;
+		return p.dimensions() == 3 && x == p.x() && y == p.y() && z == p.z();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("P[%s, %s, %s]", x, y, z);
+	}
+}
@@ -0,0 +1,253 @@
+package com.github.rainang.tilelib.geometry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An interning cache for immutable 2-dimensional and hex points specified in integer precision.
+ * <p>
+ * Points with coordinates inside the window <code>[-window, window)</code> are served from tables built on
+ * construction. Points outside the window are kept in a concurrent overflow cache holding at most
+ * <code>maximumSize</code> points. Once the overflow cache is full, points outside the window are no longer cached.
+ * Lookups do not allocate, except for points that are not cached.</p>
+ * <p>
+ * The tables hold a 2-dimensional and a hex point for each of the <code>(2 * window)^2</code> coordinates, taking
+ * about 56 bytes per coordinate on a 64-bit virtual machine with compressed references, or some 14 MB for a window of
+ * 256. The overflow cache takes 8 bytes per point of <code>maximumSize</code> up front, plus the points it holds.</p>
+ * <p>
+ * A cache is installed through {@link Points#setCache(PointCache)}, after which {@link Points#at(int, int)}, {@link
+ * Points#at(int, int, int)} and {@link Points#hexAt(int, int)} return the same instance for the same coordinates.</p>
+ *
+ * @see Points
+ */
+public final class PointCache
+{
+	private final int window;
+	
+	private final int side;
+	
+	private final int maximumSize;
+	
+	private final Point[] points;
+	
+	private final Point[] hexPoints;
+	
+	private final int capacity;
+	
+	private volatile Overflow overflow;
+	
+	private final LongAdder hits = new LongAdder();
+	
+	private final LongAdder misses = new LongAdder();
+	
+	// Constructors
+	
+	/**
+	 * Constructs a cache for the window <code>[-window, window)</code>, with an overflow cache holding at most
+	 * <code>maximumSize</code> points. The tables of the window are built right away, see the memory footprint
+	 * above.
+	 *
+	 * @param window      the coordinate window of the pre-built tables
+	 * @param maximumSize the maximum number of points held by the overflow cache
+	 *
+	 * @throws IllegalArgumentException if <code>window</code> is negative or greater than 23170, or
+	 *                                  <code>maximumSize</code> is negative or greater than <code>2^29</code>
+	 */
+	public PointCache(int window, int maximumSize)
+	{
+		if (window < 0 || window > 23170)
+			throw new IllegalArgumentException("Illegal window: " + window);
+		if (maximumSize < 0 || maximumSize > 1 << 29)
+			throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+		
+		this.window = window;
+		this.side = window * 2;
+		this.maximumSize = maximumSize;
+		this.capacity = Math.max(2, Integer.highestOneBit(Math.max(1, 2 * maximumSize - 1)) << 1);
+		this.overflow = new Overflow(capacity);
+		this.points = new Point[side * side];
+		this.hexPoints = new Point[side * side];
+		
+		for (int x = -window; x < window; x++)
+			for (int y = -window; y < window; y++)
+			{
+				int i = (x + window) * side + y + window;
+				points[i] = new Point2(x, y);
+				hexPoints[i] = new Point3(x, y, -x - y);
+			}
+	}
+	
+	// Lookups
+	
+	Point at(int x, int y)
+	{
+		int i = x + window;
+		int j = y + window;
+		if (i >= 0 && j >= 0 && i < side && j < side)
+		{
+			hits.increment();
+			return points[i * side + j];
+		}
+		return lookup(x, y, false);
+	}
+	
+	Point hexAt(int x, int y)
+	{
+		int i = x + window;
+		int j = y + window;
+		if (i >= 0 && j >= 0 && i < side && j < side)
+		{
+			hits.increment();
+			return hexPoints[i * side + j];
+		}
+		return lookup(x, y, true);
+	}
+	
+	// Probes the overflow table by coordinates, which are compared against the cached points rather than boxed keys
+	private Point lookup(int x, int y, boolean hex)
+	{
+		Overflow o = overflow;
+		int mask = capacity - 1;
+		int i = Point.hash(x, y) & mask;
+		
+		for (Point p; (p = o.points.get(i)) != null; i = i + 1 & mask)
+			if (matches(p, x, y, hex))
+			{
+				hits.increment();
+				return p;
+			}
+		
+		misses.increment();
+		Point p = hex ? new Point3(x, y, -x - y) : new Point2(x, y);
+		
+		// Reserves room first, so the table never fills beyond half its capacity and probes always end
+		if (o.size.incrementAndGet() > maximumSize)
+		{
+			o.size.decrementAndGet();
+			return p;
+		}
+		
+		for (; ; i = i + 1 & mask)
+		{
+			if (o.points.compareAndSet(i, null, p))
+				return p;
+			Point q = o.points.get(i);
+			if (matches(q, x, y, hex))
+			{
+				o.size.decrementAndGet();
+				return q;
+			}
+		}
+	}
+	
+	private static boolean matches(Point p, int x, int y, boolean hex)
+	{
+		return p.x() == x && p.y() == y && p.dimensions() == (hex ? 3 : 2);
+	}
+	
+	// Getters
+	
+	/**
+	 * Returns the coordinate window of the pre-built tables.
+	 *
+	 * @return the coordinate window of the pre-built tables
+	 */
+	public int window()
+	{
+		return window;
+	}
+	
+	/**
+	 * Returns the maximum number of points held by the overflow cache.
+	 *
+	 * @return the maximum number of points held by the overflow cache
+	 */
+	public int maximumSize()
+	{
+		return maximumSize;
+	}
+	
+	/**
+	 * Returns the number of points currently held by the overflow cache.
+	 *
+	 * @return the number of points currently held by the overflow cache
+	 */
+	public long overflowSize()
+	{
+		return Math.min(overflow.size.get(), maximumSize);
+	}
+	
+	// Statistics
+	
+	/**
+	 * Returns the number of lookups that returned a cached point.
+	 *
+	 * @return the number of lookups that returned a cached point
+	 */
+	public long hitCount()
+	{
+		return hits.sum();
+	}
+	
+	/**
+	 * Returns the number of lookups that created a new point.
+	 *
+	 * @return the number of lookups that created a new point
+	 */
+	public long missCount()
+	{
+		return misses.sum();
+	}
+	
+	/**
+	 * Returns the ratio of lookups that returned a cached point, or <code>1</code> if there were no lookups.
+	 *
+	 * @return the ratio of lookups that returned a cached point
+	 */
+	public double hitRate()
+	{
+		long hits = hitCount();
+		long total = hits + missCount();
+		return total == 0 ? 1 : (double) hits / total;
+	}
+	
+	/**
+	 * Resets the hit and miss counters.
+	 */
+	public void resetStatistics()
+	{
+		hits.reset();
+		misses.reset();
+	}
+	
+	/**
+	 * Removes all points from the overflow cache.
+	 */
+	public void clearOverflow()
+	{
+		overflow = new Overflow(capacity);
+	}
+	
+	// Overrides
+	
+	@Override
+	public String toString()
+	{
+		return String.format("PointCache[window=%s, overflow=%s/%s, hits=%s, misses=%s]", window, overflowSize(),
+				maximumSize, hitCount(), missCount());
+	}
+	
+	// Replaced as a whole on clearing, so that lookups never see a table emptied under them
+	private static final class Overflow
+	{
+		private final AtomicReferenceArray<Point> points;
+		
+		private final AtomicInteger size = new AtomicInteger();
+		
+		Overflow(int capacity)
+		{
+			this.points = new AtomicReferenceArray<>(capacity);
+		}
+	}
+}
@@ -0,0 +1,403 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * This class consists exclusively of static methods for packing integer points into a single <code>long</code>.
+ * <p>
+ * Packed points allow hot loops to operate on primitives and only create {@link Point} instances when results are
+ * handed to callers. Three encodings are supported:</p>
+ * <ul>
+ * <li>2-dimensional points, using 32 bits per coordinate.</li>
+ * <li>3-dimensional points, using 21 bits per coordinate. Coordinates must lie within {@link #MIN_3} and {@link
+ * #MAX_3}.</li>
+ * <li>Hex points in axial form, storing only the x and y coordinates. The z-coordinate is derived as <code>-x -
+ * y</code>.</li>
+ * </ul>
+ * Packed values of different encodings must not be mixed.
+ *
+ * @see Points
+ */
+public final class PointCodec
+{
+	// Suppresses default constructor, ensuring non-instantiability.
+	private PointCodec()
+	{
+		throw new IllegalStateException();
+	}
+	
+	/**
+	 * The number of bits used per coordinate by the 3-dimensional encoding
+	 */
+	public static final int BITS_3 = 21;
+	
+	/**
+	 * The smallest coordinate value supported by the 3-dimensional encoding
+	 */
+	public static final int MIN_3 = -(1 << BITS_3 - 1);
+	
+	/**
+	 * The largest coordinate value supported by the 3-dimensional encoding
+	 */
+	public static final int MAX_3 = (1 << BITS_3 - 1) - 1;
+	
+	private static final long MASK_3 = (1L << BITS_3) - 1;
+	
+	// 2-dimensional
+	
+	/**
+	 * Packs a 2-dimensional point.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the packed point
+	 */
+	public static long pack(int x, int y)
+	{
+		return (long) x << 32 | y & 0xFFFFFFFFL;
+	}
+	
+	/**
+	 * Packs the x and y coordinates of point <code>p</code>.
+	 *
+	 * @param p the point to pack
+	 *
+	 * @return the packed point
+	 */
+	public static long pack(Point p)
+	{
+		return pack(p.x(), p.y());
+	}
+	
+	/**
+	 * Returns the x-coordinate of a packed 2-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return the x-coordinate
+	 */
+	public static int x(long p)
+	{
+		return (int) (p >> 32);
+	}
+	
+	/**
+	 * Returns the y-coordinate of a packed 2-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return the y-coordinate
+	 */
+	public static int y(long p)
+	{
+		return (int) p;
+	}
+	
+	/**
+	 * Returns an immutable point of a packed 2-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return an immutable 2-dimensional point
+	 */
+	public static Point toPoint(long p)
+	{
+		return Points.at(x(p), y(p));
+	}
+	
+	/**
+	 * Sets <code>dest</code> to the values of a packed 2-dimensional point.
+	 *
+	 * @param p    the packed point
+	 * @param dest the destination point
+	 *
+	 * @return <code>dest</code>
+	 */
+	public static MutablePoint toPoint(long p, MutablePoint dest)
+	{
+		return dest.set(x(p), y(p));
+	}
+	
+	/**
+	 * Adds two packed 2-dimensional points.
+	 *
+	 * @param p1 the first packed point
+	 * @param p2 the second packed point
+	 *
+	 * @return the packed sum
+	 */
+	public static long add(long p1, long p2)
+	{
+		return pack(x(p1) + x(p2), y(p1) + y(p2));
+	}
+	
+	/**
+	 * Translates a packed 2-dimensional point.
+	 *
+	 * @param p the packed point
+	 * @param x the x translation
+	 * @param y the y translation
+	 *
+	 * @return the packed translated point
+	 */
+	public static long add(long p, int x, int y)
+	{
+		return pack(x(p) + x, y(p) + y);
+	}
+	
+	/**
+	 * Subtracts two packed 2-dimensional points.
+	 *
+	 * @param p1 the packed point to subtract from
+	 * @param p2 the packed point to subtract
+	 *
+	 * @return the packed difference
+	 */
+	public static long sub(long p1, long p2)
+	{
+		return pack(x(p1) - x(p2), y(p1) - y(p2));
+	}
+	
+	/**
+	 * Scales a packed 2-dimensional point.
+	 *
+	 * @param p the packed point
+	 * @param n the value to scale by
+	 *
+	 * @return the packed scaled point
+	 */
+	public static long scale(long p, int n)
+	{
+		return pack(x(p) * n, y(p) * n);
+	}
+	
+	/**
+	 * Returns the manhattan distance between two packed 2-dimensional points.
+	 *
+	 * @param p1 the first packed point
+	 * @param p2 the second packed point
+	 *
+	 * @return the manhattan distance
+	 */
+	public static int distance(long p1, long p2)
+	{
+		return Math.abs(x(p1) - x(p2)) + Math.abs(y(p1) - y(p2));
+	}
+	
+	// 3-dimensional
+	
+	/**
+	 * Packs a 3-dimensional point.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 * @param z the z-coordinate
+	 *
+	 * @return the packed point
+	 *
+	 * @throws IllegalArgumentException if a coordinate is outside of <code>[MIN_3, MAX_3]</code>
+	 */
+	public static long pack3(int x, int y, int z)
+	{
+		if (x < MIN_3 || x > MAX_3 || y < MIN_3 || y > MAX_3 || z < MIN_3 || z > MAX_3)
+			throw new IllegalArgumentException(String.format("(%s, %s, %s) out of range", x, y, z));
+		return (x & MASK_3) << 2 * BITS_3 | (y & MASK_3) << BITS_3 | z & MASK_3;
+	}
+	
+	/**
+	 * Packs the x, y and z coordinates of point <code>p</code>.
+	 *
+	 * @param p the point to pack
+	 *
+	 * @return the packed point
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if <code>p</code> is a 2-dimensional point
+	 * @throws IllegalArgumentException       if a coordinate is outside of <code>[MIN_3, MAX_3]</code>
+	 */
+	public static long pack3(Point p)
+	{
+		return pack3(p.x(), p.y(), p.z());
+	}
+	
+	/**
+	 * Returns the x-coordinate of a packed 3-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return the x-coordinate
+	 */
+	public static int x3(long p)
+	{
+		return (int) (p << 64 - 3 * BITS_3 >> 64 - BITS_3);
+	}
+	
+	/**
+	 * Returns the y-coordinate of a packed 3-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return the y-coordinate
+	 */
+	public static int y3(long p)
+	{
+		return (int) (p << 64 - 2 * BITS_3 >> 64 - BITS_3);
+	}
+	
+	/**
+	 * Returns the z-coordinate of a packed 3-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return the z-coordinate
+	 */
+	public static int z3(long p)
+	{
+		return (int) (p << 64 - BITS_3 >> 64 - BITS_3);
+	}
+	
+	/**
+	 * Returns an immutable point of a packed 3-dimensional point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return an immutable 3-dimensional point
+	 */
+	public static Point toPoint3(long p)
+	{
+		return Points.at(x3(p), y3(p), z3(p));
+	}
+	
+	/**
+	 * Sets <code>dest</code> to the values of a packed 3-dimensional point.
+	 *
+	 * @param p    the packed point
+	 * @param dest the destination point
+	 *
+	 * @return <code>dest</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if <code>dest</code> is a 2-dimensional point
+	 */
+	public static MutablePoint toPoint3(long p, MutablePoint dest)
+	{
+		return dest.set(x3(p), y3(p), z3(p));
+	}
+	
+	/**
+	 * Adds two packed 3-dimensional points.
+	 *
+	 * @param p1 the first packed point
+	 * @param p2 the second packed point
+	 *
+	 * @return the packed sum
+	 */
+	public static long add3(long p1, long p2)
+	{
+		return pack3(x3(p1) + x3(p2), y3(p1) + y3(p2), z3(p1) + z3(p2));
+	}
+	
+	/**
+	 * Subtracts two packed 3-dimensional points.
+	 *
+	 * @param p1 the packed point to subtract from
+	 * @param p2 the packed point to subtract
+	 *
+	 * @return the packed difference
+	 */
+	public static long sub3(long p1, long p2)
+	{
+		return pack3(x3(p1) - x3(p2), y3(p1) - y3(p2), z3(p1) - z3(p2));
+	}
+	
+	/**
+	 * Returns the manhattan distance between two packed 3-dimensional points.
+	 *
+	 * @param p1 the first packed point
+	 * @param p2 the second packed point
+	 *
+	 * @return the manhattan distance
+	 */
+	public static int distance3(long p1, long p2)
+	{
+		return Math.abs(x3(p1) - x3(p2)) + Math.abs(y3(p1) - y3(p2)) + Math.abs(z3(p1) - z3(p2));
+	}
+	
+	// Hex
+	
+	/**
+	 * Packs a hex point in axial form. Only the x and y coordinates are stored.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the packed point
+	 */
+	public static long packHex(int x, int y)
+	{
+		return pack(x, y);
+	}
+	
+	/**
+	 * Packs hex point <code>p</code> in axial form. Only the x and y coordinates are stored.
+	 *
+	 * @param p the point to pack
+	 *
+	 * @return the packed point
+	 */
+	public static long packHex(Point p)
+	{
+		return pack(p.x(), p.y());
+	}
+	
+	/**
+	 * Returns the z-coordinate of a packed hex point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return the z-coordinate
+	 */
+	public static int hexZ(long p)
+	{
+		return -x(p) - y(p);
+	}
+	
+	/**
+	 * Returns an immutable hex point of a packed hex point.
+	 *
+	 * @param p the packed point
+	 *
+	 * @return an immutable 3-dimensional hex point
+	 */
+	public static Point toHexPoint(long p)
+	{
+		return Points.hexAt(x(p), y(p));
+	}
+	
+	/**
+	 * Sets <code>dest</code> to the values of a packed hex point.
+	 *
+	 * @param p    the packed point
+	 * @param dest the destination point
+	 *
+	 * @return <code>dest</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if <code>dest</code> is a 2-dimensional point
+	 */
+	public static MutablePoint toHexPoint(long p, MutablePoint dest)
+	{
+		return dest.set(x(p), y(p), hexZ(p));
+	}
+	
+	/**
+	 * Returns the hex distance between two packed hex points.
+	 *
+	 * @param p1 the first packed point
+	 * @param p2 the second packed point
+	 *
+	 * @return the hex distance
+	 */
+	public static int hexDistance(long p1, long p2)
+	{
+		int dx = x(p1) - x(p2);
+		int dy = y(p1) - y(p2);
+		return (Math.abs(dx) + Math.abs(dy) + Math.abs(dx + dy)) / 2;
+	}
+}
@@ -1,22 +1,15 @@
 package com.github.rainang.tilelib.geometry;
 
-import java.util.Arrays;
-
 /**
  * An immutable point representing a location in 2- or 3-dimensional space, specified in double precision.
  *
  * @see Points
  */
-public class PointD
+public abstract class PointD
 {
-	final double[] array;
-	
 	// Constructors
 	
-	PointD(double[] array)
-	{
-		this.array = Arrays.copyOf(array, array.length);
-	}
+	PointD() {}
 	
 	// Views
 	
@@ -37,7 +30,7 @@ public class PointD
 	 */
 	public MutablePointD asMutable()
 	{
-		return new MutablePointD(array);
+		return dimensions() == 2 ? new MutablePointD2(x(), y()) : new MutablePointD3(x(), y(), z());
 	}
 	
 	/**
@@ -47,10 +40,7 @@ public class PointD
 	 */
 	public Point asInt()
 	{
-		int[] a = new int[array.length];
-		for (int i = 0; i < array.length; i++)
-			a[i] = (int) array[i];
-		return new Point(a);
+		return dimensions() == 2 ? new Point2((int) x(), (int) y()) : new Point3((int) x(), (int) y(), (int) z());
 	}
 	
 	/**
@@ -60,33 +50,32 @@ public class PointD
 	 */
 	public MutablePoint asIntMutable()
 	{
-		int[] a = new int[array.length];
-		for (int i = 0; i < array.length; i++)
-			a[i] = (int) array[i];
-		return new MutablePoint(a);
+		return dimensions() == 2 ? new MutablePoint2((int) x(), (int) y()) : new MutablePoint3((int) x(), (int) y(),
+				(int) z());
 	}
 	
 	// Getters
 	
+	/**
+	 * Returns the number of dimensions of this point.
+	 *
+	 * @return <code>2</code> or <code>3</code>
+	 */
+	public abstract int dimensions();
+	
 	/**
 	 * Returns the x-coordinate of this point.
 	 *
 	 * @return the x-coordinate of this point
 	 */
-	public double x()
-	{
-		return array[0];
-	}
+	public abstract double x();
 	
 	/**
 	 * Returns the y-coordinate of this point.
 	 *
 	 * @return the y-coordinate of this point
 	 */
-	public double y()
-	{
-		return array[1];
-	}
+	public abstract double y();
 	
 	/**
 	 * Returns the z-coordinate of this point.
@@ -95,31 +84,18 @@ public class PointD
 	 *
 	 * @throws ArrayIndexOutOfBoundsException if this is a 2-dimensional point
 	 */
-	public double z()
-	{
-		return array[2];
-	}
-	
-	// Overrides
+	public abstract double z();
 	
-	// TODO: 2016-12-31 Fix hashing for 3-dimensional point
-	@Override
-	public int hashCode()
-	{
-		long bits = Double.doubleToLongBits(array[0]);
-		bits ^= Double.doubleToLongBits(array[1]) * 31;
-		return (((int) bits) ^ ((int) (bits >> 32)));
-	}
+	// Hashing
 	
-	@Override
-	public boolean equals(Object o)
+	static int hash(double x, double y)
 	{
-		return o instanceof PointD ? Arrays.equals(array, ((PointD) o).array) : super.equals(o);
+		return Point.mix(Double.doubleToLongBits(x) * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(y));
 	}
 	
-	@Override
-	public String toString()
+	static int hash(double x, double y, double z)
 	{
-		return String.format("P%s", Arrays.toString(array));
+		long h = Double.doubleToLongBits(x) * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(y);
+		return Point.mix(h * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(z));
 	}
 }
@@ -0,0 +1,71 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * An immutable 2-dimensional {@link PointD} storing its coordinates in fields.
+ */
+final class PointD2 extends PointD
+{
+	private final double x;
+	
+	private final double y;
+	
+	// Constructors
+	
+	PointD2(double x, double y)
+	{
+		this.x = x;
+		this.y = y;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 2;
+	}
+	
+	@Override
+	public double x()
+	{
+		return x;
+	}
+	
+	@Override
+	public double y()
+	{
+		return y;
+	}
+	
+	@Override
+	public double z()
+	{
+		throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof PointD))
+			return false;
+		PointD p = (PointD) o;
+		return p.dimensions() == 2 && Double.doubleToLongBits(x) == Double.doubleToLongBits(p.x()) && Double
+				.doubleToLongBits(y) == Double.doubleToLongBits(p.y());
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("P[%s, %s]", x, y);
+	}
+}
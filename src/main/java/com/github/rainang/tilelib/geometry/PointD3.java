@@ -0,0 +1,75 @@
+package com.github.rainang.tilelib.geometry;
+
+/**
+ * An immutable 3-dimensional {@link PointD} storing its coordinates in fields.
+ */
+final class PointD3 extends PointD
+{
+	private final double x;
+	
+	private final double y;
+	
+	private final double z;
+	
+	// Constructors
+	
+	PointD3(double x, double y, double z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	// Getters
+	
+	@Override
+	public int dimensions()
+	{
+		return 3;
+	}
+	
+	@Override
+	public double x()
+	{
+		return x;
+	}
+	
+	@Override
+	public double y()
+	{
+		return y;
+	}
+	
+	@Override
+	public double z()
+	{
+		return z;
+	}
+	
+	// Overrides
+	
+	@Override
+	public int hashCode()
+	{
+		return hash(x, y, z);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+			return true;
+		if (!(o instanceof PointD))
+			return false;
+		PointD p = (PointD) o;
+		return p.dimensions() == 3 && Double.doubleToLongBits(x) == Double.doubleToLongBits(p.x()) && Double
+				.doubleToLongBits(y) == Double.doubleToLongBits(p.y()) && Double.doubleToLongBits(z) == Double
+				.doubleToLongBits(p.z());
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("P[%s, %s, %s]", x, y, z);
+	}
+}
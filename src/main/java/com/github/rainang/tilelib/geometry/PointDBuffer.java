@@ -0,0 +1,635 @@
+package com.github.rainang.tilelib.geometry;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable buffer of 2- or 3-dimensional points specified in double precision, storing each coordinate in its own
+ * primitive array.
+ * <p>
+ * Bulk operations transform a range of points <code>[from, to)</code> in a single loop per coordinate, avoiding a
+ * point object per element.</p>
+ *
+ * @see PointDBuffer
+ */
+public class PointDBuffer
+{
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private final int dimensions;
+	
+	private double[] x;
+	
+	private double[] y;
+	
+	private double[] z;
+	
+	private int size;
+	
+	// Constructors
+	
+	/**
+	 * Constructs an empty buffer of 2- or 3-dimensional points.
+	 *
+	 * @param dimensions the number of dimensions, <code>2</code> or <code>3</code>
+	 * @param capacity   the initial capacity
+	 *
+	 * @throws IllegalArgumentException if <code>dimensions</code> is not <code>2</code> or <code>3</code>, or
+	 *                                  <code>capacity</code> is negative
+	 */
+	public PointDBuffer(int dimensions, int capacity)
+	{
+		if (dimensions != 2 && dimensions != 3)
+			throw new IllegalArgumentException("Illegal dimensions: " + dimensions);
+		if (capacity < 0)
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		this.dimensions = dimensions;
+		this.x = new double[capacity];
+		this.y = new double[capacity];
+		this.z = dimensions == 3 ? new double[capacity] : null;
+	}
+	
+	/**
+	 * Constructs an empty buffer of 2- or 3-dimensional points.
+	 *
+	 * @param dimensions the number of dimensions, <code>2</code> or <code>3</code>
+	 *
+	 * @throws IllegalArgumentException if <code>dimensions</code> is not <code>2</code> or <code>3</code>
+	 */
+	public PointDBuffer(int dimensions)
+	{
+		this(dimensions, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Returns a buffer containing the specified points, in iteration order.
+	 *
+	 * @param dimensions the number of dimensions, <code>2</code> or <code>3</code>
+	 * @param points     the points to add
+	 *
+	 * @return a buffer containing the specified points
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if <code>dimensions</code> is <code>3</code> and a point is not
+	 */
+	public static PointDBuffer of(int dimensions, Collection<? extends PointD> points)
+	{
+		return new PointDBuffer(dimensions, points.size()).appendAll(points);
+	}
+	
+	// Getters
+	
+	/**
+	 * Returns the number of dimensions of the points in this buffer.
+	 *
+	 * @return <code>2</code> or <code>3</code>
+	 */
+	public int dimensions()
+	{
+		return dimensions;
+	}
+	
+	/**
+	 * Returns the number of points in this buffer.
+	 *
+	 * @return the number of points in this buffer
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the x-coordinate of the point at index <code>i</code>.
+	 *
+	 * @param i the index
+	 *
+	 * @return the x-coordinate
+	 */
+	public double x(int i)
+	{
+		checkIndex(i);
+		return x[i];
+	}
+	
+	/**
+	 * Returns the y-coordinate of the point at index <code>i</code>.
+	 *
+	 * @param i the index
+	 *
+	 * @return the y-coordinate
+	 */
+	public double y(int i)
+	{
+		checkIndex(i);
+		return y[i];
+	}
+	
+	/**
+	 * Returns the z-coordinate of the point at index <code>i</code>.
+	 *
+	 * @param i the index
+	 *
+	 * @return the z-coordinate
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 2-dimensional points
+	 */
+	public double z(int i)
+	{
+		checkIndex(i);
+		checkZ();
+		return z[i];
+	}
+	
+	/**
+	 * Returns an immutable point of the point at index <code>i</code>.
+	 *
+	 * @param i the index
+	 *
+	 * @return an immutable point
+	 */
+	public PointD get(int i)
+	{
+		checkIndex(i);
+		return dimensions == 2 ? Points.doubleAt(x[i], y[i]) : Points.doubleAt(x[i], y[i], z[i]);
+	}
+	
+	/**
+	 * Sets <code>dest</code> to the point at index <code>i</code>.
+	 *
+	 * @param i    the index
+	 * @param dest the destination point
+	 *
+	 * @return <code>dest</code>
+	 */
+	public MutablePointD get(int i, MutablePointD dest)
+	{
+		checkIndex(i);
+		return dimensions == 2 ? dest.set(x[i], y[i]) : dest.set(x[i], y[i], z[i]);
+	}
+	
+	// Setters
+	
+	/**
+	 * Appends a 2-dimensional point.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws IllegalStateException if this is a buffer of 3-dimensional points
+	 */
+	public PointDBuffer append(double x, double y)
+	{
+		if (dimensions != 2)
+			throw new IllegalStateException("3-dimensional buffer");
+		ensureCapacity(size + 1);
+		this.x[size] = x;
+		this.y[size] = y;
+		size++;
+		return this;
+	}
+	
+	/**
+	 * Appends a 3-dimensional point.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 * @param z the z-coordinate
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 2-dimensional points
+	 */
+	public PointDBuffer append(double x, double y, double z)
+	{
+		checkZ();
+		ensureCapacity(size + 1);
+		this.x[size] = x;
+		this.y[size] = y;
+		this.z[size] = z;
+		size++;
+		return this;
+	}
+	
+	/**
+	 * Appends point <code>p</code>.
+	 *
+	 * @param p the point to append
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and <code>p</code> is not
+	 */
+	public PointDBuffer append(PointD p)
+	{
+		return dimensions == 2 ? append(p.x(), p.y()) : append(p.x(), p.y(), p.z());
+	}
+	
+	/**
+	 * Appends all specified points, in iteration order.
+	 *
+	 * @param points the points to append
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and a point is not
+	 */
+	public PointDBuffer appendAll(Collection<? extends PointD> points)
+	{
+		ensureCapacity(size + points.size());
+		for (PointD p : points)
+			append(p);
+		return this;
+	}
+	
+	/**
+	 * Sets the point at index <code>i</code> to point <code>p</code>.
+	 *
+	 * @param i the index
+	 * @param p the point to set
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and <code>p</code> is not
+	 */
+	public PointDBuffer set(int i, PointD p)
+	{
+		checkIndex(i);
+		if (dimensions == 3)
+			z[i] = p.z();
+		x[i] = p.x();
+		y[i] = p.y();
+		return this;
+	}
+	
+	/**
+	 * Removes all points from this buffer.
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 */
+	public PointDBuffer clear()
+	{
+		size = 0;
+		return this;
+	}
+	
+	// Bulk Operations
+	
+	/**
+	 * Translates all points by point <code>p</code>.
+	 *
+	 * @param p the point to add
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and <code>p</code> is not
+	 */
+	public PointDBuffer add(PointD p)
+	{
+		return add(0, size, p);
+	}
+	
+	/**
+	 * Translates the points in <code>[from, to)</code> by point <code>p</code>.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 * @param p    the point to add
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and <code>p</code> is not
+	 */
+	public PointDBuffer add(int from, int to, PointD p)
+	{
+		checkRange(from, to);
+		translate(x, from, to, p.x());
+		translate(y, from, to, p.y());
+		if (dimensions == 3)
+			translate(z, from, to, p.z());
+		return this;
+	}
+	
+	/**
+	 * Translates all points by the negation of point <code>p</code>.
+	 *
+	 * @param p the point to subtract
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and <code>p</code> is not
+	 */
+	public PointDBuffer sub(PointD p)
+	{
+		return sub(0, size, p);
+	}
+	
+	/**
+	 * Translates the points in <code>[from, to)</code> by the negation of point <code>p</code>.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 * @param p    the point to subtract
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this is a buffer of 3-dimensional points and <code>p</code> is not
+	 */
+	public PointDBuffer sub(int from, int to, PointD p)
+	{
+		checkRange(from, to);
+		translate(x, from, to, -p.x());
+		translate(y, from, to, -p.y());
+		if (dimensions == 3)
+			translate(z, from, to, -p.z());
+		return this;
+	}
+	
+	/**
+	 * Scales all points by <code>n</code>.
+	 *
+	 * @param n the value to scale
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 */
+	public PointDBuffer scale(double n)
+	{
+		return scale(0, size, n);
+	}
+	
+	/**
+	 * Scales the points in <code>[from, to)</code> by <code>n</code>.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 * @param n    the value to scale
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 */
+	public PointDBuffer scale(int from, int to, double n)
+	{
+		checkRange(from, to);
+		scale(x, from, to, n);
+		scale(y, from, to, n);
+		if (dimensions == 3)
+			scale(z, from, to, n);
+		return this;
+	}
+	
+	/**
+	 * Negates all points.
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 */
+	public PointDBuffer negate()
+	{
+		return negate(0, size);
+	}
+	
+	/**
+	 * Negates the points in <code>[from, to)</code>.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 */
+	public PointDBuffer negate(int from, int to)
+	{
+		return scale(from, to, -1);
+	}
+	
+	/**
+	 * Rotates all points clockwise around the origin. Hex points are rotated by one sixth of a turn, like {@link
+	 * com.github.rainang.tilelib.tile.HexFinder#rotate(MutablePoint)}, and 2-dimensional points by one quarter of a
+	 * turn, mapping <code>(0, 1)</code> to <code>(1, 0)</code>.
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 */
+	public PointDBuffer rotate()
+	{
+		return rotate(0, size);
+	}
+	
+	/**
+	 * Rotates the points in <code>[from, to)</code> clockwise around the origin.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @see #rotate()
+	 */
+	public PointDBuffer rotate(int from, int to)
+	{
+		checkRange(from, to);
+		double[] x = this.x;
+		double[] y = this.y;
+		double[] z = this.z;
+		if (dimensions == 2)
+			for (int i = from; i < to; i++)
+			{
+				double t = x[i];
+				x[i] = y[i];
+				y[i] = -t;
+			}
+		else
+			for (int i = from; i < to; i++)
+			{
+				double t = x[i];
+				x[i] = -z[i];
+				z[i] = -y[i];
+				y[i] = -t;
+			}
+		return this;
+	}
+	
+	/**
+	 * Rotates all points counter-clockwise around the origin.
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @see #rotate()
+	 */
+	public PointDBuffer rotateCCW()
+	{
+		return rotateCCW(0, size);
+	}
+	
+	/**
+	 * Rotates the points in <code>[from, to)</code> counter-clockwise around the origin.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 *
+	 * @return this <code>PointDBuffer</code>
+	 *
+	 * @see #rotate()
+	 */
+	public PointDBuffer rotateCCW(int from, int to)
+	{
+		checkRange(from, to);
+		double[] x = this.x;
+		double[] y = this.y;
+		double[] z = this.z;
+		if (dimensions == 2)
+			for (int i = from; i < to; i++)
+			{
+				double t = x[i];
+				x[i] = -y[i];
+				y[i] = t;
+			}
+		else
+			for (int i = from; i < to; i++)
+			{
+				double t = x[i];
+				x[i] = -y[i];
+				y[i] = -z[i];
+				z[i] = -t;
+			}
+		return this;
+	}
+	
+	/**
+	 * Rounds all hex points to the nearest hex points, and appends them to <code>dest</code>, in index order.
+	 *
+	 * @param dest the destination buffer
+	 *
+	 * @return <code>dest</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this or <code>dest</code> is a buffer of 2-dimensional points
+	 * @see com.github.rainang.tilelib.tile.HexFinder#round(PointD, MutablePoint)
+	 */
+	public PointBuffer hexRound(PointBuffer dest)
+	{
+		return hexRound(0, size, dest);
+	}
+	
+	/**
+	 * Rounds the hex points in <code>[from, to)</code> to the nearest hex points, and appends them to
+	 * <code>dest</code>, in index order.
+	 *
+	 * @param from the first index, inclusive
+	 * @param to   the last index, exclusive
+	 * @param dest the destination buffer
+	 *
+	 * @return <code>dest</code>
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if this or <code>dest</code> is a buffer of 2-dimensional points
+	 * @see com.github.rainang.tilelib.tile.HexFinder#round(PointD, MutablePoint)
+	 */
+	public PointBuffer hexRound(int from, int to, PointBuffer dest)
+	{
+		checkRange(from, to);
+		checkZ();
+		dest.ensureCapacity(dest.size() + to - from);
+		double[] x = this.x;
+		double[] y = this.y;
+		double[] z = this.z;
+		for (int i = from; i < to; i++)
+		{
+			int xi = (int) Math.round(x[i]);
+			int yi = (int) Math.round(y[i]);
+			int zi = (int) Math.round(z[i]);
+			
+			double xd = Math.abs(xi - x[i]);
+			double yd = Math.abs(yi - y[i]);
+			double zd = Math.abs(zi - z[i]);
+			
+			if (xd > yd && xd > zd)
+				xi = -yi - zi;
+			else if (yd > zd)
+				yi = -xi - zi;
+			
+			dest.append(xi, yi, -xi - yi);
+		}
+		return dest;
+	}
+	
+	// Conversions
+	
+	/**
+	 * Adds all points of this buffer to <code>dest</code> as immutable points, in index order.
+	 *
+	 * @param dest the destination collection
+	 * @param <C>  the type of the destination collection
+	 *
+	 * @return <code>dest</code>
+	 */
+	public <C extends Collection<? super PointD>> C toPoints(C dest)
+	{
+		for (int i = 0; i < size; i++)
+			dest.add(dimensions == 2 ? Points.doubleAt(x[i], y[i]) : Points.doubleAt(x[i], y[i], z[i]));
+		return dest;
+	}
+	
+	// Loops
+	
+	private static void translate(double[] a, int from, int to, double n)
+	{
+		for (int i = from; i < to; i++)
+			a[i] += n;
+	}
+	
+	private static void scale(double[] a, int from, int to, double n)
+	{
+		for (int i = from; i < to; i++)
+			a[i] *= n;
+	}
+	
+	// Capacity
+	
+	/**
+	 * Ensures that this buffer can hold at least <code>capacity</code> points without growing.
+	 *
+	 * @param capacity the minimum capacity
+	 */
+	public void ensureCapacity(int capacity)
+	{
+		if (capacity <= x.length)
+			return;
+		int n = Math.max(capacity, x.length + (x.length >> 1) + 1);
+		x = Arrays.copyOf(x, n);
+		y = Arrays.copyOf(y, n);
+		if (dimensions == 3)
+			z = Arrays.copyOf(z, n);
+	}
+	
+	// Checks
+	
+	private void checkIndex(int i)
+	{
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+	}
+	
+	private void checkRange(int from, int to)
+	{
+		if (from < 0 || to > size || from > to)
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + size);
+	}
+	
+	private void checkZ()
+	{
+		if (dimensions != 3)
+			throw new ArrayIndexOutOfBoundsException(2);
+	}
+	
+	// Overrides
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("PDB[");
+		for (int i = 0; i < size; i++)
+		{
+			if (i > 0)
+				sb.append(", ");
+			sb.append(get(i));
+		}
+		return sb.append(']')
+				 .toString();
+	}
+}
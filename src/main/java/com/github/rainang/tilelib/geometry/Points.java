@@ -1,5 +1,8 @@
 package com.github.rainang.tilelib.geometry;
 
+import java.util.List;
+import java.util.ListIterator;
+
 /**
  * This class consists exclusively of static factory and utility methods for all point classes.
  * <p>
@@ -39,6 +42,33 @@ public final class Points
 	 */
 	public static final PointD ORIGIN_D3 = doubleAt(0, 0, 0);
 	
+	private static volatile PointCache cache;
+	
+	// Cache
+	
+	/**
+	 * Installs an interning cache for immutable 2-dimensional and hex points specified in integer precision, or removes
+	 * the installed cache if <code>cache</code> is null.
+	 *
+	 * @param cache the cache to install, or null
+	 *
+	 * @see PointCache
+	 */
+	public static void setCache(PointCache cache)
+	{
+		Points.cache = cache;
+	}
+	
+	/**
+	 * Returns the installed interning cache, or null if no cache is installed.
+	 *
+	 * @return the installed interning cache, or null
+	 */
+	public static PointCache getCache()
+	{
+		return cache;
+	}
+	
 	// Constructors
 	
 	/**
@@ -51,10 +81,8 @@ public final class Points
 	 */
 	public static Point at(int x, int y)
 	{
-		return new Point(new int[] {
-				x,
-				y
-		});
+		PointCache c = cache;
+		return c != null ? c.at(x, y) : new Point2(x, y);
 	}
 	
 	/**
@@ -68,11 +96,8 @@ public final class Points
 	 */
 	public static Point at(int x, int y, int z)
 	{
-		return new Point(new int[] {
-				x,
-				y,
-				z
-		});
+		PointCache c = cache;
+		return c != null && x + y + z == 0 ? c.hexAt(x, y) : new Point3(x, y, z);
 	}
 	
 	/**
@@ -85,7 +110,8 @@ public final class Points
 	 */
 	public static Point hexAt(int x, int y)
 	{
-		return at(x, y, -x - y);
+		PointCache c = cache;
+		return c != null ? c.hexAt(x, y) : new Point3(x, y, -x - y);
 	}
 	
 	/**
@@ -98,10 +124,7 @@ public final class Points
 	 */
 	public static MutablePoint mutableAt(int x, int y)
 	{
-		return new MutablePoint(new int[] {
-				x,
-				y
-		});
+		return new MutablePoint2(x, y);
 	}
 	
 	/**
@@ -115,11 +138,7 @@ public final class Points
 	 */
 	public static MutablePoint mutableAt(int x, int y, int z)
 	{
-		return new MutablePoint(new int[] {
-				x,
-				y,
-				z
-		});
+		return new MutablePoint3(x, y, z);
 	}
 	
 	/**
@@ -165,10 +184,7 @@ public final class Points
 	 */
 	public static PointD doubleAt(double x, double y)
 	{
-		return new PointD(new double[] {
-				x,
-				y
-		});
+		return new PointD2(x, y);
 	}
 	
 	/**
@@ -182,11 +198,7 @@ public final class Points
 	 */
 	public static PointD doubleAt(double x, double y, double z)
 	{
-		return new PointD(new double[] {
-				x,
-				y,
-				z
-		});
+		return new PointD3(x, y, z);
 	}
 	
 	/**
@@ -212,10 +224,7 @@ public final class Points
 	 */
 	public static MutablePointD mutableDoubleAt(double x, double y)
 	{
-		return new MutablePointD(new double[] {
-				x,
-				y
-		});
+		return new MutablePointD2(x, y);
 	}
 	
 	/**
@@ -229,11 +238,7 @@ public final class Points
 	 */
 	public static MutablePointD mutableDoubleAt(double x, double y, double z)
 	{
-		return new MutablePointD(new double[] {
-				x,
-				y,
-				z
-		});
+		return new MutablePointD3(x, y, z);
 	}
 	
 	/**
@@ -280,7 +285,7 @@ public final class Points
 	 */
 	public static boolean is2Dimensional(Point p)
 	{
-		return p.array.length == 2;
+		return p.dimensions() == 2;
 	}
 	
 	/**
@@ -292,7 +297,7 @@ public final class Points
 	 */
 	public static boolean is2Dimensional(PointD p)
 	{
-		return p.array.length == 2;
+		return p.dimensions() == 2;
 	}
 	
 	/**
@@ -304,7 +309,7 @@ public final class Points
 	 */
 	public static boolean is3Dimensional(Point p)
 	{
-		return p.array.length == 3;
+		return p.dimensions() == 3;
 	}
 	
 	/**
@@ -316,7 +321,7 @@ public final class Points
 	 */
 	public static boolean is3Dimensional(PointD p)
 	{
-		return p.array.length == 3;
+		return p.dimensions() == 3;
 	}
 	
 	/**
@@ -329,7 +334,7 @@ public final class Points
 	 */
 	public static boolean isHexPoint(Point p)
 	{
-		return p != null && p.array.length == 3 && p.x() + p.y() == -p.z();
+		return p != null && p.dimensions() == 3 && p.x() + p.y() == -p.z();
 	}
 	
 	/**
@@ -342,6 +347,428 @@ public final class Points
 	 */
 	public static boolean isHexPoint(PointD p)
 	{
-		return p != null && p.array.length == 3 && p.x() + p.y() == -p.z();
+		return p != null && p.dimensions() == 3 && p.x() + p.y() == -p.z();
+	}
+	
+	// Space-filling Curves
+	
+	/**
+	 * Returns the Morton (Z-order) code of a 2-dimensional point. Codes are ordered as unsigned longs, and preserve the
+	 * order of the coordinates, so that sorting by code groups points that are close in space.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the Morton code
+	 */
+	public static long morton(int x, int y)
+	{
+		return spread2(x ^ Integer.MIN_VALUE) | spread2(y ^ Integer.MIN_VALUE) << 1;
+	}
+	
+	/**
+	 * Returns the Morton (Z-order) code of a 3-dimensional point. Codes are ordered as unsigned longs.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 * @param z the z-coordinate
+	 *
+	 * @return the Morton code
+	 *
+	 * @throws IllegalArgumentException if a coordinate is outside of <code>[PointCodec.MIN_3,
+	 *                                  PointCodec.MAX_3]</code>
+	 */
+	public static long morton(int x, int y, int z)
+	{
+		checkRange3(x, y, z);
+		return spread3(x - PointCodec.MIN_3) | spread3(y - PointCodec.MIN_3) << 1 | spread3(z - PointCodec.MIN_3) << 2;
+	}
+	
+	/**
+	 * Returns the Morton (Z-order) code of point <code>p</code>.
+	 *
+	 * @param p the point
+	 *
+	 * @return the Morton code
+	 *
+	 * @throws IllegalArgumentException if <code>p</code> is a 3-dimensional point with a coordinate outside of
+	 *                                  <code>[PointCodec.MIN_3, PointCodec.MAX_3]</code>
+	 * @see #morton(int, int)
+	 * @see #morton(int, int, int)
+	 */
+	public static long morton(Point p)
+	{
+		return p.dimensions() == 2 ? morton(p.x(), p.y()) : morton(p.x(), p.y(), p.z());
+	}
+	
+	/**
+	 * Sets <code>dest</code> to the point of a Morton code. The code is decoded as a 2- or 3-dimensional code depending
+	 * on the dimensions of <code>dest</code>.
+	 *
+	 * @param code the Morton code
+	 * @param dest the destination point
+	 *
+	 * @return <code>dest</code>
+	 */
+	public static MutablePoint fromMorton(long code, MutablePoint dest)
+	{
+		if (dest.dimensions() == 2)
+			return dest.set(compact2(code) ^ Integer.MIN_VALUE, compact2(code >>> 1) ^ Integer.MIN_VALUE);
+		return dest.set(compact3(code) + PointCodec.MIN_3, compact3(code >>> 1) + PointCodec.MIN_3, compact3(code >>>
+				2) + PointCodec.MIN_3);
+	}
+	
+	/**
+	 * Returns the Hilbert curve code of a 2-dimensional point. Codes are ordered as unsigned longs. Unlike Morton codes,
+	 * consecutive Hilbert codes are always adjacent in space.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 *
+	 * @return the Hilbert code
+	 */
+	public static long hilbert(int x, int y)
+	{
+		// Skilling's transform from axes to the transposed Hilbert index
+		long x0 = (x ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+		long x1 = (y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+		for (long q = 1L << 31; q > 1; q >>>= 1)
+		{
+			long p = q - 1;
+			if ((x0 & q) != 0)
+				x0 ^= p;
+			if ((x1 & q) != 0)
+				x0 ^= p;
+			else
+			{
+				long t = (x0 ^ x1) & p;
+				x0 ^= t;
+				x1 ^= t;
+			}
+		}
+		x1 ^= x0;
+		long t = 0;
+		for (long q = 1L << 31; q > 1; q >>>= 1)
+			if ((x1 & q) != 0)
+				t ^= q - 1;
+		return spread2((int) (x1 ^ t)) | spread2((int) (x0 ^ t)) << 1;
+	}
+	
+	/**
+	 * Returns the Hilbert curve code of a 3-dimensional point. Codes are ordered as unsigned longs.
+	 *
+	 * @param x the x-coordinate
+	 * @param y the y-coordinate
+	 * @param z the z-coordinate
+	 *
+	 * @return the Hilbert code
+	 *
+	 * @throws IllegalArgumentException if a coordinate is outside of <code>[PointCodec.MIN_3,
+	 *                                  PointCodec.MAX_3]</code>
+	 */
+	public static long hilbert(int x, int y, int z)
+	{
+		checkRange3(x, y, z);
+		long x0 = x - PointCodec.MIN_3;
+		long x1 = y - PointCodec.MIN_3;
+		long x2 = z - PointCodec.MIN_3;
+		for (long q = 1L << PointCodec.BITS_3 - 1; q > 1; q >>>= 1)
+		{
+			long p = q - 1;
+			if ((x0 & q) != 0)
+				x0 ^= p;
+			if ((x1 & q) != 0)
+				x0 ^= p;
+			else
+			{
+				long t = (x0 ^ x1) & p;
+				x0 ^= t;
+				x1 ^= t;
+			}
+			if ((x2 & q) != 0)
+				x0 ^= p;
+			else
+			{
+				long t = (x0 ^ x2) & p;
+				x0 ^= t;
+				x2 ^= t;
+			}
+		}
+		x1 ^= x0;
+		x2 ^= x1;
+		long t = 0;
+		for (long q = 1L << PointCodec.BITS_3 - 1; q > 1; q >>>= 1)
+			if ((x2 & q) != 0)
+				t ^= q - 1;
+		return spread3((int) (x2 ^ t)) | spread3((int) (x1 ^ t)) << 1 | spread3((int) (x0 ^ t)) << 2;
+	}
+	
+	/**
+	 * Returns the Hilbert curve code of point <code>p</code>.
+	 *
+	 * @param p the point
+	 *
+	 * @return the Hilbert code
+	 *
+	 * @throws IllegalArgumentException if <code>p</code> is a 3-dimensional point with a coordinate outside of
+	 *                                  <code>[PointCodec.MIN_3, PointCodec.MAX_3]</code>
+	 * @see #hilbert(int, int)
+	 * @see #hilbert(int, int, int)
+	 */
+	public static long hilbert(Point p)
+	{
+		return p.dimensions() == 2 ? hilbert(p.x(), p.y()) : hilbert(p.x(), p.y(), p.z());
+	}
+	
+	/**
+	 * Sets <code>dest</code> to the point of a Hilbert code. The code is decoded as a 2- or 3-dimensional code
+	 * depending on the dimensions of <code>dest</code>.
+	 *
+	 * @param code the Hilbert code
+	 * @param dest the destination point
+	 *
+	 * @return <code>dest</code>
+	 */
+	public static MutablePoint fromHilbert(long code, MutablePoint dest)
+	{
+		if (dest.dimensions() == 2)
+		{
+			long x0 = compact2(code >>> 1) & 0xFFFFFFFFL;
+			long x1 = compact2(code) & 0xFFFFFFFFL;
+			long t = x1 >>> 1;
+			x1 ^= x0;
+			x0 ^= t;
+			for (long q = 2; q != 1L << 32; q <<= 1)
+			{
+				long p = q - 1;
+				if ((x1 & q) != 0)
+					x0 ^= p;
+				else
+				{
+					t = (x0 ^ x1) & p;
+					x0 ^= t;
+					x1 ^= t;
+				}
+				if ((x0 & q) != 0)
+					x0 ^= p;
+			}
+			return dest.set((int) x0 ^ Integer.MIN_VALUE, (int) x1 ^ Integer.MIN_VALUE);
+		}
+		
+		long x0 = compact3(code >>> 2);
+		long x1 = compact3(code >>> 1);
+		long x2 = compact3(code);
+		long t = x2 >>> 1;
+		x2 ^= x1;
+		x1 ^= x0;
+		x0 ^= t;
+		for (long q = 2; q != 1L << PointCodec.BITS_3; q <<= 1)
+		{
+			long p = q - 1;
+			if ((x2 & q) != 0)
+				x0 ^= p;
+			else
+			{
+				t = (x0 ^ x2) & p;
+				x0 ^= t;
+				x2 ^= t;
+			}
+			if ((x1 & q) != 0)
+				x0 ^= p;
+			else
+			{
+				t = (x0 ^ x1) & p;
+				x0 ^= t;
+				x1 ^= t;
+			}
+			if ((x0 & q) != 0)
+				x0 ^= p;
+		}
+		return dest.set((int) x0 + PointCodec.MIN_3, (int) x1 + PointCodec.MIN_3, (int) x2 + PointCodec.MIN_3);
+	}
+	
+	/**
+	 * Sorts the specified points along the Morton (Z-order) curve.
+	 *
+	 * @param points the points to sort
+	 *
+	 * @see #morton(Point)
+	 */
+	public static void sortByMorton(Point[] points)
+	{
+		long[] codes = new long[points.length];
+		for (int i = 0; i < points.length; i++)
+			codes[i] = morton(points[i]);
+		sortByCode(codes, points);
+	}
+	
+	/**
+	 * Sorts the specified list of points along the Morton (Z-order) curve.
+	 *
+	 * @param points the points to sort
+	 * @param <T>    the type of points
+	 *
+	 * @see #morton(Point)
+	 */
+	public static <T extends Point> void sortByMorton(List<T> points)
+	{
+		Point[] a = points.toArray(new Point[points.size()]);
+		sortByMorton(a);
+		setAll(points, a);
+	}
+	
+	/**
+	 * Sorts the specified points along the Hilbert curve.
+	 *
+	 * @param points the points to sort
+	 *
+	 * @see #hilbert(Point)
+	 */
+	public static void sortByHilbert(Point[] points)
+	{
+		long[] codes = new long[points.length];
+		for (int i = 0; i < points.length; i++)
+			codes[i] = hilbert(points[i]);
+		sortByCode(codes, points);
+	}
+	
+	/**
+	 * Sorts the specified list of points along the Hilbert curve.
+	 *
+	 * @param points the points to sort
+	 * @param <T>    the type of points
+	 *
+	 * @see #hilbert(Point)
+	 */
+	public static <T extends Point> void sortByHilbert(List<T> points)
+	{
+		Point[] a = points.toArray(new Point[points.size()]);
+		sortByHilbert(a);
+		setAll(points, a);
+	}
+	
+	/**
+	 * Sorts <code>codes</code> in unsigned order, and reorders <code>items</code> alongside them. This is a stable
+	 * radix sort, skipping every byte that is equal for all codes.
+	 *
+	 * @param codes the curve codes to sort by
+	 * @param items the items to reorder alongside their codes
+	 * @param <T>   the type of items
+	 *
+	 * @throws IllegalArgumentException if the arrays are not of equal length
+	 */
+	public static <T> void sortByCode(long[] codes, T[] items)
+	{
+		int n = codes.length;
+		if (items.length != n)
+			throw new IllegalArgumentException("Length mismatch: " + n + " codes, " + items.length + " items");
+		if (n < 2)
+			return;
+		
+		int[][] counts = new int[8][256];
+		for (long code : codes)
+			for (int b = 0; b < 8; b++)
+				counts[b][(int) (code >>> 8 * b) & 0xFF]++;
+		
+		long[] srcCodes = codes;
+		Object[] srcItems = items;
+		long[] dstCodes = new long[n];
+		Object[] dstItems = new Object[n];
+		for (int b = 0; b < 8; b++)
+		{
+			int shift = 8 * b;
+			int[] count = counts[b];
+			if (count[(int) (srcCodes[0] >>> shift) & 0xFF] == n)
+				continue;
+			
+			for (int i = 0, sum = 0; i < 256; i++)
+			{
+				int c = count[i];
+				count[i] = sum;
+				sum += c;
+			}
+			for (int i = 0; i < n; i++)
+			{
+				long code = srcCodes[i];
+				int j = count[(int) (code >>> shift) & 0xFF]++;
+				dstCodes[j] = code;
+				dstItems[j] = srcItems[i];
+			}
+			
+			long[] codeSwap = srcCodes;
+			srcCodes = dstCodes;
+			dstCodes = codeSwap;
+			Object[] itemSwap = srcItems;
+			srcItems = dstItems;
+			dstItems = itemSwap;
+		}
+		
+		if (srcCodes != codes)
+		{
+			System.arraycopy(srcCodes, 0, codes, 0, n);
+			System.arraycopy(srcItems, 0, items, 0, n);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> void setAll(List<T> list, Point[] a)
+	{
+		ListIterator<T> it = list.listIterator();
+		for (Point p : a)
+		{
+			it.next();
+			it.set((T) p);
+		}
+	}
+	
+	private static void checkRange3(int x, int y, int z)
+	{
+		if (x < PointCodec.MIN_3 || x > PointCodec.MAX_3 || y < PointCodec.MIN_3 || y > PointCodec.MAX_3 || z <
+				PointCodec.MIN_3 || z > PointCodec.MAX_3)
+			throw new IllegalArgumentException(String.format("(%s, %s, %s) out of range", x, y, z));
+	}
+	
+	// Spreads the 32 bits of v to the even bits of a long
+	private static long spread2(int v)
+	{
+		long x = v & 0xFFFFFFFFL;
+		x = (x | x << 16) & 0x0000FFFF0000FFFFL;
+		x = (x | x << 8) & 0x00FF00FF00FF00FFL;
+		x = (x | x << 4) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | x << 2) & 0x3333333333333333L;
+		return (x | x << 1) & 0x5555555555555555L;
+	}
+	
+	// Gathers the even bits of x into an int
+	private static int compact2(long x)
+	{
+		x &= 0x5555555555555555L;
+		x = (x | x >>> 1) & 0x3333333333333333L;
+		x = (x | x >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | x >>> 4) & 0x00FF00FF00FF00FFL;
+		x = (x | x >>> 8) & 0x0000FFFF0000FFFFL;
+		return (int) (x | x >>> 16);
+	}
+	
+	// Spreads the low 21 bits of v to every third bit of a long
+	private static long spread3(int v)
+	{
+		long x = v & 0x1FFFFFL;
+		x = (x | x << 32) & 0x001F00000000FFFFL;
+		x = (x | x << 16) & 0x001F0000FF0000FFL;
+		x = (x | x << 8) & 0x100F00F00F00F00FL;
+		x = (x | x << 4) & 0x10C30C30C30C30C3L;
+		return (x | x << 2) & 0x1249249249249249L;
+	}
+	
+	// Gathers every third bit of x into an int
+	private static int compact3(long x)
+	{
+		x &= 0x1249249249249249L;
+		x = (x | x >>> 2) & 0x10C30C30C30C30C3L;
+		x = (x | x >>> 4) & 0x100F00F00F00F00FL;
+		x = (x | x >>> 8) & 0x001F0000FF0000FFL;
+		x = (x | x >>> 16) & 0x001F00000000FFFFL;
+		return (int) ((x | x >>> 32) & 0x1FFFFFL);
 	}
 }
@@ -2,6 +2,7 @@ package com.github.rainang.tilelib.tile;
 
 import com.github.rainang.tilelib.geometry.MutablePoint;
 import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.PointCodec;
 import com.github.rainang.tilelib.geometry.PointD;
 
 import java.util.function.Consumer;
@@ -124,6 +125,11 @@ public class HexFinder extends PointFinder
 							 .sub(p2));
 	}
 	
+	public static int distance(long p1, long p2)
+	{
+		return PointCodec.hexDistance(p1, p2);
+	}
+	
 	public static MutablePoint rotate(MutablePoint p)
 	{
 		return p.set(-p.z(), -p.x(), -p.y());
@@ -134,6 +140,20 @@ public class HexFinder extends PointFinder
 		return p.set(-p.y(), -p.z(), -p.x());
 	}
 	
+	public static long rotate(long p)
+	{
+		int x = PointCodec.x(p);
+		int y = PointCodec.y(p);
+		return PointCodec.packHex(x + y, -x);
+	}
+	
+	public static long rotateCCW(long p)
+	{
+		int x = PointCodec.x(p);
+		int y = PointCodec.y(p);
+		return PointCodec.packHex(-y, x + y);
+	}
+	
 	public static MutablePoint toOffsetCol(int offset, Point p, MutablePoint dest)
 	{
 		int col = p.x();
@@ -3,6 +3,7 @@ package com.github.rainang.tilelib.tile;
 import com.github.rainang.tilelib.geometry.MutablePoint;
 import com.github.rainang.tilelib.geometry.MutablePointD;
 import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.PointCodec;
 import com.github.rainang.tilelib.geometry.PointD;
 import com.github.rainang.tilelib.geometry.Points;
 
@@ -55,6 +56,18 @@ public abstract class PointFinder
 											.scale(distance));
 	}
 	
+	public long lateralOf(long source, int direction)
+	{
+		Point p = lateral(direction);
+		return PointCodec.add(source, p.x(), p.y());
+	}
+	
+	public long lateralOf(long source, int direction, int distance)
+	{
+		Point p = lateral(direction);
+		return PointCodec.add(source, p.x() * distance, p.y() * distance);
+	}
+	
 	public Point diagonal(int direction)
 	{
 		return getTileShape().getDiagonalOffset(direction);
@@ -71,6 +84,18 @@ public abstract class PointFinder
 											 .scale(distance));
 	}
 	
+	public long diagonalOf(long source, int direction)
+	{
+		Point p = diagonal(direction);
+		return PointCodec.add(source, p.x(), p.y());
+	}
+	
+	public long diagonalOf(long source, int direction, int distance)
+	{
+		Point p = diagonal(direction);
+		return PointCodec.add(source, p.x() * distance, p.y() * distance);
+	}
+	
 	// SHAPES
 	
 	public abstract void line(Point p1, Point p2, Consumer<MutablePoint> consumer);
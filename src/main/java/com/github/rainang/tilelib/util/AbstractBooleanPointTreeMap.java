@@ -0,0 +1,80 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.function.BiConsumer;
+
+abstract class AbstractBooleanPointTreeMap extends AbstractPrimitivePointTreeMap
+{
+	AbstractBooleanPointTreeMap(AABB bounds, int dimensions)
+	{
+		super(bounds, dimensions);
+	}
+	
+	@Override
+	Object newValues(int capacity)
+	{
+		return new boolean[capacity];
+	}
+	
+	@Override
+	Object valueAt(int i)
+	{
+		return ((boolean[]) index.values)[i];
+	}
+	
+	boolean getAt(int ref, boolean missing)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return missing;
+		return ref >= 0 ? ((boolean[]) index.values)[ref] : ((boolean[]) index.pendingValues)[~ref];
+	}
+	
+	boolean putAt(int ref, boolean value)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return false;
+		if (ref >= 0)
+			((boolean[]) index.values)[ref] = value;
+		else
+			((boolean[]) index.pendingValues)[~ref] = value;
+		return index.added;
+	}
+	
+	// Query Operations
+	
+	public boolean get(Point key, boolean missing)
+	{
+		return getAt(find(key), missing);
+	}
+	
+	public boolean containsValue(boolean value)
+	{
+		index.flush();
+		boolean[] values = (boolean[]) index.values;
+		for (int i = 0; i < index.length; i++)
+			if (values[i] == value)
+				return true;
+		return false;
+	}
+	
+	public void query(AABB window, BiConsumer<? super Point, Boolean> action)
+	{
+		forEachIn(window, (key, i) -> action.accept(key, ((boolean[]) index.values)[i]));
+	}
+	
+	// Modification Operations
+	
+	public boolean put(Point key, boolean value)
+	{
+		return putAt(slot(key), value);
+	}
+	
+	// Iteration
+	
+	public void forEach(BiConsumer<? super Point, Boolean> action)
+	{
+		forEachSlot((key, i) -> action.accept(key, ((boolean[]) index.values)[i]));
+	}
+}
@@ -0,0 +1,652 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The base of the concurrent tree maps. Branches hold their slots in an {@link AtomicReferenceArray} and leaves are
+ * immutable, so every change is a single compare-and-set of a slot and lookups never block.
+ * <p>
+ * A branch is collapsed by freezing its slots one by one, after which its contents can no longer change, and then
+ * replacing it in its parent by its only leaf, by nothing or by an unfrozen copy. A writer meeting a frozen slot helps
+ * to finish the collapse before it retries from the root. The root is never frozen.</p>
+ */
+abstract class AbstractConcurrentPointTreeMap<E> extends AbstractMap<Point, E> implements ConcurrentMap<Point, E>
+{
+	// Marks a slot of a frozen branch that was empty
+	private static final Object FROZEN = new Object();
+	
+	private static final int MAX_DEPTH = 33;
+	
+	final Branch root;
+	
+	private final int dimensions;
+	
+	private final LongAdder size = new LongAdder();
+	
+	private Set<Entry<Point, E>> entrySet;
+	
+	AbstractConcurrentPointTreeMap(AABB bounds, int dimensions)
+	{
+		this.root = new Branch(bounds, 1 << dimensions);
+		this.dimensions = dimensions;
+	}
+	
+	abstract AABB childBounds(AABB bounds, int index);
+	
+	abstract int leafIndex(AABB bounds, Point key);
+	
+	public AABB bounds()
+	{
+		return root.bounds;
+	}
+	
+	public int dimensions()
+	{
+		return dimensions;
+	}
+	
+	private boolean inBounds(Object key)
+	{
+		return key instanceof Point && ((Point) key).dimensions() == dimensions && root.bounds.contains((Point) key);
+	}
+	
+	private static Object unfreeze(Object node)
+	{
+		return node == FROZEN ? null : node instanceof Frozen ? ((Frozen) node).node : node;
+	}
+	
+	private static boolean isFrozen(Object node)
+	{
+		return node == FROZEN || node instanceof Frozen;
+	}
+	
+	// Slots hold nothing but branches and the leaves of this map
+	@SuppressWarnings("unchecked")
+	private static <E> Leaf<E> leaf(Object node)
+	{
+		return (Leaf<E>) node;
+	}
+	
+	// Query Operations
+	
+	@Override
+	public int size()
+	{
+		return (int) Math.min(size.sum(), Integer.MAX_VALUE);
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return size.sum() == 0;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return get(key) != null;
+	}
+	
+	@Override
+	public E get(Object key)
+	{
+		Leaf<E> leaf = find(key);
+		return leaf == null ? null : leaf.getValue();
+	}
+	
+	private Leaf<E> find(Object key)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		Point p = (Point) key;
+		Branch branch = root;
+		
+		while (true)
+		{
+			Object node = unfreeze(branch.slots.get(leafIndex(branch.bounds, p)));
+			
+			if (node instanceof Branch)
+				branch = (Branch) node;
+			else
+				return node != null && leaf(node).getKey()
+												 .equals(p) ? leaf(node) : null;
+		}
+	}
+	
+	public void query(AABB window, Consumer<? super Entry<Point, E>> consumer)
+	{
+		query(root, AbstractPointTreeMap.project(window, dimensions), consumer);
+	}
+	
+	private void query(Branch branch, AABB window, Consumer<? super Entry<Point, E>> consumer)
+	{
+		if (!branch.bounds.intersects(window))
+			return;
+		
+		for (int i = 0; i < branch.slots.length(); i++)
+		{
+			Object node = unfreeze(branch.slots.get(i));
+			
+			if (node instanceof Branch)
+				query((Branch) node, window, consumer);
+			else if (node != null && window.contains(leaf(node).getKey()))
+				consumer.accept(leaf(node));
+		}
+	}
+	
+	// Modification Operations
+	
+	@Override
+	public E put(Point key, E value)
+	{
+		return insert(key, value, false);
+	}
+	
+	@Override
+	public E putIfAbsent(Point key, E value)
+	{
+		return insert(key, value, true);
+	}
+	
+	@Override
+	public E replace(Point key, E value)
+	{
+		Objects.requireNonNull(value);
+		Leaf<E> leaf = swap(key, null, value);
+		return leaf == null ? null : leaf.getValue();
+	}
+	
+	@Override
+	public boolean replace(Point key, E oldValue, E newValue)
+	{
+		Objects.requireNonNull(oldValue);
+		Objects.requireNonNull(newValue);
+		return swap(key, oldValue, newValue) != null;
+	}
+	
+	@Override
+	public E remove(Object key)
+	{
+		Leaf<E> leaf = delete(key, null);
+		return leaf == null ? null : leaf.getValue();
+	}
+	
+	@Override
+	public boolean remove(Object key, Object value)
+	{
+		return value != null && delete(key, value) != null;
+	}
+	
+	private E insert(Point key, E value, boolean onlyIfAbsent)
+	{
+		Objects.requireNonNull(value);
+		if (!inBounds(key))
+			return null;
+		
+		Leaf<E> leaf = new Leaf<>(key, value);
+		
+		retry:
+		while (true)
+		{
+			Branch parent = null;
+			int index = -1;
+			Branch branch = root;
+			
+			while (true)
+			{
+				int i = leafIndex(branch.bounds, key);
+				Object node = branch.slots.get(i);
+				
+				if (isFrozen(node))
+				{
+					help(parent, index, branch);
+					continue retry;
+				}
+				
+				if (node instanceof Branch)
+				{
+					parent = branch;
+					index = i;
+					branch = (Branch) node;
+					continue;
+				}
+				
+				if (node == null)
+				{
+					if (branch.slots.compareAndSet(i, null, leaf))
+					{
+						size.increment();
+						return null;
+					}
+					continue;
+				}
+				
+				Leaf<E> old = leaf(node);
+				
+				if (old.getKey()
+					   .equals(key))
+				{
+					if (onlyIfAbsent || branch.slots.compareAndSet(i, old, leaf))
+						return old.getValue();
+					continue;
+				}
+				
+				if (branch.slots.compareAndSet(i, old, split(childBounds(branch.bounds, i), old, leaf)))
+				{
+					size.increment();
+					return null;
+				}
+			}
+		}
+	}
+	
+	// Replaces the value of the key if it is mapped to the expected value, or to any value if none is expected
+	private Leaf<E> swap(Point key, E expected, E value)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		Leaf<E> leaf = new Leaf<>(key, value);
+		
+		retry:
+		while (true)
+		{
+			Branch parent = null;
+			int index = -1;
+			Branch branch = root;
+			
+			while (true)
+			{
+				int i = leafIndex(branch.bounds, key);
+				Object node = branch.slots.get(i);
+				
+				if (isFrozen(node))
+				{
+					help(parent, index, branch);
+					continue retry;
+				}
+				
+				if (node instanceof Branch)
+				{
+					parent = branch;
+					index = i;
+					branch = (Branch) node;
+					continue;
+				}
+				
+				Leaf<E> old = leaf(node);
+				
+				if (old == null || !old.getKey()
+									   .equals(key) || expected != null && !expected.equals(old.getValue()))
+					return null;
+				
+				if (branch.slots.compareAndSet(i, old, leaf))
+					return old;
+			}
+		}
+	}
+	
+	// Removes the key if it is mapped to the expected value, or to any value if none is expected
+	private Leaf<E> delete(Object key, Object expected)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		Point p = (Point) key;
+		
+		retry:
+		while (true)
+		{
+			Branch parent = null;
+			int index = -1;
+			Branch branch = root;
+			
+			while (true)
+			{
+				int i = leafIndex(branch.bounds, p);
+				Object node = branch.slots.get(i);
+				
+				if (isFrozen(node))
+				{
+					help(parent, index, branch);
+					continue retry;
+				}
+				
+				if (node instanceof Branch)
+				{
+					parent = branch;
+					index = i;
+					branch = (Branch) node;
+					continue;
+				}
+				
+				Leaf<E> old = leaf(node);
+				
+				if (old == null || !old.getKey()
+									   .equals(p) || expected != null && !expected.equals(old.getValue()))
+					return null;
+				
+				if (branch.slots.compareAndSet(i, old, null))
+				{
+					size.decrement();
+					compress(p);
+					return old;
+				}
+			}
+		}
+	}
+	
+	private Branch split(AABB bounds, Leaf<E> a, Leaf<E> b)
+	{
+		Branch branch = new Branch(bounds, 1 << dimensions);
+		int i = leafIndex(bounds, a.getKey());
+		int j = leafIndex(bounds, b.getKey());
+		
+		if (i == j)
+			branch.slots.set(i, split(childBounds(bounds, i), a, b));
+		else
+		{
+			branch.slots.set(i, a);
+			branch.slots.set(j, b);
+		}
+		return branch;
+	}
+	
+	// Collapses the branches on the path to the key from the bottom up, for as long as they hold a single leaf at most
+	private void compress(Point key)
+	{
+		Branch[] path = new Branch[MAX_DEPTH];
+		int[] slots = new int[MAX_DEPTH];
+		int depth = 0;
+		Branch branch = root;
+		
+		while (true)
+		{
+			int i = leafIndex(branch.bounds, key);
+			path[depth] = branch;
+			slots[depth++] = i;
+			
+			Object node = unfreeze(branch.slots.get(i));
+			if (!(node instanceof Branch))
+				break;
+			branch = (Branch) node;
+		}
+		
+		while (--depth > 0 && isCollapsible(path[depth]))
+			help(path[depth - 1], slots[depth - 1], path[depth]);
+	}
+	
+	private static boolean isCollapsible(Branch branch)
+	{
+		int leaves = 0;
+		for (int i = 0; i < branch.slots.length(); i++)
+		{
+			Object node = branch.slots.get(i);
+			if (isFrozen(node))
+				return true;
+			if (node instanceof Branch || node != null && ++leaves > 1)
+				return false;
+		}
+		return true;
+	}
+	
+	// Freezes the branch and replaces it in its parent, unless another thread already did
+	private void help(Branch parent, int index, Branch branch)
+	{
+		int leaves = 0;
+		Object last = null;
+		
+		for (int i = 0; i < branch.slots.length(); i++)
+		{
+			Object node = branch.slots.get(i);
+			while (!isFrozen(node))
+			{
+				if (branch.slots.compareAndSet(i, node, node == null ? FROZEN : new Frozen(node)))
+					break;
+				node = branch.slots.get(i);
+			}
+			
+			node = unfreeze(branch.slots.get(i));
+			if (node instanceof Branch)
+				leaves = Integer.MAX_VALUE;
+			else if (node != null && leaves < Integer.MAX_VALUE)
+				leaves++;
+			if (node != null)
+				last = node;
+		}
+		
+		Object replacement;
+		if (leaves <= 1)
+			replacement = last;
+		else
+		{
+			Branch copy = new Branch(branch.bounds, branch.slots.length());
+			for (int i = 0; i < branch.slots.length(); i++)
+				copy.slots.set(i, unfreeze(branch.slots.get(i)));
+			replacement = copy;
+		}
+		
+		parent.slots.compareAndSet(index, branch, replacement);
+	}
+	
+	// Statistics
+	
+	/**
+	 * Returns a snapshot of the structure of this map. It may be taken on any thread while others change the map, and
+	 * like the iterator it reads each slot once, so it is only weakly consistent with those changes. The snapshot is
+	 * not kept, as nothing tells when it went stale.
+	 *
+	 * @see PointTreeMap#statistics()
+	 */
+	public TreeStatistics statistics()
+	{
+		TreeStatistics.Builder builder = new TreeStatistics.Builder();
+		addStatistics(root, 0, builder);
+		return builder.heapBytes(TreeStatistics.objectBytes(5, 1))
+					  .build();
+	}
+	
+	private void addStatistics(Branch branch, int depth, TreeStatistics.Builder builder)
+	{
+		int slots = branch.slots.length();
+		long key = TreeStatistics.objectBytes(0, dimensions);
+		long leaf = TreeStatistics.objectBytes(2, 0) + key;
+		long bytes = 2 * TreeStatistics.objectBytes(2, 0) + 2 * key + TreeStatistics.objectBytes(1, 0) +
+				TreeStatistics.arrayBytes(slots, TreeStatistics.REFERENCE);
+		int used = 0;
+		
+		for (int i = 0; i < slots; i++)
+		{
+			Object node = unfreeze(branch.slots.get(i));
+			
+			if (node instanceof Branch)
+				addStatistics((Branch) node, depth + 1, builder);
+			else if (node != null)
+			{
+				builder.leaves(depth + 1, 1);
+				bytes += leaf;
+			}
+			if (node != null)
+				used++;
+		}
+		
+		builder.branch(depth, slots, used)
+			   .heapBytes(bytes);
+	}
+	
+	// Views
+	
+	@Override
+	public Set<Entry<Point, E>> entrySet()
+	{
+		Set<Entry<Point, E>> es = entrySet;
+		return es == null ? entrySet = new EntrySet() : es;
+	}
+	
+	final class EntrySet extends AbstractSet<Entry<Point, E>>
+	{
+		@Override
+		public Iterator<Entry<Point, E>> iterator()
+		{
+			return new LeafIterator();
+		}
+		
+		@Override
+		public int size()
+		{
+			return AbstractConcurrentPointTreeMap.this.size();
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			Leaf<E> leaf = find(e.getKey());
+			return leaf != null && leaf.getValue()
+									   .equals(e.getValue());
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return AbstractConcurrentPointTreeMap.this.remove(e.getKey(), e.getValue());
+		}
+	}
+	
+	// Weakly consistent, as it reads each slot once in order and sees whatever the slot holds at that time
+	final class LeafIterator implements Iterator<Entry<Point, E>>
+	{
+		private Branch[] branches = new Branch[8];
+		
+		private int[] slots = new int[8];
+		
+		private int depth;
+		
+		private Leaf<E> next;
+		
+		private Leaf<E> lastReturned;
+		
+		LeafIterator()
+		{
+			push(root);
+			advance();
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+		
+		@Override
+		public Entry<Point, E> next()
+		{
+			if (next == null)
+				throw new NoSuchElementException();
+			lastReturned = next;
+			advance();
+			return lastReturned;
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			AbstractConcurrentPointTreeMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+		}
+		
+		private void advance()
+		{
+			next = null;
+			
+			while (depth > 0)
+			{
+				Branch branch = branches[depth - 1];
+				int i = slots[depth - 1];
+				
+				if (i == branch.slots.length())
+				{
+					depth--;
+					continue;
+				}
+				
+				slots[depth - 1] = i + 1;
+				Object node = unfreeze(branch.slots.get(i));
+				
+				if (node instanceof Branch)
+					push((Branch) node);
+				else if (node != null)
+				{
+					next = leaf(node);
+					return;
+				}
+			}
+		}
+		
+		private void push(Branch branch)
+		{
+			if (depth == branches.length)
+			{
+				branches = Arrays.copyOf(branches, depth * 2);
+				slots = Arrays.copyOf(slots, depth * 2);
+			}
+			branches[depth] = branch;
+			slots[depth++] = 0;
+		}
+	}
+	
+	static final class Branch
+	{
+		final AABB bounds;
+		
+		final AtomicReferenceArray<Object> slots;
+		
+		Branch(AABB bounds, int slots)
+		{
+			this.bounds = bounds;
+			this.slots = new AtomicReferenceArray<>(slots);
+		}
+	}
+	
+	// Wraps the leaf or branch in a slot of a frozen branch
+	static final class Frozen
+	{
+		final Object node;
+		
+		Frozen(Object node)
+		{
+			this.node = node;
+		}
+	}
+	
+	static final class Leaf<E> extends SimpleImmutableEntry<Point, E>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		Leaf(Point key, E value)
+		{
+			super(key, value);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.function.ObjDoubleConsumer;
+
+abstract class AbstractDoublePointTreeMap extends AbstractPrimitivePointTreeMap
+{
+	AbstractDoublePointTreeMap(AABB bounds, int dimensions)
+	{
+		super(bounds, dimensions);
+	}
+	
+	@Override
+	Object newValues(int capacity)
+	{
+		return new double[capacity];
+	}
+	
+	@Override
+	Object valueAt(int i)
+	{
+		return ((double[]) index.values)[i];
+	}
+	
+	double getAt(int ref, double missing)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return missing;
+		return ref >= 0 ? ((double[]) index.values)[ref] : ((double[]) index.pendingValues)[~ref];
+	}
+	
+	boolean putAt(int ref, double value)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return false;
+		if (ref >= 0)
+			((double[]) index.values)[ref] = value;
+		else
+			((double[]) index.pendingValues)[~ref] = value;
+		return index.added;
+	}
+	
+	// Query Operations
+	
+	public double get(Point key, double missing)
+	{
+		return getAt(find(key), missing);
+	}
+	
+	public boolean containsValue(double value)
+	{
+		index.flush();
+		double[] values = (double[]) index.values;
+		for (int i = 0; i < index.length; i++)
+			if (Double.doubleToLongBits(values[i]) == Double.doubleToLongBits(value))
+				return true;
+		return false;
+	}
+	
+	public void query(AABB window, ObjDoubleConsumer<? super Point> action)
+	{
+		forEachIn(window, (key, i) -> action.accept(key, ((double[]) index.values)[i]));
+	}
+	
+	// Modification Operations
+	
+	public boolean put(Point key, double value)
+	{
+		return putAt(slot(key), value);
+	}
+	
+	// Iteration
+	
+	public void forEach(ObjDoubleConsumer<? super Point> action)
+	{
+		forEachSlot((key, i) -> action.accept(key, ((double[]) index.values)[i]));
+	}
+}
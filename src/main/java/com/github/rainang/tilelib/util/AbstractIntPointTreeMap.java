@@ -0,0 +1,80 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.function.ObjIntConsumer;
+
+abstract class AbstractIntPointTreeMap extends AbstractPrimitivePointTreeMap
+{
+	AbstractIntPointTreeMap(AABB bounds, int dimensions)
+	{
+		super(bounds, dimensions);
+	}
+	
+	@Override
+	Object newValues(int capacity)
+	{
+		return new int[capacity];
+	}
+	
+	@Override
+	Object valueAt(int i)
+	{
+		return ((int[]) index.values)[i];
+	}
+	
+	int getAt(int ref, int missing)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return missing;
+		return ref >= 0 ? ((int[]) index.values)[ref] : ((int[]) index.pendingValues)[~ref];
+	}
+	
+	boolean putAt(int ref, int value)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return false;
+		if (ref >= 0)
+			((int[]) index.values)[ref] = value;
+		else
+			((int[]) index.pendingValues)[~ref] = value;
+		return index.added;
+	}
+	
+	// Query Operations
+	
+	public int get(Point key, int missing)
+	{
+		return getAt(find(key), missing);
+	}
+	
+	public boolean containsValue(int value)
+	{
+		index.flush();
+		int[] values = (int[]) index.values;
+		for (int i = 0; i < index.length; i++)
+			if (values[i] == value)
+				return true;
+		return false;
+	}
+	
+	public void query(AABB window, ObjIntConsumer<? super Point> action)
+	{
+		forEachIn(window, (key, i) -> action.accept(key, ((int[]) index.values)[i]));
+	}
+	
+	// Modification Operations
+	
+	public boolean put(Point key, int value)
+	{
+		return putAt(slot(key), value);
+	}
+	
+	// Iteration
+	
+	public void forEach(ObjIntConsumer<? super Point> action)
+	{
+		forEachSlot((key, i) -> action.accept(key, ((int[]) index.values)[i]));
+	}
+}
@@ -0,0 +1,705 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.DistanceMetric;
+import com.github.rainang.tilelib.geometry.MutableAABB;
+import com.github.rainang.tilelib.geometry.MutableAABB3;
+import com.github.rainang.tilelib.geometry.MutablePoint;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+abstract class AbstractLinearPointTreeMap<E> extends AbstractMap<Point, E> implements PointTreeMap<E>
+{
+	final AABB bounds;
+	
+	final MortonIndex index;
+	
+	private Set<Entry<Point, E>> entrySet;
+	
+	private TreeStatistics statistics;
+	
+	private int statisticsModCount;
+	
+	AbstractLinearPointTreeMap(AABB bounds, int dimensions)
+	{
+		this.bounds = bounds;
+		this.index = new MortonIndex(bounds, dimensions)
+		{
+			@Override
+			Object newValues(int capacity)
+			{
+				return new Object[capacity];
+			}
+			
+			@Override
+			void clearValue(Object values, int i)
+			{
+				((Object[]) values)[i] = null;
+			}
+		};
+	}
+	
+	private boolean inBounds(Object key)
+	{
+		return key instanceof Point && ((Point) key).dimensions() == dimensions() && bounds.contains((Point) key);
+	}
+	
+	private long code(Point key)
+	{
+		return dimensions() == 2 ? index.code(key.x(), key.y()) : index.code(key.x(), key.y(), key.z());
+	}
+	
+	private int find(Object key)
+	{
+		return inBounds(key) ? index.find(code((Point) key)) : MortonIndex.ABSENT;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private E value(int ref)
+	{
+		return (E) (ref >= 0 ? ((Object[]) index.values)[ref] : ((Object[]) index.pendingValues)[~ref]);
+	}
+	
+	private void setValue(int ref, E value)
+	{
+		if (ref >= 0)
+			((Object[]) index.values)[ref] = value;
+		else
+			((Object[]) index.pendingValues)[~ref] = value;
+	}
+	
+	private Leaf<E> leafAt(int i)
+	{
+		MutablePoint p = index.decode(index.codes[i], index.newPoint());
+		return new Leaf<>(this, dimensions() == 2 ? Points.at(p.x(), p.y()) : Points.at(p.x(), p.y(), p.z()), i);
+	}
+	
+	// Query Operations
+	
+	@Override
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	@Override
+	public int size()
+	{
+		return index.size();
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return index.size() == 0;
+	}
+	
+	@Override
+	public boolean isRoot()
+	{
+		return true;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return find(key) != MortonIndex.ABSENT;
+	}
+	
+	@Override
+	public boolean containsValue(Object value)
+	{
+		index.flush();
+		Object[] values = (Object[]) index.values;
+		for (int i = 0; i < index.length; i++)
+			if (Objects.equals(values[i], value))
+				return true;
+		return false;
+	}
+	
+	@Override
+	public E get(Object key)
+	{
+		int ref = find(key);
+		return ref == MortonIndex.ABSENT ? null : value(ref);
+	}
+	
+	@Override
+	public PointTreeMap.Leaf<E> getLeaf(Point key)
+	{
+		int ref = find(key);
+		return ref == MortonIndex.ABSENT ? null : new Leaf<>(this, key, ref);
+	}
+	
+	@Override
+	public PointTreeMap<E> getBranch(Point key)
+	{
+		return containsKey(key) ? this : null;
+	}
+	
+	@Override
+	public AbstractPointTreeMap<E> getParent()
+	{
+		return null;
+	}
+	
+	@Override
+	public PointTreeMap.Leaf<E> select(int index)
+	{
+		this.index.flush();
+		if (index < 0 || index >= this.index.length)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.index.length);
+		return leafAt(index);
+	}
+	
+	@Override
+	public int rank(Point key)
+	{
+		if (!inBounds(key))
+			return -1;
+		index.flush();
+		int i = index.find(code(key));
+		return i == MortonIndex.ABSENT ? -1 : i;
+	}
+	
+	@Override
+	public void query(AABB window, Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		AABB w = AbstractPointTreeMap.project(window, dimensions());
+		index.flush();
+		MutablePoint p = index.newPoint();
+		index.ranges(w, (from, to, inside) ->
+		{
+			for (int i = from; i < to; i++)
+				if (inside || w.contains(index.decode(index.codes[i], p)))
+					consumer.accept(leafAt(i));
+		});
+	}
+	
+	@Override
+	public int count(AABB window)
+	{
+		AABB w = AbstractPointTreeMap.project(window, dimensions());
+		index.flush();
+		MutablePoint p = index.newPoint();
+		int[] count = new int[1];
+		index.ranges(w, (from, to, inside) ->
+		{
+			if (inside)
+				count[0] += to - from;
+			else
+				for (int i = from; i < to; i++)
+					if (w.contains(index.decode(index.codes[i], p)))
+						count[0]++;
+		});
+		return count[0];
+	}
+	
+	@Override
+	public NeighbourBuffer<E> nearest(Point p, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		return nearest(p, Double.POSITIVE_INFINITY, metric, dest);
+	}
+	
+	@Override
+	public NeighbourBuffer<E> nearest(Point p, double maxDistance, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		dest.reset(maxDistance);
+		index.flush();
+		if (index.length > 0 && metric.distance(p, bounds) <= maxDistance)
+		{
+			AABB box = dimensions() == 2 ? new MutableAABB() : new MutableAABB3();
+			nearest(p, metric, dest, box, index.newPoint(), 0, index.length, 0, index.levels, 0, 0, 0);
+		}
+		return dest;
+	}
+	
+	private void nearest(Point p, DistanceMetric metric, NeighbourBuffer<E> dest, AABB box, MutablePoint key, int
+			from, int to, long base, int level, int x, int y, int z)
+	{
+		if (level == 0 || to - from <= 16)
+		{
+			for (int i = from; i < to; i++)
+			{
+				double d = metric.distance(p, index.decode(index.codes[i], key));
+				if (d <= dest.bound())
+					dest.offer(leafAt(i), d);
+			}
+			return;
+		}
+		
+		level--;
+		int shift = index.dimensions * level;
+		int half = 1 << level;
+		int first = leafIndex(p, x + half, y + half, z + half);
+		
+		for (int n = 0; n < 1 << index.dimensions; n++)
+		{
+			int c = n == 0 ? first : n == first ? 0 : n;
+			long lo = base + ((long) c << shift);
+			int i = index.lowerBound(lo, from, to);
+			int j = index.lowerBound(lo + (1L << shift), i, to);
+			
+			if (i == j)
+				continue;
+			
+			int cx = (c & 1) == 0 ? x : x + half;
+			int cy = (c & 2) == 0 ? y : y + half;
+			int cz = (c & 4) == 0 ? z : z + half;
+			
+			if (box instanceof MutableAABB)
+				((MutableAABB) box).set(bounds.x() + cx, bounds.y() + cy, half, half);
+			else
+				((MutableAABB3) box).set(bounds.x() + cx, bounds.y() + cy, ((AABB3) bounds).z() + cz, half, half,
+						half);
+			
+			if (metric.distance(p, box) <= dest.bound())
+				nearest(p, metric, dest, box, key, i, j, lo, level, cx, cy, cz);
+		}
+	}
+	
+	// Returns the child of a cell that holds the point, given the relative center of the cell
+	private int leafIndex(Point p, int cx, int cy, int cz)
+	{
+		int i = (long) p.x() - bounds.x() < cx ? 0 : 1;
+		i |= (long) p.y() - bounds.y() < cy ? 0 : 2;
+		if (dimensions() == 3)
+			i |= (long) p.z() - ((AABB3) bounds).z() < cz ? 0 : 4;
+		return i;
+	}
+	
+	@Override
+	public void withinRadius(Point p, double radius, DistanceMetric metric, Consumer<? super PointTreeMap.Leaf<E>>
+			consumer)
+	{
+		if (radius < 0)
+			return;
+		
+		// Every metric is at least the Chebyshev distance, ignoring z for hex distances
+		long r = (long) Math.min(Math.floor(radius), Integer.MAX_VALUE);
+		int minX = (int) Math.max((long) p.x() - r, bounds.x());
+		int maxX = (int) Math.min((long) p.x() + r, bounds.maxX());
+		int minY = (int) Math.max((long) p.y() - r, bounds.y());
+		int maxY = (int) Math.min((long) p.y() + r, bounds.maxY());
+		if (minX > maxX || minY > maxY)
+			return;
+		
+		AABB window;
+		if (dimensions() == 3 && metric != DistanceMetric.HEX)
+		{
+			AABB3 bounds = (AABB3) this.bounds;
+			int minZ = (int) Math.max((long) p.z() - r, bounds.z());
+			int maxZ = (int) Math.min((long) p.z() + r, bounds.maxZ());
+			if (minZ > maxZ)
+				return;
+			window = new MutableAABB3(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+		}
+		else
+			window = new MutableAABB(minX, minY, maxX - minX + 1, maxY - minY + 1);
+		
+		query(window, l ->
+		{
+			if (metric.distance(p, l.getKey()) <= radius)
+				consumer.accept(l);
+		});
+	}
+	
+	@Override
+	public int leafIndex(Point key)
+	{
+		int i = key.x() < bounds.centerX() ? 0 : 1;
+		i |= key.y() < bounds.centerY() ? 0 : 2;
+		if (dimensions() == 3)
+			i |= key.z() < ((AABB3) bounds).centerZ() ? 0 : 4;
+		return i;
+	}
+	
+	@Override
+	public int branchIndex()
+	{
+		return -1;
+	}
+	
+	// Modification Operations
+	
+	@Override
+	public E put(Point key, E value)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		int ref = index.slot(code(key));
+		E oldValue = index.added ? null : value(ref);
+		setValue(ref, value);
+		return oldValue;
+	}
+	
+	@Override
+	public E remove(Object key)
+	{
+		int ref = find(key);
+		if (ref == MortonIndex.ABSENT)
+			return null;
+		
+		E oldValue = value(ref);
+		index.removeAt(ref);
+		return oldValue;
+	}
+	
+	// Bulk Operations
+	
+	@Override
+	public void putAll(Map<? extends Point, ? extends E> m)
+	{
+		if (m.size() * 8 < size())
+		{
+			m.forEach(this::put);
+			return;
+		}
+		
+		long[] codes = new long[m.size()];
+		Object[] values = new Object[codes.length];
+		int n = 0;
+		
+		for (Entry<? extends Point, ? extends E> e : m.entrySet())
+			if (inBounds(e.getKey()))
+			{
+				codes[n] = code(e.getKey());
+				values[n++] = e.getValue();
+			}
+		
+		if (n < codes.length)
+		{
+			codes = Arrays.copyOf(codes, n);
+			values = Arrays.copyOf(values, n);
+		}
+		
+		Points.sortByCode(codes, values);
+		
+		// Keeps the last of equal keys, as the sort is stable
+		int size = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (size > 0 && codes[size - 1] == codes[i])
+				size--;
+			codes[size] = codes[i];
+			values[size++] = values[i];
+		}
+		
+		index.merge(codes, values, size);
+	}
+	
+	@Override
+	public void clear()
+	{
+		index.clear();
+	}
+	
+	@Override
+	public void forEachNode(Consumer<? super Node<E>> consumer)
+	{
+		forEachLeaf(consumer);
+	}
+	
+	@Override
+	public void forEachLeaf(Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		index.flush();
+		for (int i = 0; i < index.length; i++)
+			consumer.accept(leafAt(i));
+	}
+	
+	@Override
+	public void forEachBranch(Consumer<? super PointTreeMap<E>> consumer) {}
+	
+	@Override
+	public void forEachLeafRecursive(Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		forEachLeaf(consumer);
+	}
+	
+	@Override
+	public void forEachBranchRecursive(Consumer<? super PointTreeMap<E>> consumer) {}
+	
+	// Statistics
+	
+	// The map is a single branch whose slots are the slots of the index, keys are decoded and take no memory
+	@Override
+	public TreeStatistics statistics()
+	{
+		TreeStatistics s = statistics;
+		if (s == null || statisticsModCount != index.modCount)
+		{
+			TreeStatistics.Builder builder = new TreeStatistics.Builder();
+			builder.branch(0, index.length + index.pendingCodes.length, index.size());
+			builder.leaves(1, index.size());
+			builder.heapBytes(TreeStatistics.objectBytes(4, 1) + TreeStatistics.objectBytes(6, 7));
+			builder.heapBytes(index.arrayBytes(TreeStatistics.REFERENCE));
+			statistics = s = builder.build();
+			statisticsModCount = index.modCount;
+		}
+		return s;
+	}
+	
+	// Views
+	
+	@Override
+	public Set<Entry<Point, E>> entrySet()
+	{
+		Set<Entry<Point, E>> es = entrySet;
+		return es == null ? entrySet = new EntrySet() : es;
+	}
+	
+	@Override
+	public Iterator<PointTreeMap.Leaf<E>> leafIterator()
+	{
+		index.flush();
+		return new Iterator<PointTreeMap.Leaf<E>>()
+		{
+			private int cursor;
+			
+			private int lastReturned = -1;
+			
+			private int expectedModCount = index.modCount;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return cursor < index.length;
+			}
+			
+			@Override
+			public PointTreeMap.Leaf<E> next()
+			{
+				if (index.modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				if (cursor >= index.length)
+					throw new NoSuchElementException();
+				return leafAt(lastReturned = cursor++);
+			}
+			
+			// Removed slots stay in place until the next flush, so the cursor remains valid
+			@Override
+			public void remove()
+			{
+				if (lastReturned < 0)
+					throw new IllegalStateException();
+				if (index.modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				
+				index.removeAt(lastReturned);
+				lastReturned = -1;
+				expectedModCount = index.modCount;
+			}
+		};
+	}
+	
+	@Override
+	public Spliterator<PointTreeMap.Leaf<E>> leafSpliterator()
+	{
+		index.flush();
+		return new IndexSpliterator(0, index.length, index.modCount);
+	}
+	
+	@Override
+	public Stream<PointTreeMap.Leaf<E>> leafStream()
+	{
+		return StreamSupport.stream(leafSpliterator(), false);
+	}
+	
+	final class EntrySet extends AbstractSet<Entry<Point, E>>
+	{
+		@Override
+		public Iterator<Entry<Point, E>> iterator()
+		{
+			Iterator<PointTreeMap.Leaf<E>> it = leafIterator();
+			return new Iterator<Entry<Point, E>>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return it.hasNext();
+				}
+				
+				@Override
+				public Entry<Point, E> next()
+				{
+					return it.next();
+				}
+				
+				@Override
+				public void remove()
+				{
+					it.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return AbstractLinearPointTreeMap.this.size();
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			int ref = find(e.getKey());
+			return ref != MortonIndex.ABSENT && Objects.equals(value(ref), e.getValue());
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!contains(o))
+				return false;
+			AbstractLinearPointTreeMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+		
+		@Override
+		public void clear()
+		{
+			AbstractLinearPointTreeMap.this.clear();
+		}
+	}
+	
+	final class IndexSpliterator implements Spliterator<PointTreeMap.Leaf<E>>
+	{
+		private int from;
+		
+		private final int to;
+		
+		private final int expectedModCount;
+		
+		IndexSpliterator(int from, int to, int expectedModCount)
+		{
+			this.from = from;
+			this.to = to;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super PointTreeMap.Leaf<E>> action)
+		{
+			if (index.modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (from >= to)
+				return false;
+			action.accept(leafAt(from++));
+			return true;
+		}
+		
+		@Override
+		public Spliterator<PointTreeMap.Leaf<E>> trySplit()
+		{
+			int mid = (from + to) >>> 1;
+			return mid <= from ? null : new IndexSpliterator(from, from = mid, expectedModCount);
+		}
+		
+		@Override
+		public long estimateSize()
+		{
+			return to - from;
+		}
+		
+		@Override
+		public int characteristics()
+		{
+			return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+		}
+	}
+	
+	// Entries look their slot up again once the index has changed
+	static final class Leaf<E> implements PointTreeMap.Leaf<E>
+	{
+		private final AbstractLinearPointTreeMap<E> map;
+		
+		private final Point key;
+		
+		private int ref;
+		
+		private int expectedModCount;
+		
+		Leaf(AbstractLinearPointTreeMap<E> map, Point key, int ref)
+		{
+			this.map = map;
+			this.key = key;
+			this.ref = ref;
+			this.expectedModCount = map.index.modCount;
+		}
+		
+		private int ref()
+		{
+			if (expectedModCount != map.index.modCount)
+			{
+				ref = map.find(key);
+				expectedModCount = map.index.modCount;
+			}
+			return ref;
+		}
+		
+		@Override
+		public Point getKey()
+		{
+			return key;
+		}
+		
+		@Override
+		public E getValue()
+		{
+			int ref = ref();
+			return ref == MortonIndex.ABSENT ? null : map.value(ref);
+		}
+		
+		@Override
+		public E setValue(E value)
+		{
+			int ref = ref();
+			if (ref == MortonIndex.ABSENT)
+				throw new IllegalStateException("Entry was removed");
+			E oldValue = map.value(ref);
+			map.setValue(ref, value);
+			return oldValue;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return key.hashCode() ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+		
+		@Override
+		public String toString()
+		{
+			return String.format("[%s=%s]", key, getValue());
+		}
+	}
+}
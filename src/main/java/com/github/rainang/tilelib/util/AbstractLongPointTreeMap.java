@@ -0,0 +1,80 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.function.ObjLongConsumer;
+
+abstract class AbstractLongPointTreeMap extends AbstractPrimitivePointTreeMap
+{
+	AbstractLongPointTreeMap(AABB bounds, int dimensions)
+	{
+		super(bounds, dimensions);
+	}
+	
+	@Override
+	Object newValues(int capacity)
+	{
+		return new long[capacity];
+	}
+	
+	@Override
+	Object valueAt(int i)
+	{
+		return ((long[]) index.values)[i];
+	}
+	
+	long getAt(int ref, long missing)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return missing;
+		return ref >= 0 ? ((long[]) index.values)[ref] : ((long[]) index.pendingValues)[~ref];
+	}
+	
+	boolean putAt(int ref, long value)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return false;
+		if (ref >= 0)
+			((long[]) index.values)[ref] = value;
+		else
+			((long[]) index.pendingValues)[~ref] = value;
+		return index.added;
+	}
+	
+	// Query Operations
+	
+	public long get(Point key, long missing)
+	{
+		return getAt(find(key), missing);
+	}
+	
+	public boolean containsValue(long value)
+	{
+		index.flush();
+		long[] values = (long[]) index.values;
+		for (int i = 0; i < index.length; i++)
+			if (values[i] == value)
+				return true;
+		return false;
+	}
+	
+	public void query(AABB window, ObjLongConsumer<? super Point> action)
+	{
+		forEachIn(window, (key, i) -> action.accept(key, ((long[]) index.values)[i]));
+	}
+	
+	// Modification Operations
+	
+	public boolean put(Point key, long value)
+	{
+		return putAt(slot(key), value);
+	}
+	
+	// Iteration
+	
+	public void forEach(ObjLongConsumer<? super Point> action)
+	{
+		forEachSlot((key, i) -> action.accept(key, ((long[]) index.values)[i]));
+	}
+}
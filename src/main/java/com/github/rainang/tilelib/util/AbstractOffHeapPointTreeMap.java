@@ -0,0 +1,1097 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.DistanceMetric;
+import com.github.rainang.tilelib.geometry.MutableAABB;
+import com.github.rainang.tilelib.geometry.MutableAABB3;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The base of the off-heap tree maps. Branches and leaves are records in two direct buffers, addressed by their index,
+ * so the heap holds a constant number of objects however large the map grows.
+ * <p>
+ * A branch record holds one <code>int</code> per slot followed by its size. A slot is <code>0</code> when empty,
+ * <code>b</code> for the branch at index <code>b</code>, and <code>~l</code> for the leaf at index <code>l</code>. The
+ * root is the branch at index <code>0</code>. A leaf record holds the coordinates of its key followed by its value, as
+ * written by the {@link ValueCodec}. Records of removed branches and leaves are chained into free lists and reused.</p>
+ */
+abstract class AbstractOffHeapPointTreeMap<E> extends AbstractMap<Point, E> implements PointTreeMap<E>
+{
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private static final int MAX_DEPTH = 33;
+	
+	final AABB bounds;
+	
+	final ValueCodec<E> codec;
+	
+	private final int dimensions;
+	
+	private final int slots;
+	
+	private final int branchStride;
+	
+	private final int leafStride;
+	
+	ByteBuffer branches;
+	
+	ByteBuffer leaves;
+	
+	int branchCount;
+	
+	int leafCount;
+	
+	int freeBranch = -1;
+	
+	int freeLeaf = -1;
+	
+	int modCount;
+	
+	private final int[] path = new int[MAX_DEPTH];
+	
+	private final int[] pathSlots = new int[MAX_DEPTH];
+	
+	private Set<Entry<Point, E>> entrySet;
+	
+	private TreeStatistics statistics;
+	
+	private int statisticsModCount;
+	
+	AbstractOffHeapPointTreeMap(AABB bounds, int dimensions, ValueCodec<E> codec)
+	{
+		this.bounds = bounds;
+		this.codec = codec;
+		this.dimensions = dimensions;
+		this.slots = 1 << dimensions;
+		this.branchStride = (slots + 1) * Integer.BYTES;
+		this.leafStride = dimensions * Integer.BYTES + codec.size();
+		reset();
+	}
+	
+	AbstractOffHeapPointTreeMap(AABB bounds, int dimensions, ValueCodec<E> codec, ByteBuffer branches, ByteBuffer
+			leaves)
+	{
+		this.bounds = bounds;
+		this.codec = codec;
+		this.dimensions = dimensions;
+		this.slots = 1 << dimensions;
+		this.branchStride = (slots + 1) * Integer.BYTES;
+		this.leafStride = dimensions * Integer.BYTES + codec.size();
+		this.branches = branches;
+		this.leaves = leaves;
+		this.branchCount = branches.capacity() / branchStride;
+		this.leafCount = leaves.capacity() / leafStride;
+	}
+	
+	private void reset()
+	{
+		branches = allocate(INITIAL_CAPACITY * branchStride);
+		leaves = allocate(INITIAL_CAPACITY * leafStride);
+		branchCount = 1;
+		leafCount = 0;
+		freeBranch = -1;
+		freeLeaf = -1;
+	}
+	
+	private static ByteBuffer allocate(int capacity)
+	{
+		return ByteBuffer.allocateDirect(capacity)
+						 .order(ByteOrder.nativeOrder());
+	}
+	
+	private static ByteBuffer grow(ByteBuffer buffer, int stride)
+	{
+		long capacity = Math.min(buffer.capacity() * 2L, Integer.MAX_VALUE / stride * stride);
+		if (capacity <= buffer.capacity())
+			throw new IllegalStateException("Off-heap storage is full");
+		ByteBuffer copy = allocate((int) capacity);
+		buffer.clear();
+		copy.put(buffer);
+		copy.clear();
+		return copy;
+	}
+	
+	void copyFrom(AbstractOffHeapPointTreeMap<E> src)
+	{
+		branches = allocate(src.branches.capacity());
+		leaves = allocate(src.leaves.capacity());
+		ByteBuffer b = src.branches.duplicate();
+		ByteBuffer l = src.leaves.duplicate();
+		b.clear();
+		l.clear();
+		branches.put(b);
+		leaves.put(l);
+		branches.clear();
+		leaves.clear();
+		branchCount = src.branchCount;
+		leafCount = src.leafCount;
+		freeBranch = src.freeBranch;
+		freeLeaf = src.freeLeaf;
+	}
+	
+	// Records
+	
+	private int slot(int branch, int i)
+	{
+		return branches.getInt(branch * branchStride + i * Integer.BYTES);
+	}
+	
+	private void setSlot(int branch, int i, int node)
+	{
+		branches.putInt(branch * branchStride + i * Integer.BYTES, node);
+	}
+	
+	private int count(int branch)
+	{
+		return branches.getInt(branch * branchStride + slots * Integer.BYTES);
+	}
+	
+	private void setCount(int branch, int count)
+	{
+		branches.putInt(branch * branchStride + slots * Integer.BYTES, count);
+	}
+	
+	private int newBranch()
+	{
+		int branch = freeBranch;
+		if (branch >= 0)
+			freeBranch = slot(branch, 0);
+		else
+		{
+			if ((branchCount + 1) * branchStride > branches.capacity())
+				branches = grow(branches, branchStride);
+			branch = branchCount++;
+		}
+		
+		for (int i = 0; i <= slots; i++)
+			setSlot(branch, i, 0);
+		return branch;
+	}
+	
+	private void freeBranch(int branch)
+	{
+		setSlot(branch, 0, freeBranch);
+		freeBranch = branch;
+	}
+	
+	private int newLeaf(Point key, E value)
+	{
+		int leaf = freeLeaf;
+		if (leaf >= 0)
+			freeLeaf = leaves.getInt(leaf * leafStride);
+		else
+		{
+			if ((leafCount + 1) * leafStride > leaves.capacity())
+				leaves = grow(leaves, leafStride);
+			leaf = leafCount++;
+		}
+		
+		int offset = leaf * leafStride;
+		leaves.putInt(offset, key.x());
+		leaves.putInt(offset + Integer.BYTES, key.y());
+		if (dimensions == 3)
+			leaves.putInt(offset + 2 * Integer.BYTES, key.z());
+		codec.write(leaves, offset + dimensions * Integer.BYTES, value);
+		return leaf;
+	}
+	
+	private void freeLeaf(int leaf)
+	{
+		leaves.putInt(leaf * leafStride, freeLeaf);
+		freeLeaf = leaf;
+	}
+	
+	private int keyX(int leaf)
+	{
+		return leaves.getInt(leaf * leafStride);
+	}
+	
+	private int keyY(int leaf)
+	{
+		return leaves.getInt(leaf * leafStride + Integer.BYTES);
+	}
+	
+	private int keyZ(int leaf)
+	{
+		return leaves.getInt(leaf * leafStride + 2 * Integer.BYTES);
+	}
+	
+	private Point key(int leaf)
+	{
+		return dimensions == 2 ? Points.at(keyX(leaf), keyY(leaf)) : Points.at(keyX(leaf), keyY(leaf), keyZ(leaf));
+	}
+	
+	private boolean hasKey(int leaf, Point key)
+	{
+		return keyX(leaf) == key.x() && keyY(leaf) == key.y() && (dimensions == 2 || keyZ(leaf) == key.z());
+	}
+	
+	private E value(int leaf)
+	{
+		return codec.read(leaves, leaf * leafStride + dimensions * Integer.BYTES);
+	}
+	
+	private void setValue(int leaf, E value)
+	{
+		codec.write(leaves, leaf * leafStride + dimensions * Integer.BYTES, value);
+	}
+	
+	private Leaf<E> leafAt(int leaf)
+	{
+		return new Leaf<>(this, key(leaf), leaf);
+	}
+	
+	// Geometry
+	
+	private boolean inBounds(Object key)
+	{
+		return key instanceof Point && ((Point) key).dimensions() == dimensions && bounds.contains((Point) key);
+	}
+	
+	private int z()
+	{
+		return dimensions == 3 ? ((AABB3) bounds).z() : 0;
+	}
+	
+	// Returns the slot of the point in the branch with the minimum corner and half width
+	private int index(Point p, int x, int y, int z, int half)
+	{
+		int i = p.x() < x + half ? 0 : 1;
+		i |= p.y() < y + half ? 0 : 2;
+		if (dimensions == 3)
+			i |= p.z() < z + half ? 0 : 4;
+		return i;
+	}
+	
+	private int index(int leaf, int x, int y, int z, int half)
+	{
+		int i = keyX(leaf) < x + half ? 0 : 1;
+		i |= keyY(leaf) < y + half ? 0 : 2;
+		if (dimensions == 3)
+			i |= keyZ(leaf) < z + half ? 0 : 4;
+		return i;
+	}
+	
+	// Query Operations
+	
+	@Override
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	@Override
+	public int dimensions()
+	{
+		return dimensions;
+	}
+	
+	@Override
+	public int size()
+	{
+		return count(0);
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return count(0) == 0;
+	}
+	
+	@Override
+	public boolean isRoot()
+	{
+		return true;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return find(key) >= 0;
+	}
+	
+	@Override
+	public boolean containsValue(Object value)
+	{
+		Iterator<PointTreeMap.Leaf<E>> it = leafIterator();
+		while (it.hasNext())
+			if (Objects.equals(it.next()
+								 .getValue(), value))
+				return true;
+		return false;
+	}
+	
+	@Override
+	public E get(Object key)
+	{
+		int leaf = find(key);
+		return leaf < 0 ? null : value(leaf);
+	}
+	
+	private int find(Object key)
+	{
+		if (!inBounds(key))
+			return -1;
+		
+		Point p = (Point) key;
+		int branch = 0;
+		int x = bounds.x();
+		int y = bounds.y();
+		int z = z();
+		int half = bounds.width() / 2;
+		
+		while (true)
+		{
+			int i = index(p, x, y, z, half);
+			int node = slot(branch, i);
+			
+			if (node < 0)
+				return hasKey(~node, p) ? ~node : -1;
+			if (node == 0)
+				return -1;
+			
+			branch = node;
+			x += (i & 1) == 0 ? 0 : half;
+			y += (i & 2) == 0 ? 0 : half;
+			z += (i & 4) == 0 ? 0 : half;
+			half /= 2;
+		}
+	}
+	
+	@Override
+	public PointTreeMap.Leaf<E> getLeaf(Point key)
+	{
+		int leaf = find(key);
+		return leaf < 0 ? null : new Leaf<>(this, key, leaf);
+	}
+	
+	@Override
+	public PointTreeMap<E> getBranch(Point key)
+	{
+		return containsKey(key) ? this : null;
+	}
+	
+	@Override
+	public AbstractPointTreeMap<E> getParent()
+	{
+		return null;
+	}
+	
+	@Override
+	public PointTreeMap.Leaf<E> select(int index)
+	{
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		
+		int branch = 0;
+		
+		while (true)
+			for (int i = 0; i < slots; i++)
+			{
+				int node = slot(branch, i);
+				
+				if (node < 0)
+				{
+					if (index-- == 0)
+						return leafAt(~node);
+				}
+				else if (node > 0)
+				{
+					if (index < count(node))
+					{
+						branch = node;
+						break;
+					}
+					index -= count(node);
+				}
+			}
+	}
+	
+	@Override
+	public int rank(Point key)
+	{
+		if (!inBounds(key))
+			return -1;
+		
+		int branch = 0;
+		int rank = 0;
+		int x = bounds.x();
+		int y = bounds.y();
+		int z = z();
+		int half = bounds.width() / 2;
+		
+		while (true)
+		{
+			int i = index(key, x, y, z, half);
+			
+			for (int j = 0; j < i; j++)
+			{
+				int node = slot(branch, j);
+				rank += node < 0 ? 1 : node > 0 ? count(node) : 0;
+			}
+			
+			int node = slot(branch, i);
+			if (node < 0)
+				return hasKey(~node, key) ? rank : -1;
+			if (node == 0)
+				return -1;
+			
+			branch = node;
+			x += (i & 1) == 0 ? 0 : half;
+			y += (i & 2) == 0 ? 0 : half;
+			z += (i & 4) == 0 ? 0 : half;
+			half /= 2;
+		}
+	}
+	
+	@Override
+	public void query(AABB window, Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		query(0, window, bounds.x(), bounds.y(), z(), bounds.width(), consumer);
+	}
+	
+	private void query(int branch, AABB window, int x, int y, int z, int width, Consumer<? super PointTreeMap.Leaf<E>>
+			consumer)
+	{
+		if (!overlaps(window, x, y, z, width))
+			return;
+		
+		int half = width / 2;
+		
+		for (int i = 0; i < slots; i++)
+		{
+			int node = slot(branch, i);
+			
+			if (node > 0)
+				query(node, window, (i & 1) == 0 ? x : x + half, (i & 2) == 0 ? y : y + half, (i & 4) == 0 ? z : z +
+						half, half, consumer);
+			else if (node < 0 && contains(window, ~node))
+				consumer.accept(leafAt(~node));
+		}
+	}
+	
+	@Override
+	public int count(AABB window)
+	{
+		return count(0, window, bounds.x(), bounds.y(), z(), bounds.width());
+	}
+	
+	private int count(int branch, AABB window, int x, int y, int z, int width)
+	{
+		if (!overlaps(window, x, y, z, width))
+			return 0;
+		if (encloses(window, x, y, z, width))
+			return count(branch);
+		
+		int half = width / 2;
+		int n = 0;
+		
+		for (int i = 0; i < slots; i++)
+		{
+			int node = slot(branch, i);
+			
+			if (node > 0)
+				n += count(node, window, (i & 1) == 0 ? x : x + half, (i & 2) == 0 ? y : y + half, (i & 4) == 0 ? z :
+						z + half, half);
+			else if (node < 0 && contains(window, ~node))
+				n++;
+		}
+		return n;
+	}
+	
+	private boolean overlaps(AABB window, int x, int y, int z, int width)
+	{
+		if (window.x() > x + width - 1 || window.maxX() < x || window.y() > y + width - 1 || window.maxY() < y)
+			return false;
+		return dimensions == 2 || !(window instanceof AABB3) || ((AABB3) window).z() <= z + width - 1 && ((AABB3)
+				window).maxZ() >= z;
+	}
+	
+	private boolean encloses(AABB window, int x, int y, int z, int width)
+	{
+		if (window.x() > x || window.maxX() < x + width - 1 || window.y() > y || window.maxY() < y + width - 1)
+			return false;
+		return dimensions == 2 || !(window instanceof AABB3) || ((AABB3) window).z() <= z && ((AABB3) window).maxZ()
+				>= z + width - 1;
+	}
+	
+	private boolean contains(AABB window, int leaf)
+	{
+		if (dimensions == 3 && window instanceof AABB3)
+			return ((AABB3) window).contains(keyX(leaf), keyY(leaf), keyZ(leaf));
+		return window.contains(keyX(leaf), keyY(leaf));
+	}
+	
+	@Override
+	public NeighbourBuffer<E> nearest(Point p, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		return nearest(p, Double.POSITIVE_INFINITY, metric, dest);
+	}
+	
+	@Override
+	public NeighbourBuffer<E> nearest(Point p, double maxDistance, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		dest.reset(maxDistance);
+		if (!isEmpty() && metric.distance(p, bounds) <= maxDistance)
+		{
+			AABB box = dimensions == 2 ? new MutableAABB() : new MutableAABB3();
+			nearest(0, p, metric, dest, box, bounds.x(), bounds.y(), z(), bounds.width() / 2);
+		}
+		return dest;
+	}
+	
+	private void nearest(int branch, Point p, DistanceMetric metric, NeighbourBuffer<E> dest, AABB box, int x, int y,
+			int z, int half)
+	{
+		int first = index(p, x, y, z, half);
+		
+		// Visits the slot holding the point first, as it most likely holds the nearest leaves
+		for (int n = 0; n < slots; n++)
+		{
+			int i = n == 0 ? first : n == first ? 0 : n;
+			int node = slot(branch, i);
+			
+			if (node < 0)
+			{
+				Point key = key(~node);
+				double d = metric.distance(p, key);
+				if (d <= dest.bound())
+					dest.offer(new Leaf<>(this, key, ~node), d);
+			}
+			else if (node > 0)
+			{
+				int cx = (i & 1) == 0 ? x : x + half;
+				int cy = (i & 2) == 0 ? y : y + half;
+				int cz = (i & 4) == 0 ? z : z + half;
+				
+				if (box instanceof MutableAABB)
+					((MutableAABB) box).set(cx, cy, half, half);
+				else
+					((MutableAABB3) box).set(cx, cy, cz, half, half, half);
+				
+				if (metric.distance(p, box) <= dest.bound())
+					nearest(node, p, metric, dest, box, cx, cy, cz, half / 2);
+			}
+		}
+	}
+	
+	@Override
+	public void withinRadius(Point p, double radius, DistanceMetric metric, Consumer<? super PointTreeMap.Leaf<E>>
+			consumer)
+	{
+		if (radius < 0)
+			return;
+		
+		// Every metric is at least the Chebyshev distance, ignoring z for hex distances
+		long r = (long) Math.min(Math.floor(radius), Integer.MAX_VALUE);
+		int minX = (int) Math.max((long) p.x() - r, bounds.x());
+		int maxX = (int) Math.min((long) p.x() + r, bounds.maxX());
+		int minY = (int) Math.max((long) p.y() - r, bounds.y());
+		int maxY = (int) Math.min((long) p.y() + r, bounds.maxY());
+		if (minX > maxX || minY > maxY)
+			return;
+		
+		AABB window;
+		if (dimensions == 3 && metric != DistanceMetric.HEX)
+		{
+			AABB3 bounds = (AABB3) this.bounds;
+			int minZ = (int) Math.max((long) p.z() - r, bounds.z());
+			int maxZ = (int) Math.min((long) p.z() + r, bounds.maxZ());
+			if (minZ > maxZ)
+				return;
+			window = new MutableAABB3(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+		}
+		else
+			window = new MutableAABB(minX, minY, maxX - minX + 1, maxY - minY + 1);
+		
+		query(window, l ->
+		{
+			if (metric.distance(p, l.getKey()) <= radius)
+				consumer.accept(l);
+		});
+	}
+	
+	@Override
+	public int leafIndex(Point key)
+	{
+		return index(key, bounds.x(), bounds.y(), z(), bounds.width() / 2);
+	}
+	
+	@Override
+	public int branchIndex()
+	{
+		return -1;
+	}
+	
+	// Modification Operations
+	
+	@Override
+	public E put(Point key, E value)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		int branch = 0;
+		int depth = 0;
+		int x = bounds.x();
+		int y = bounds.y();
+		int z = z();
+		int half = bounds.width() / 2;
+		
+		while (true)
+		{
+			path[depth++] = branch;
+			int i = index(key, x, y, z, half);
+			int node = slot(branch, i);
+			
+			if (node == 0)
+			{
+				int leaf = newLeaf(key, value);
+				setSlot(branch, i, ~leaf);
+				for (int d = 0; d < depth; d++)
+					setCount(path[d], count(path[d]) + 1);
+				modCount++;
+				return null;
+			}
+			
+			if (node < 0 && hasKey(~node, key))
+			{
+				E oldValue = value(~node);
+				setValue(~node, value);
+				return oldValue;
+			}
+			
+			x += (i & 1) == 0 ? 0 : half;
+			y += (i & 2) == 0 ? 0 : half;
+			z += (i & 4) == 0 ? 0 : half;
+			half /= 2;
+			
+			// Moves the other leaf down into a new branch, which the key is then added to
+			if (node < 0)
+			{
+				int split = newBranch();
+				setSlot(split, index(~node, x, y, z, half), node);
+				setCount(split, 1);
+				setSlot(branch, i, split);
+				node = split;
+			}
+			
+			branch = node;
+		}
+	}
+	
+	@Override
+	public E remove(Object key)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		Point p = (Point) key;
+		int branch = 0;
+		int depth = 0;
+		int x = bounds.x();
+		int y = bounds.y();
+		int z = z();
+		int half = bounds.width() / 2;
+		int node;
+		
+		while (true)
+		{
+			int i = index(p, x, y, z, half);
+			path[depth] = branch;
+			pathSlots[depth++] = i;
+			node = slot(branch, i);
+			
+			if (node <= 0)
+				break;
+			
+			branch = node;
+			x += (i & 1) == 0 ? 0 : half;
+			y += (i & 2) == 0 ? 0 : half;
+			z += (i & 4) == 0 ? 0 : half;
+			half /= 2;
+		}
+		
+		if (node == 0 || !hasKey(~node, p))
+			return null;
+		
+		E oldValue = value(~node);
+		freeLeaf(~node);
+		setSlot(path[depth - 1], pathSlots[depth - 1], 0);
+		for (int d = 0; d < depth; d++)
+			setCount(path[d], count(path[d]) - 1);
+		
+		// Branches other than the root hold two leaves at least, so the ones left with a single leaf are collapsed
+		for (int d = depth - 1; d > 0 && count(path[d]) < 2; d--)
+		{
+			int remaining = 0;
+			for (int i = 0; i < slots && remaining == 0; i++)
+				remaining = slot(path[d], i);
+			setSlot(path[d - 1], pathSlots[d - 1], remaining);
+			freeBranch(path[d]);
+		}
+		
+		modCount++;
+		return oldValue;
+	}
+	
+	// Bulk Operations
+	
+	@Override
+	public void putAll(Map<? extends Point, ? extends E> m)
+	{
+		m.forEach(this::put);
+	}
+	
+	@Override
+	public void clear()
+	{
+		reset();
+		modCount++;
+	}
+	
+	@Override
+	public void forEachNode(Consumer<? super Node<E>> consumer)
+	{
+		forEachLeaf(consumer);
+	}
+	
+	@Override
+	public void forEachLeaf(Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		leafIterator().forEachRemaining(consumer);
+	}
+	
+	@Override
+	public void forEachBranch(Consumer<? super PointTreeMap<E>> consumer) {}
+	
+	@Override
+	public void forEachLeafRecursive(Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		forEachLeaf(consumer);
+	}
+	
+	@Override
+	public void forEachBranchRecursive(Consumer<? super PointTreeMap<E>> consumer) {}
+	
+	// Statistics
+	
+	// Branch records are walked in place, so only the map itself counts towards the heap
+	@Override
+	public TreeStatistics statistics()
+	{
+		TreeStatistics s = statistics;
+		if (s == null || statisticsModCount != modCount)
+		{
+			TreeStatistics.Builder builder = new TreeStatistics.Builder();
+			addStatistics(0, 0, builder);
+			builder.heapBytes(TreeStatistics.objectBytes(8, 10) + 2 * TreeStatistics.arrayBytes(MAX_DEPTH, Integer
+					.BYTES));
+			builder.offHeapBytes(branches.capacity() + (long) leaves.capacity());
+			statistics = s = builder.build();
+			statisticsModCount = modCount;
+		}
+		return s;
+	}
+	
+	private void addStatistics(int branch, int depth, TreeStatistics.Builder builder)
+	{
+		int used = 0;
+		for (int i = 0; i < slots; i++)
+		{
+			int node = slot(branch, i);
+			if (node != 0)
+				used++;
+			if (node > 0)
+				addStatistics(node, depth + 1, builder);
+			else if (node < 0)
+				builder.leaves(depth + 1, 1);
+		}
+		builder.branch(depth, slots, used);
+	}
+	
+	// Views
+	
+	@Override
+	public Set<Entry<Point, E>> entrySet()
+	{
+		Set<Entry<Point, E>> es = entrySet;
+		return es == null ? entrySet = new EntrySet() : es;
+	}
+	
+	@Override
+	public Iterator<PointTreeMap.Leaf<E>> leafIterator()
+	{
+		return new LeafIterator();
+	}
+	
+	@Override
+	public Spliterator<PointTreeMap.Leaf<E>> leafSpliterator()
+	{
+		return Spliterators.spliterator(leafIterator(), size(), Spliterator.ORDERED | Spliterator.DISTINCT |
+				Spliterator.NONNULL);
+	}
+	
+	@Override
+	public Stream<PointTreeMap.Leaf<E>> leafStream()
+	{
+		return StreamSupport.stream(leafSpliterator(), false);
+	}
+	
+	final class EntrySet extends AbstractSet<Entry<Point, E>>
+	{
+		@Override
+		public Iterator<Entry<Point, E>> iterator()
+		{
+			Iterator<PointTreeMap.Leaf<E>> it = leafIterator();
+			return new Iterator<Entry<Point, E>>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return it.hasNext();
+				}
+				
+				@Override
+				public Entry<Point, E> next()
+				{
+					return it.next();
+				}
+				
+				@Override
+				public void remove()
+				{
+					it.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return AbstractOffHeapPointTreeMap.this.size();
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			int leaf = find(e.getKey());
+			return leaf >= 0 && Objects.equals(value(leaf), e.getValue());
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!contains(o))
+				return false;
+			AbstractOffHeapPointTreeMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+		
+		@Override
+		public void clear()
+		{
+			AbstractOffHeapPointTreeMap.this.clear();
+		}
+	}
+	
+	final class LeafIterator implements Iterator<PointTreeMap.Leaf<E>>
+	{
+		private final int[] branches = new int[MAX_DEPTH];
+		
+		private final int[] slots = new int[MAX_DEPTH];
+		
+		private int depth = 1;
+		
+		private int cursor;
+		
+		private Leaf<E> lastReturned;
+		
+		private int expectedModCount = modCount;
+		
+		@Override
+		public boolean hasNext()
+		{
+			return cursor < size();
+		}
+		
+		@Override
+		public PointTreeMap.Leaf<E> next()
+		{
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (cursor >= size())
+				throw new NoSuchElementException();
+			
+			while (true)
+			{
+				int branch = branches[depth - 1];
+				int i = slots[depth - 1];
+				
+				if (i == AbstractOffHeapPointTreeMap.this.slots)
+				{
+					depth--;
+					continue;
+				}
+				
+				slots[depth - 1] = i + 1;
+				int node = slot(branch, i);
+				
+				if (node < 0)
+				{
+					cursor++;
+					return lastReturned = leafAt(~node);
+				}
+				
+				if (node > 0)
+				{
+					branches[depth] = node;
+					slots[depth++] = 0;
+				}
+			}
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			
+			AbstractOffHeapPointTreeMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+			expectedModCount = modCount;
+			seek(--cursor);
+		}
+		
+		// Positions the stack in front of the leaf at the index, as the removal may have collapsed branches on the path
+		private void seek(int index)
+		{
+			depth = 1;
+			branches[0] = 0;
+			slots[0] = 0;
+			
+			if (index >= size())
+				return;
+			
+			while (true)
+			{
+				int branch = branches[depth - 1];
+				int i = slots[depth - 1];
+				int node = slot(branch, i);
+				int n = node < 0 ? 1 : node > 0 ? count(node) : 0;
+				
+				if (index >= n)
+				{
+					index -= n;
+					slots[depth - 1] = i + 1;
+				}
+				else if (node < 0)
+					return;
+				else
+				{
+					slots[depth - 1] = i + 1;
+					branches[depth] = node;
+					slots[depth++] = 0;
+				}
+			}
+		}
+	}
+	
+	// Entries look their record up again once the map has changed
+	static final class Leaf<E> implements PointTreeMap.Leaf<E>
+	{
+		private final AbstractOffHeapPointTreeMap<E> map;
+		
+		private final Point key;
+		
+		private int leaf;
+		
+		private int expectedModCount;
+		
+		Leaf(AbstractOffHeapPointTreeMap<E> map, Point key, int leaf)
+		{
+			this.map = map;
+			this.key = key;
+			this.leaf = leaf;
+			this.expectedModCount = map.modCount;
+		}
+		
+		private int leaf()
+		{
+			if (expectedModCount != map.modCount)
+			{
+				leaf = map.find(key);
+				expectedModCount = map.modCount;
+			}
+			return leaf;
+		}
+		
+		@Override
+		public Point getKey()
+		{
+			return key;
+		}
+		
+		@Override
+		public E getValue()
+		{
+			int leaf = leaf();
+			return leaf < 0 ? null : map.value(leaf);
+		}
+		
+		@Override
+		public E setValue(E value)
+		{
+			int leaf = leaf();
+			if (leaf < 0)
+				throw new IllegalStateException("Entry was removed");
+			E oldValue = map.value(leaf);
+			map.setValue(leaf, value);
+			return oldValue;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return key.hashCode() ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+		
+		@Override
+		public String toString()
+		{
+			return String.format("[%s=%s]", key, getValue());
+		}
+	}
+}
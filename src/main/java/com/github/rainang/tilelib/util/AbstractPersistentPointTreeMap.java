@@ -0,0 +1,403 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The base of the persistent tree maps. Branches are immutable arrays of slots that know their size, and an update
+ * copies the branches on the path to the key only, sharing every other branch with the map it was made from. Branch
+ * bounds are not stored but derived from the bounds of the map on the way down.
+ */
+abstract class AbstractPersistentPointTreeMap<E> extends AbstractMap<Point, E>
+{
+	final AABB bounds;
+	
+	final Branch root;
+	
+	private Set<Entry<Point, E>> entrySet;
+	
+	AbstractPersistentPointTreeMap(AABB bounds, Branch root)
+	{
+		this.bounds = bounds;
+		this.root = root;
+	}
+	
+	public abstract int dimensions();
+	
+	abstract AbstractPersistentPointTreeMap<E> newInstance(Branch root);
+	
+	static Branch emptyRoot(int dimensions)
+	{
+		return new Branch(new Object[1 << dimensions], 0);
+	}
+	
+	private boolean inBounds(Object key)
+	{
+		return key instanceof Point && ((Point) key).dimensions() == dimensions() && bounds.contains((Point) key);
+	}
+	
+	// Slots hold nothing but branches and the leaves of this map
+	@SuppressWarnings("unchecked")
+	private static <E> Leaf<E> leaf(Object node)
+	{
+		return (Leaf<E>) node;
+	}
+	
+	private int z(AABB bounds)
+	{
+		return dimensions() == 3 ? ((AABB3) bounds).z() : 0;
+	}
+	
+	// Returns the slot of the key in the branch with the minimum corner and half width
+	private int index(Point key, int x, int y, int z, int half)
+	{
+		int i = key.x() < x + half ? 0 : 1;
+		i |= key.y() < y + half ? 0 : 2;
+		if (dimensions() == 3)
+			i |= key.z() < z + half ? 0 : 4;
+		return i;
+	}
+	
+	// Query Operations
+	
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	@Override
+	public int size()
+	{
+		return root.size;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return find(key) != null;
+	}
+	
+	@Override
+	public E get(Object key)
+	{
+		Leaf<E> leaf = find(key);
+		return leaf == null ? null : leaf.getValue();
+	}
+	
+	private Leaf<E> find(Object key)
+	{
+		if (!inBounds(key))
+			return null;
+		
+		Point p = (Point) key;
+		Object node = root;
+		int x = bounds.x();
+		int y = bounds.y();
+		int z = z(bounds);
+		int half = bounds.width() / 2;
+		
+		while (node instanceof Branch)
+		{
+			int i = index(p, x, y, z, half);
+			node = ((Branch) node).slots[i];
+			x += (i & 1) == 0 ? 0 : half;
+			y += (i & 2) == 0 ? 0 : half;
+			z += (i & 4) == 0 ? 0 : half;
+			half /= 2;
+		}
+		
+		return node != null && leaf(node).getKey()
+										 .equals(p) ? leaf(node) : null;
+	}
+	
+	public void query(AABB window, Consumer<? super Entry<Point, E>> consumer)
+	{
+		query(root, AbstractPointTreeMap.project(window, dimensions()), bounds.x(), bounds.y(), z(bounds), bounds
+				.width(), consumer);
+	}
+	
+	private void query(Branch branch, AABB window, int x, int y, int z, int width, Consumer<? super Entry<Point, E>>
+			consumer)
+	{
+		if (window.x() > x + width - 1 || window.maxX() < x || window.y() > y + width - 1 || window.maxY() < y)
+			return;
+		if (dimensions() == 3 && window instanceof AABB3 && (((AABB3) window).z() > z + width - 1 || ((AABB3) window)
+				.maxZ() < z))
+			return;
+		
+		int half = width / 2;
+		
+		for (int i = 0; i < branch.slots.length; i++)
+		{
+			Object node = branch.slots[i];
+			
+			if (node instanceof Branch)
+				query((Branch) node, window, (i & 1) == 0 ? x : x + half, (i & 2) == 0 ? y : y + half, (i & 4) == 0 ? z
+						: z + half, half, consumer);
+			else if (node != null && window.contains(leaf(node).getKey()))
+				consumer.accept(leaf(node));
+		}
+	}
+	
+	// Persistent Operations
+	
+	/**
+	 * Returns a map with the key mapped to the value and every other mapping of this map. Keys outside the bounds are
+	 * ignored, in which case this map is returned.
+	 */
+	public AbstractPersistentPointTreeMap<E> with(Point key, E value)
+	{
+		if (!inBounds(key))
+			return this;
+		Branch root = with(this.root, new Leaf<>(key, value), bounds.x(), bounds.y(), z(bounds), bounds.width() / 2);
+		return root == this.root ? this : newInstance(root);
+	}
+	
+	/**
+	 * Returns a map with every mapping of this map but the one of the key.
+	 */
+	public AbstractPersistentPointTreeMap<E> without(Point key)
+	{
+		if (!containsKey(key))
+			return this;
+		
+		Object node = without(root, key, bounds.x(), bounds.y(), z(bounds), bounds.width() / 2);
+		if (node instanceof Branch)
+			return newInstance((Branch) node);
+		
+		// A root left with a single leaf or none is kept as a branch
+		Branch root = emptyRoot(dimensions());
+		if (node != null)
+			root = with(root, leaf(node), bounds.x(), bounds.y(), z(bounds), bounds.width() / 2);
+		return newInstance(root);
+	}
+	
+	/**
+	 * Returns a map with the mappings of this map and of the map, where the values of the map replace the values of
+	 * equal keys.
+	 */
+	public AbstractPersistentPointTreeMap<E> withAll(Map<? extends Point, ? extends E> m)
+	{
+		Branch root = this.root;
+		for (Entry<? extends Point, ? extends E> e : m.entrySet())
+			if (inBounds(e.getKey()))
+				root = with(root, new Leaf<>(e.getKey(), e.getValue()), bounds.x(), bounds.y(), z(bounds), bounds
+						.width() / 2);
+		return root == this.root ? this : newInstance(root);
+	}
+	
+	private Branch with(Branch branch, Leaf<E> leaf, int x, int y, int z, int half)
+	{
+		int i = index(leaf.getKey(), x, y, z, half);
+		Object node = branch.slots[i];
+		int cx = (i & 1) == 0 ? x : x + half;
+		int cy = (i & 2) == 0 ? y : y + half;
+		int cz = (i & 4) == 0 ? z : z + half;
+		
+		Object replacement;
+		int size = branch.size;
+		
+		if (node == null)
+		{
+			replacement = leaf;
+			size++;
+		}
+		else if (node instanceof Branch)
+		{
+			Branch child = (Branch) node;
+			Branch copy = with(child, leaf, cx, cy, cz, half / 2);
+			if (copy == child)
+				return branch;
+			replacement = copy;
+			size += copy.size - child.size;
+		}
+		else
+		{
+			Leaf<E> old = leaf(node);
+			if (old.getKey()
+				   .equals(leaf.getKey()))
+			{
+				if (old.getValue() == leaf.getValue())
+					return branch;
+				replacement = leaf;
+			}
+			else
+			{
+				Branch split = with(with(emptyRoot(dimensions()), old, cx, cy, cz, half / 2), leaf, cx, cy, cz, half /
+						2);
+				replacement = split;
+				size++;
+			}
+		}
+		
+		Object[] slots = branch.slots.clone();
+		slots[i] = replacement;
+		return new Branch(slots, size);
+	}
+	
+	// Returns the node replacing the branch, which is the branch itself if the key is absent
+	private Object without(Branch branch, Point key, int x, int y, int z, int half)
+	{
+		int i = index(key, x, y, z, half);
+		Object node = branch.slots[i];
+		Object replacement;
+		
+		if (node instanceof Branch)
+		{
+			replacement = without((Branch) node, key, (i & 1) == 0 ? x : x + half, (i & 2) == 0 ? y : y + half, (i &
+					4) == 0 ? z : z + half, half / 2);
+			if (replacement == node)
+				return branch;
+		}
+		else if (node != null && leaf(node).getKey()
+										  .equals(key))
+			replacement = null;
+		else
+			return branch;
+		
+		if (branch.size == 1)
+			return null;
+		
+		Object[] slots = branch.slots.clone();
+		slots[i] = replacement;
+		
+		// A branch holding a single leaf is replaced by the leaf, branches of size one never remain
+		if (branch.size == 2)
+			for (Object slot : slots)
+				if (slot != null)
+					return slot;
+		
+		return new Branch(slots, branch.size - 1);
+	}
+	
+	// Views
+	
+	@Override
+	public Set<Entry<Point, E>> entrySet()
+	{
+		Set<Entry<Point, E>> es = entrySet;
+		return es == null ? entrySet = new EntrySet() : es;
+	}
+	
+	final class EntrySet extends AbstractSet<Entry<Point, E>>
+	{
+		@Override
+		public Iterator<Entry<Point, E>> iterator()
+		{
+			return new LeafIterator();
+		}
+		
+		@Override
+		public int size()
+		{
+			return root.size;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			Leaf<E> leaf = find(e.getKey());
+			return leaf != null && Objects.equals(leaf.getValue(), e.getValue());
+		}
+	}
+	
+	final class LeafIterator implements Iterator<Entry<Point, E>>
+	{
+		private Branch[] branches = new Branch[8];
+		
+		private int[] slots = new int[8];
+		
+		private int depth;
+		
+		private int remaining = root.size;
+		
+		LeafIterator()
+		{
+			push(root);
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return remaining > 0;
+		}
+		
+		@Override
+		public Entry<Point, E> next()
+		{
+			if (remaining == 0)
+				throw new NoSuchElementException();
+			
+			while (true)
+			{
+				Branch branch = branches[depth - 1];
+				int i = slots[depth - 1];
+				
+				if (i == branch.slots.length)
+				{
+					depth--;
+					continue;
+				}
+				
+				slots[depth - 1] = i + 1;
+				Object node = branch.slots[i];
+				
+				if (node instanceof Branch)
+					push((Branch) node);
+				else if (node != null)
+				{
+					remaining--;
+					return leaf(node);
+				}
+			}
+		}
+		
+		private void push(Branch branch)
+		{
+			if (depth == branches.length)
+			{
+				branches = Arrays.copyOf(branches, depth * 2);
+				slots = Arrays.copyOf(slots, depth * 2);
+			}
+			branches[depth] = branch;
+			slots[depth++] = 0;
+		}
+	}
+	
+	static final class Branch
+	{
+		final Object[] slots;
+		
+		final int size;
+		
+		Branch(Object[] slots, int size)
+		{
+			this.slots = slots;
+			this.size = size;
+		}
+	}
+	
+	static final class Leaf<E> extends SimpleImmutableEntry<Point, E>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		Leaf(Point key, E value)
+		{
+			super(key, value);
+		}
+	}
+}
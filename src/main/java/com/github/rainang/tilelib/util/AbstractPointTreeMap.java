@@ -1,48 +1,113 @@
 package com.github.rainang.tilelib.util;
 
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.DistanceMetric;
 import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.PointCodec;
+import com.github.rainang.tilelib.geometry.Points;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 {
 	AbstractPointTreeMap<E> parent;
 	
-	abstract AbstractPointTreeMap<E> newInstance(AbstractPointTreeMap<E> parent, int index, Leaf<E> leaf);
+	int size;
+	
+	int modCount;
+	
+	int bucketCapacity = 1;
+	
+	int maxDepth = Integer.MAX_VALUE;
+	
+	int depth;
+	
+	boolean unbounded;
+	
+	int minWidth;
+	
+	// Without automatic collapse, branches may hold no more leaves than a bucket, and may even be empty, so only the
+	// collapse paths may assume that a branch holds more than bucketCapacity leaves
+	boolean autoCollapse = true;
+	
+	private Set<Point> keySet;
+	
+	private Collection<E> values;
+	
+	private Set<Entry<Point, E>> entrySet;
+	
+	private TreeStatistics statistics;
+	
+	private int statisticsModCount;
+	
+	abstract AbstractPointTreeMap<E> newInstance(AbstractPointTreeMap<E> parent, int index);
+	
+	abstract long mortonCode(Point key);
 	
 	abstract Node<E>[] nodes();
 	
+	void configure(int bucketCapacity, int maxDepth)
+	{
+		if (bucketCapacity < 1)
+			throw new IllegalArgumentException("Illegal bucket capacity: " + bucketCapacity);
+		if (maxDepth < 0)
+			throw new IllegalArgumentException("Illegal maximum depth: " + maxDepth);
+		this.bucketCapacity = bucketCapacity;
+		this.maxDepth = maxDepth;
+	}
+	
+	// Doubles the bounds of the root towards the key and returns the slot that the old bounds take, or -1 if the bounds
+	// cannot grow any further
+	abstract int expand(Point key);
+	
+	// Halves the bounds of the root down to the slot
+	abstract void contract(int index);
+	
+	AbstractPointTreeMap<E> newBranch(int index)
+	{
+		AbstractPointTreeMap<E> branch = newInstance(this, index);
+		branch.bucketCapacity = bucketCapacity;
+		branch.maxDepth = maxDepth;
+		branch.depth = depth + 1;
+		branch.autoCollapse = autoCollapse;
+		return branch;
+	}
+	
+	// Returns whether a slot of this branch may hold n leaves without being split
+	boolean fits(int n)
+	{
+		return n <= bucketCapacity || depth >= maxDepth;
+	}
+	
 	// Query Operations
 	
 	@Override
 	public int size()
 	{
-		int i = 0;
-		
-		for (Node<E> node : nodes())
-			if (node instanceof Leaf)
-				i++;
-			else if (node instanceof PointTreeMap)
-				i += ((PointTreeMap) node).size();
-		
-		return i;
+		return size;
 	}
 	
 	@Override
 	public boolean isEmpty()
 	{
-		for (Node node : nodes())
-			if (node != null)
-				return false;
-		
-		return true;
+		return size == 0;
 	}
 	
 	@Override
@@ -51,25 +116,61 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 		return parent == null;
 	}
 	
+	public int bucketCapacity()
+	{
+		return bucketCapacity;
+	}
+	
+	public int maxDepth()
+	{
+		return maxDepth;
+	}
+	
+	public int depth()
+	{
+		return depth;
+	}
+	
+	public boolean isAutoCollapse()
+	{
+		return autoCollapse;
+	}
+	
+	/**
+	 * Sets whether removals collapse the branches they leave with few enough leaves for a leaf or bucket, which is the
+	 * default. Without, branches stay in place until {@link #compact()} is called, which saves rebuilding them when a
+	 * region is emptied and filled again. Turning automatic collapse back on compacts this map. Unbounded roots do not
+	 * shrink while automatic collapse is off.
+	 */
+	public void setAutoCollapse(boolean autoCollapse)
+	{
+		this.autoCollapse = autoCollapse;
+		forEachBranchRecursive(b -> ((AbstractPointTreeMap<E>) b).autoCollapse = autoCollapse);
+		if (autoCollapse)
+			compact();
+	}
+	
+	public boolean isUnbounded()
+	{
+		return unbounded;
+	}
+	
 	@Override
 	public boolean containsKey(Object key)
 	{
-		return match((b, l) -> l.getKey()
-								.equals(key));
+		return find(key, (b, l) -> l) != null;
 	}
 	
 	@Override
 	public boolean containsValue(Object value)
 	{
-		return match((b, l) -> l.getValue()
-								.equals(value));
+		return match((b, l) -> Objects.equals(l.getValue(), value));
 	}
 	
 	@Override
 	public E get(Object key)
 	{
-		return find(key, (b, l) -> l.getKey()
-									.equals(key) ? l.getValue() : null);
+		return find(key, (b, l) -> l.getValue());
 	}
 	
 	@Override
@@ -79,49 +180,290 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 	}
 	
 	@Override
-	public Leaf<E> getLeaf(Point key)
+	public PointTreeMap.Leaf<E> getLeaf(Point key)
 	{
-		return find(key, (b, l) -> l.getKey()
-									.equals(key) ? l : null);
+		return find(key, (b, l) -> l);
 	}
 	
 	@Override
 	public PointTreeMap<E> getBranch(Point key)
 	{
-		return find(key, (b, l) -> l.getKey()
-									.equals(key) ? b : null);
+		return find(key, (b, l) -> b);
 	}
 	
 	private <T> T find(Object key, BiFunction<AbstractPointTreeMap<E>, Leaf<E>, T> biFunction)
 	{
-		for (Node<E> node : nodes())
+		if (!(key instanceof Point) || ((Point) key).dimensions() != dimensions())
+			return null;
+		
+		Point p = (Point) key;
+		AbstractPointTreeMap<E> branch = this;
+		
+		while (true)
+		{
+			Node<E> node = branch.nodes()[branch.leafIndex(p)];
+			
 			if (node instanceof Leaf)
 			{
 				Leaf<E> leaf = (Leaf<E>) node;
-				if (leaf.getKey()
-						.equals(key))
-					return biFunction.apply(this, leaf);
+				return leaf.getKey()
+						   .equals(p) ? biFunction.apply(branch, leaf) : null;
 			}
-		
-		for (Node<E> node : nodes())
-			if (node instanceof AbstractPointTreeMap)
-				return ((AbstractPointTreeMap<E>) node).find(key, biFunction);
-		
-		return null;
+			
+			if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				int i = bucket.indexOf(p);
+				return i < 0 ? null : biFunction.apply(branch, bucket.leaves[i]);
+			}
+			
+			if (!(node instanceof AbstractPointTreeMap))
+				return null;
+			
+			branch = (AbstractPointTreeMap<E>) node;
+		}
 	}
 	
 	private boolean match(BiPredicate<AbstractPointTreeMap<E>, Leaf<E>> biPredicate)
 	{
 		for (Node<E> node : nodes())
 			if (node instanceof Leaf)
+			{
 				if (biPredicate.test(this, (Leaf<E>) node))
 					return true;
+			}
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int i = 0; i < bucket.size; i++)
+					if (biPredicate.test(this, bucket.leaves[i]))
+						return true;
+			}
+			else if (node instanceof AbstractPointTreeMap)
+				if (((AbstractPointTreeMap<E>) node).match(biPredicate))
+					return true;
+		
+		return false;
+	}
+	
+	@Override
+	public PointTreeMap.Leaf<E> select(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		
+		AbstractPointTreeMap<E> branch = this;
+		
+		while (true)
+			for (Node<E> node : branch.nodes())
+				if (node instanceof Leaf)
+				{
+					if (index-- == 0)
+						return (Leaf<E>) node;
+				}
+				else if (node instanceof Bucket)
+				{
+					Bucket<E> bucket = (Bucket<E>) node;
+					if (index < bucket.size)
+						return bucket.leaves[index];
+					index -= bucket.size;
+				}
+				else if (node instanceof AbstractPointTreeMap)
+				{
+					AbstractPointTreeMap<E> b = (AbstractPointTreeMap<E>) node;
+					if (index < b.size)
+					{
+						branch = b;
+						break;
+					}
+					index -= b.size;
+				}
+	}
+	
+	@Override
+	public int rank(Point key)
+	{
+		if (key.dimensions() != dimensions())
+			return -1;
+		
+		AbstractPointTreeMap<E> branch = this;
+		int rank = 0;
+		
+		while (true)
+		{
+			int i = branch.leafIndex(key);
+			Node<E>[] nodes = branch.nodes();
+			
+			for (int j = 0; j < i; j++)
+				rank += count(nodes[j]);
+			
+			if (nodes[i] instanceof Leaf)
+				return ((Leaf<E>) nodes[i]).getKey()
+										   .equals(key) ? rank : -1;
+			
+			if (nodes[i] instanceof Bucket)
+			{
+				int j = ((Bucket<E>) nodes[i]).indexOf(key);
+				return j < 0 ? -1 : rank + j;
+			}
+			
+			if (!(nodes[i] instanceof AbstractPointTreeMap))
+				return -1;
+			
+			branch = (AbstractPointTreeMap<E>) nodes[i];
+		}
+	}
+	
+	@Override
+	public void query(AABB window, Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		query_(project(window, dimensions()), consumer);
+	}
+	
+	private void query_(AABB window, Consumer<? super PointTreeMap.Leaf<E>> consumer)
+	{
+		if (!bounds().intersects(window))
+			return;
+		
+		boolean inside = window.contains(bounds());
 		
 		for (Node<E> node : nodes())
-			if (node instanceof AbstractPointTreeMap)
-				return ((AbstractPointTreeMap<E>) node).match(biPredicate);
+			if (node instanceof Leaf)
+			{
+				if (inside || window.contains(((Leaf<E>) node).getKey()))
+					consumer.accept((Leaf<E>) node);
+			}
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int i = 0; i < bucket.size; i++)
+					if (inside || window.contains(bucket.leaves[i].getKey()))
+						consumer.accept(bucket.leaves[i]);
+			}
+			else if (node instanceof AbstractPointTreeMap)
+				((AbstractPointTreeMap<E>) node).query_(window, consumer);
+	}
+	
+	@Override
+	public int count(AABB window)
+	{
+		return count_(project(window, dimensions()));
+	}
+	
+	private int count_(AABB window)
+	{
+		if (!bounds().intersects(window))
+			return 0;
 		
-		return false;
+		if (window.contains(bounds()))
+			return size;
+		
+		int i = 0;
+		
+		for (Node<E> node : nodes())
+			if (node instanceof Leaf)
+			{
+				if (window.contains(((Leaf<E>) node).getKey()))
+					i++;
+			}
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int j = 0; j < bucket.size; j++)
+					if (window.contains(bucket.leaves[j].getKey()))
+						i++;
+			}
+			else if (node instanceof AbstractPointTreeMap)
+				i += ((AbstractPointTreeMap<E>) node).count_(window);
+		
+		return i;
+	}
+	
+	@Override
+	public NeighbourBuffer<E> nearest(Point p, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		return nearest(p, Double.POSITIVE_INFINITY, metric, dest);
+	}
+	
+	@Override
+	public NeighbourBuffer<E> nearest(Point p, double maxDistance, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		dest.reset(maxDistance);
+		if (metric.distance(p, bounds()) <= maxDistance)
+			nearest_(p, metric, dest);
+		return dest;
+	}
+	
+	private void nearest_(Point p, DistanceMetric metric, NeighbourBuffer<E> dest)
+	{
+		Node<E>[] nodes = nodes();
+		int first = leafIndex(p);
+		
+		for (int n = 0; n < nodes.length; n++)
+		{
+			Node<E> node = nodes[n == 0 ? first : n == first ? 0 : n];
+			
+			if (node instanceof Leaf)
+			{
+				Leaf<E> leaf = (Leaf<E>) node;
+				dest.offer(leaf, metric.distance(p, leaf.getKey()));
+			}
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int i = 0; i < bucket.size; i++)
+					dest.offer(bucket.leaves[i], metric.distance(p, bucket.leaves[i].getKey()));
+			}
+			else if (node instanceof AbstractPointTreeMap)
+			{
+				AbstractPointTreeMap<E> branch = (AbstractPointTreeMap<E>) node;
+				if (metric.distance(p, branch.bounds()) <= dest.bound())
+					branch.nearest_(p, metric, dest);
+			}
+		}
+	}
+	
+	@Override
+	public void withinRadius(Point p, double radius, DistanceMetric metric, Consumer<? super PointTreeMap.Leaf<E>>
+			consumer)
+	{
+		if (metric.distance(p, bounds()) > radius)
+			return;
+		
+		for (Node<E> node : nodes())
+			if (node instanceof Leaf)
+			{
+				if (metric.distance(p, ((Leaf<E>) node).getKey()) <= radius)
+					consumer.accept((Leaf<E>) node);
+			}
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int i = 0; i < bucket.size; i++)
+					if (metric.distance(p, bucket.leaves[i].getKey()) <= radius)
+						consumer.accept(bucket.leaves[i]);
+			}
+			else if (node instanceof AbstractPointTreeMap)
+				((AbstractPointTreeMap<E>) node).withinRadius(p, radius, metric, consumer);
+	}
+	
+	// Returns the window without its z-range for maps of 2 dimensions, as their keys have no z-coordinate to test
+	static AABB project(AABB window, int dimensions)
+	{
+		if (dimensions == 3 || !(window instanceof AABB3))
+			return window;
+		return new AABB(Points.at(window.x(), window.y()), Points.at(window.width(), window.height()));
+	}
+	
+	static int count(Node<?> node)
+	{
+		if (node instanceof Leaf)
+			return 1;
+		if (node instanceof Bucket)
+			return ((Bucket<?>) node).size;
+		if (node instanceof AbstractPointTreeMap)
+			return ((AbstractPointTreeMap<?>) node).size;
+		return 0;
 	}
 	
 	@Override
@@ -138,7 +480,9 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 	@Override
 	public E put(Point key, E value)
 	{
-		return bounds().contains(key) ? put_(key, value) : null;
+		if (key.dimensions() != dimensions())
+			return null;
+		return bounds().contains(key) || unbounded && grow(key) ? put_(key, value) : null;
 	}
 	
 	private E put_(Point key, E value)
@@ -148,6 +492,7 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 		if (nodes()[i] == null)
 		{
 			nodes()[i] = new Leaf<>(key, value);
+			adjust(1);
 			return null;
 		}
 		
@@ -157,12 +502,78 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 			if (leaf.getKey()
 					.equals(key))
 				return leaf.setValue(value);
-			nodes()[i] = newInstance(this, i, (Leaf<E>) nodes()[i]);
+			if (fits(2))
+			{
+				Bucket<E> bucket = new Bucket<>(bucketCapacity);
+				bucket.add(leaf);
+				bucket.add(new Leaf<>(key, value));
+				nodes()[i] = bucket;
+				adjust(1);
+				return null;
+			}
+			split(i);
+		}
+		else if (nodes()[i] instanceof Bucket)
+		{
+			Bucket<E> bucket = (Bucket<E>) nodes()[i];
+			int j = bucket.indexOf(key);
+			if (j >= 0)
+				return bucket.leaves[j].setValue(value);
+			if (fits(bucket.size + 1))
+			{
+				bucket.add(new Leaf<>(key, value));
+				adjust(1);
+				return null;
+			}
+			split(i);
 		}
 		
 		return ((AbstractPointTreeMap<E>) nodes()[i]).put_(key, value);
 	}
 	
+	// Replaces the leaf or bucket in the slot with a branch holding its leaves, leaving the counts of this branch as is
+	private void split(int i)
+	{
+		Node<E> node = nodes()[i];
+		AbstractPointTreeMap<E> branch = newBranch(i);
+		
+		if (node instanceof Leaf)
+			branch.place((Leaf<E>) node);
+		else
+		{
+			Bucket<E> bucket = (Bucket<E>) node;
+			for (int j = 0; j < bucket.size; j++)
+				branch.place(bucket.leaves[j]);
+		}
+	}
+	
+	private void place(Leaf<E> leaf)
+	{
+		int i = leafIndex(leaf.getKey());
+		Node<E> node = nodes()[i];
+		
+		if (node == null)
+			nodes()[i] = leaf;
+		else if (node instanceof AbstractPointTreeMap)
+			((AbstractPointTreeMap<E>) node).place(leaf);
+		else if (node instanceof Leaf && fits(2))
+		{
+			Bucket<E> bucket = new Bucket<>(bucketCapacity);
+			bucket.add((Leaf<E>) node);
+			bucket.add(leaf);
+			nodes()[i] = bucket;
+		}
+		else if (node instanceof Bucket && fits(((Bucket<E>) node).size + 1))
+			((Bucket<E>) node).add(leaf);
+		else
+		{
+			split(i);
+			((AbstractPointTreeMap<E>) nodes()[i]).place(leaf);
+		}
+		
+		size++;
+	}
+	
 	@Override
 	public E remove(Object key)
 	{
@@ -178,38 +589,361 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 					.equals(key))
 			{
 				nodes()[i] = null;
+				adjust(-1);
 				retract();
 				return leaf.getValue();
 			}
 			return null;
 		}
 		
+		if (nodes()[i] instanceof Bucket)
+		{
+			Bucket<E> bucket = (Bucket<E>) nodes()[i];
+			int j = bucket.indexOf(key);
+			if (j < 0)
+				return null;
+			Leaf<E> leaf = bucket.leaves[j];
+			bucket.remove(j);
+			if (bucket.size == 1)
+				nodes()[i] = bucket.leaves[0];
+			adjust(-1);
+			retract();
+			return leaf.getValue();
+		}
+		
 		return ((AbstractPointTreeMap<E>) nodes()[i]).remove(key);
 	}
 	
+	private void adjust(int delta)
+	{
+		for (AbstractPointTreeMap<E> branch = this; branch != null; branch = branch.parent)
+		{
+			branch.size += delta;
+			branch.modCount++;
+		}
+	}
+	
 	private void retract()
 	{
-		if (isRoot())
+		if (!autoCollapse)
+			return;
+		if (isRoot() && unbounded)
+			shrink();
+		if (isRoot() || size > bucketCapacity)
 			return;
 		
-		Node<E> result = this;
+		AbstractPointTreeMap<E> parent = this.parent;
+		parent.nodes()[branchIndex()] = collapse();
+		this.parent = null;
+		parent.retract();
+	}
+	
+	// Returns the leaf or bucket holding the leaves of this branch, or null if it is empty
+	private Node<E> collapse()
+	{
+		if (size == 0)
+			return null;
+		if (size == 1)
+			return (Leaf<E>) select(0);
 		
-		for (Node<E> node : nodes())
-			if (node != null)
-				if (node instanceof AbstractPointTreeMap || result instanceof Leaf)
-					return;
-				else
-					result = node;
+		Bucket<E> bucket = new Bucket<>(bucketCapacity);
+		for (int i = 0; i < size; i++)
+			bucket.add((Leaf<E>) select(i));
+		return bucket;
+	}
+	
+	/**
+	 * Collapses every branch below this map that holds few enough leaves for a leaf or bucket, and shrinks the bounds of
+	 * an unbounded root down to its leaves.
+	 *
+	 * @return the number of branches removed
+	 */
+	public int compact()
+	{
+		int removed = compact_();
+		if (removed > 0)
+			for (AbstractPointTreeMap<E> branch = parent; branch != null; branch = branch.parent)
+				branch.modCount++;
+		if (isRoot() && unbounded)
+			shrink();
+		return removed;
+	}
+	
+	private int compact_()
+	{
+		Node<E>[] nodes = nodes();
+		int removed = 0;
 		
-		parent.nodes()[branchIndex()] = result;
-		parent.retract();
-		parent = null;
+		for (int i = 0; i < nodes.length; i++)
+			if (nodes[i] instanceof AbstractPointTreeMap)
+			{
+				AbstractPointTreeMap<E> branch = (AbstractPointTreeMap<E>) nodes[i];
+				removed += branch.compact_();
+				if (fits(branch.size))
+				{
+					nodes[i] = branch.collapse();
+					branch.parent = null;
+					removed++;
+				}
+			}
+		
+		if (removed > 0)
+			modCount++;
+		return removed;
+	}
+	
+	// Doubles the root towards the key until it holds the key, moving the nodes of the root into a new branch each time
+	private boolean grow(Point key)
+	{
+		while (!bounds().contains(key))
+		{
+			Node<E>[] nodes = nodes().clone();
+			int index = expand(key);
+			if (index < 0)
+				return false;
+			
+			Arrays.fill(nodes(), null);
+			modCount++;
+			
+			if (size == 0)
+				continue;
+			
+			// Too few leaves for a branch, so they lie in leaves and buckets of the root unless collapse was deferred
+			if (size <= bucketCapacity && Arrays.stream(nodes)
+												.noneMatch(n -> n instanceof AbstractPointTreeMap))
+			{
+				Bucket<E> bucket = new Bucket<>(bucketCapacity);
+				for (Node<E> node : nodes)
+					if (node instanceof Leaf)
+						bucket.add((Leaf<E>) node);
+					else if (node instanceof Bucket)
+						for (int i = 0; i < ((Bucket<E>) node).size; i++)
+							bucket.add(((Bucket<E>) node).leaves[i]);
+				nodes()[index] = size == 1 ? bucket.leaves[0] : bucket;
+				continue;
+			}
+			
+			AbstractPointTreeMap<E> branch = newBranch(index);
+			System.arraycopy(nodes, 0, branch.nodes(), 0, nodes.length);
+			branch.size = size;
+			for (Node<E> node : nodes)
+				if (node instanceof AbstractPointTreeMap)
+					((AbstractPointTreeMap<E>) node).parent = branch;
+			branch.forEachBranchRecursive(b -> ((AbstractPointTreeMap<E>) b).depth++);
+		}
+		return true;
+	}
+	
+	// Halves the root for as long as its leaves lie in a single slot, down to the width the root was created with
+	private void shrink()
+	{
+		while (size > 0 && bounds().width() > minWidth)
+		{
+			int index = -1;
+			for (int i = 0; i < nodes().length; i++)
+				if (nodes()[i] != null)
+				{
+					if (index >= 0)
+						return;
+					index = i;
+				}
+			
+			Node<E> node = nodes()[index];
+			Arrays.fill(nodes(), null);
+			contract(index);
+			modCount++;
+			
+			if (node instanceof AbstractPointTreeMap)
+			{
+				AbstractPointTreeMap<E> branch = (AbstractPointTreeMap<E>) node;
+				branch.forEachBranchRecursive(b -> ((AbstractPointTreeMap<E>) b).depth--);
+				System.arraycopy(branch.nodes(), 0, nodes(), 0, nodes().length);
+				for (Node<E> n : nodes())
+					if (n instanceof AbstractPointTreeMap)
+						((AbstractPointTreeMap<E>) n).parent = this;
+				branch.parent = null;
+			}
+			else
+			{
+				size = 0;
+				if (node instanceof Leaf)
+					place((Leaf<E>) node);
+				else
+					for (int i = 0; i < ((Bucket<E>) node).size; i++)
+						place(((Bucket<E>) node).leaves[i]);
+			}
+		}
 	}
 	
 	@Override
 	public void putAll(Map<? extends Point, ? extends E> m)
 	{
-		m.forEach(this::put);
+		if (unbounded)
+			for (Point key : m.keySet())
+				if (key.dimensions() == dimensions())
+					grow(key);
+		
+		if (isRoot() && isEmpty())
+			load(m);
+		else
+			m.forEach(this::put);
+	}
+	
+	private void load(Map<? extends Point, ? extends E> m)
+	{
+		int width = bounds().width();
+		int levels = Integer.numberOfTrailingZeros(width);
+		
+		if (width < 2 || Integer.bitCount(width) != 1 || dimensions() == 3 && levels > PointCodec.BITS_3)
+		{
+			m.forEach(this::put);
+			return;
+		}
+		
+		@SuppressWarnings("unchecked")
+		Leaf<E>[] leaves = (Leaf<E>[]) new Leaf<?>[m.size()];
+		long[] codes = new long[leaves.length];
+		int n = 0;
+		
+		for (Entry<? extends Point, ? extends E> e : m.entrySet())
+			if (e.getKey()
+				 .dimensions() == dimensions() && bounds().contains(e.getKey()))
+			{
+				leaves[n] = new Leaf<>(e.getKey(), e.getValue());
+				codes[n++] = mortonCode(e.getKey());
+			}
+		
+		if (n < leaves.length)
+		{
+			leaves = Arrays.copyOf(leaves, n);
+			codes = Arrays.copyOf(codes, n);
+		}
+		
+		Points.sortByCode(codes, leaves);
+		
+		// Keeps the last of equal keys, as the sort is stable
+		int size = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (size > 0 && codes[size - 1] == codes[i])
+				size--;
+			codes[size] = codes[i];
+			leaves[size++] = leaves[i];
+		}
+		
+		new BulkLoad<>(this, leaves, codes, 0, size, dimensions() * (levels - 1)).invoke();
+		modCount++;
+	}
+	
+	// Values are only copied between maps of the same value type
+	@SuppressWarnings("unchecked")
+	<T> void copyNodes(AbstractPointTreeMap<T> src, boolean values)
+	{
+		Node<T>[] nodes = src.nodes();
+		bucketCapacity = src.bucketCapacity;
+		maxDepth = src.maxDepth;
+		autoCollapse = src.autoCollapse;
+		if (isRoot())
+		{
+			unbounded = src.unbounded;
+			minWidth = src.minWidth;
+		}
+		
+		for (int i = 0; i < nodes.length; i++)
+			if (nodes[i] instanceof Leaf)
+			{
+				Leaf<T> leaf = (Leaf<T>) nodes[i];
+				nodes()[i] = new Leaf<>(leaf.getKey(), values ? (E) leaf.getValue() : null);
+			}
+			else if (nodes[i] instanceof Bucket)
+			{
+				Bucket<T> bucket = (Bucket<T>) nodes[i];
+				Bucket<E> copy = new Bucket<>(bucket.leaves.length);
+				for (int j = 0; j < bucket.size; j++)
+					copy.add(new Leaf<>(bucket.leaves[j].getKey(), values ? (E) bucket.leaves[j].getValue() : null));
+				nodes()[i] = copy;
+			}
+			else if (nodes[i] instanceof AbstractPointTreeMap)
+				newBranch(i).copyNodes((AbstractPointTreeMap<T>) nodes[i], values);
+		
+		size = src.size;
+	}
+	
+	/**
+	 * Removes the mappings in the window that the filter accepts, in a single pass over the branches intersecting the
+	 * window.
+	 *
+	 * @return the number of mappings removed
+	 */
+	public int removeIf(AABB window, BiPredicate<? super Point, ? super E> filter)
+	{
+		int removed = removeIf_(project(window, dimensions()), filter);
+		if (removed > 0)
+		{
+			for (AbstractPointTreeMap<E> branch = parent; branch != null; branch = branch.parent)
+			{
+				branch.size -= removed;
+				branch.modCount++;
+			}
+			retract();
+		}
+		return removed;
+	}
+	
+	private int removeIf_(AABB window, BiPredicate<? super Point, ? super E> filter)
+	{
+		if (!bounds().intersects(window))
+			return 0;
+		
+		boolean inside = window.contains(bounds());
+		Node<E>[] nodes = nodes();
+		int removed = 0;
+		
+		for (int i = 0; i < nodes.length; i++)
+			if (nodes[i] instanceof Leaf)
+			{
+				Leaf<E> leaf = (Leaf<E>) nodes[i];
+				if ((inside || window.contains(leaf.getKey())) && filter.test(leaf.getKey(), leaf.getValue()))
+				{
+					nodes[i] = null;
+					removed++;
+				}
+			}
+			else if (nodes[i] instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) nodes[i];
+				for (int j = bucket.size - 1; j >= 0; j--)
+				{
+					Leaf<E> leaf = bucket.leaves[j];
+					if ((inside || window.contains(leaf.getKey())) && filter.test(leaf.getKey(), leaf.getValue()))
+					{
+						bucket.remove(j);
+						removed++;
+					}
+				}
+				if (bucket.size < 2)
+					nodes[i] = bucket.size == 0 ? null : bucket.leaves[0];
+			}
+			else if (nodes[i] instanceof AbstractPointTreeMap)
+			{
+				AbstractPointTreeMap<E> branch = (AbstractPointTreeMap<E>) nodes[i];
+				int n = branch.removeIf_(window, filter);
+				removed += n;
+				
+				// Collapses bottom-up, as retract would after each single removal
+				if (n > 0 && autoCollapse && fits(branch.size))
+				{
+					nodes[i] = branch.collapse();
+					branch.parent = null;
+				}
+			}
+		
+		if (removed > 0)
+		{
+			size -= removed;
+			modCount++;
+		}
+		return removed;
 	}
 	
 	@Override
@@ -217,46 +951,79 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 	{
 		for (int i = 0; i < nodes().length; i++)
 			nodes()[i] = null;
+		
+		if (parent != null)
+			parent.adjust(-size);
+		size = 0;
+		modCount++;
+		retract();
 	}
 	
 	@Override
 	public Set<Point> keySet()
 	{
-		Set<Point> set = new HashSet<>();
-		forEachLeafRecursive(l -> set.add(l.getKey()));
-		return set;
+		Set<Point> ks = keySet;
+		return ks == null ? keySet = new KeySet() : ks;
 	}
 	
 	@Override
 	public Collection<E> values()
 	{
-		Set<E> set = new HashSet<>();
-		forEachLeafRecursive(l -> set.add(l.getValue()));
-		return set;
+		Collection<E> vs = values;
+		return vs == null ? values = new Values() : vs;
 	}
 	
 	@Override
 	public Set<Entry<Point, E>> entrySet()
 	{
-		Set<Entry<Point, E>> set = new HashSet<>();
-		forEachLeafRecursive(set::add);
-		return set;
+		Set<Entry<Point, E>> es = entrySet;
+		return es == null ? entrySet = new EntrySet() : es;
+	}
+	
+	@Override
+	public Iterator<PointTreeMap.Leaf<E>> leafIterator()
+	{
+		return new LeafIterator();
+	}
+	
+	@Override
+	public Spliterator<PointTreeMap.Leaf<E>> leafSpliterator()
+	{
+		return new LeafSpliterator<>(this);
+	}
+	
+	@Override
+	public Stream<PointTreeMap.Leaf<E>> leafStream()
+	{
+		return StreamSupport.stream(leafSpliterator(), false);
 	}
 	
 	@Override
 	public void forEachNode(Consumer<? super Node<E>> consumer)
 	{
 		for (Node<E> node : nodes())
-			consumer.accept(node);
+			if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int i = 0; i < bucket.size; i++)
+					consumer.accept(bucket.leaves[i]);
+			}
+			else
+				consumer.accept(node);
 	}
 	
 	@Override
 	public void forEachLeaf(Consumer<? super PointTreeMap.Leaf<E>> consumer)
 	{
 		for (Node<E> node : nodes())
-			if (node != null)
-				if (node instanceof Leaf)
-					consumer.accept((Leaf<E>) node);
+			if (node instanceof Leaf)
+				consumer.accept((Leaf<E>) node);
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				for (int i = 0; i < bucket.size; i++)
+					consumer.accept(bucket.leaves[i]);
+			}
 	}
 	
 	@Override
@@ -280,16 +1047,500 @@ abstract class AbstractPointTreeMap<E> implements PointTreeMap<E>
 		forEachBranch(b ->
 		{
 			consumer.accept(b);
-			b.forEachBranch(consumer);
+			b.forEachBranchRecursive(consumer);
 		});
 	}
 	
+	// Statistics
+	
+	// Structural changes count up the modCount of every branch on their path, so the snapshot holds until one does
+	@Override
+	public TreeStatistics statistics()
+	{
+		TreeStatistics s = statistics;
+		if (s == null || statisticsModCount != modCount)
+		{
+			TreeStatistics.Builder builder = new TreeStatistics.Builder();
+			addStatistics(this, builder);
+			forEachBranchRecursive(b -> addStatistics((AbstractPointTreeMap<E>) b, builder));
+			statistics = s = builder.build();
+			statisticsModCount = modCount;
+		}
+		return s;
+	}
+	
+	private void addStatistics(AbstractPointTreeMap<E> branch, TreeStatistics.Builder builder)
+	{
+		int depth = branch.depth - this.depth;
+		Node<E>[] nodes = branch.nodes();
+		long key = TreeStatistics.objectBytes(0, dimensions());
+		long leaf = TreeStatistics.objectBytes(2, 0) + key;
+		long bytes = TreeStatistics.objectBytes(7, 8) + TreeStatistics.arrayBytes(nodes.length, TreeStatistics
+				.REFERENCE) + TreeStatistics.objectBytes(2, 0) + 2 * key;
+		int used = 0;
+		
+		for (Node<E> node : nodes)
+			if (node instanceof Leaf)
+			{
+				builder.leaves(depth + 1, 1);
+				bytes += leaf;
+				used++;
+			}
+			else if (node instanceof Bucket)
+			{
+				Bucket<E> bucket = (Bucket<E>) node;
+				builder.bucket()
+					   .leaves(depth + 1, bucket.size);
+				bytes += TreeStatistics.objectBytes(1, 1) + TreeStatistics.arrayBytes(bucket.leaves.length,
+						TreeStatistics.REFERENCE) + bucket.size * leaf;
+				used++;
+			}
+			else if (node != null)
+				used++;
+		
+		builder.branch(depth, nodes.length, used)
+			   .heapBytes(bytes);
+	}
+	
 	@Override
 	public String toString()
 	{
 		return String.format("[%s]", Arrays.toString(nodes()));
 	}
 	
+	static final class BulkLoad<E> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private static final int THRESHOLD = 1 << 13;
+		
+		private final AbstractPointTreeMap<E> branch;
+		
+		private final Leaf<E>[] leaves;
+		
+		private final long[] codes;
+		
+		private final int from;
+		
+		private final int to;
+		
+		private final int shift;
+		
+		BulkLoad(AbstractPointTreeMap<E> branch, Leaf<E>[] leaves, long[] codes, int from, int to, int shift)
+		{
+			this.branch = branch;
+			this.leaves = leaves;
+			this.codes = codes;
+			this.from = from;
+			this.to = to;
+			this.shift = shift;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			int mask = (1 << branch.dimensions()) - 1;
+			BulkLoad<?>[] forks = null;
+			int forked = 0;
+			
+			for (int i = from, j; i < to; i = j)
+			{
+				int slot = (int) (codes[i] >>> shift) & mask;
+				for (j = i + 1; j < to && ((int) (codes[j] >>> shift) & mask) == slot; j++)
+					;
+				
+				if (j - i == 1)
+				{
+					branch.nodes()[slot] = leaves[i];
+					continue;
+				}
+				
+				if (branch.fits(j - i))
+				{
+					Bucket<E> bucket = new Bucket<>(Math.max(branch.bucketCapacity, j - i));
+					for (int k = i; k < j; k++)
+						bucket.add(leaves[k]);
+					branch.nodes()[slot] = bucket;
+					continue;
+				}
+				
+				BulkLoad<E> task = new BulkLoad<>(branch.newBranch(slot), leaves, codes, i, j, shift - branch
+						.dimensions());
+				
+				if (j - i < THRESHOLD)
+					task.compute();
+				else
+				{
+					if (forks == null)
+						forks = new BulkLoad<?>[mask + 1];
+					forks[forked++] = task;
+					task.fork();
+				}
+			}
+			
+			for (int i = 0; i < forked; i++)
+				forks[i].join();
+			
+			branch.size = to - from;
+		}
+	}
+	
+	final class LeafIterator implements Iterator<PointTreeMap.Leaf<E>>
+	{
+		@SuppressWarnings("unchecked")
+		private AbstractPointTreeMap<E>[] branches = (AbstractPointTreeMap<E>[]) new AbstractPointTreeMap<?>[8];
+		
+		private int[] slots = new int[8];
+		
+		private int depth;
+		
+		private int cursor;
+		
+		private Bucket<E> bucket;
+		
+		private int bucketIndex;
+		
+		private Leaf<E> lastReturned;
+		
+		private int expectedModCount = modCount;
+		
+		LeafIterator()
+		{
+			push(AbstractPointTreeMap.this, 0);
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return cursor < size;
+		}
+		
+		@Override
+		public PointTreeMap.Leaf<E> next()
+		{
+			checkForComodification();
+			if (cursor >= size)
+				throw new NoSuchElementException();
+			
+			while (true)
+			{
+				if (bucket != null)
+				{
+					if (bucketIndex < bucket.size)
+					{
+						cursor++;
+						return lastReturned = bucket.leaves[bucketIndex++];
+					}
+					bucket = null;
+				}
+				
+				AbstractPointTreeMap<E> branch = branches[depth - 1];
+				int i = slots[depth - 1];
+				
+				if (i == branch.nodes().length)
+				{
+					depth--;
+					continue;
+				}
+				
+				slots[depth - 1] = i + 1;
+				Node<E> node = branch.nodes()[i];
+				
+				if (node instanceof Leaf)
+				{
+					cursor++;
+					return lastReturned = (Leaf<E>) node;
+				}
+				
+				if (node instanceof Bucket)
+				{
+					bucket = (Bucket<E>) node;
+					bucketIndex = 0;
+				}
+				else if (node instanceof AbstractPointTreeMap)
+					push((AbstractPointTreeMap<E>) node, 0);
+			}
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			checkForComodification();
+			
+			AbstractPointTreeMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+			expectedModCount = modCount;
+			seek(--cursor);
+		}
+		
+		// Positions the stack in front of the leaf at the index, as the removal may have collapsed branches on the path
+		private void seek(int index)
+		{
+			depth = 0;
+			bucket = null;
+			if (index >= size)
+				return;
+			
+			AbstractPointTreeMap<E> branch = AbstractPointTreeMap.this;
+			
+			while (true)
+			{
+				Node<E>[] nodes = branch.nodes();
+				
+				for (int i = 0; i < nodes.length; i++)
+				{
+					int n = count(nodes[i]);
+					
+					if (index < n)
+					{
+						if (nodes[i] instanceof Leaf)
+						{
+							push(branch, i);
+							return;
+						}
+						push(branch, i + 1);
+						if (nodes[i] instanceof Bucket)
+						{
+							bucket = (Bucket<E>) nodes[i];
+							bucketIndex = index;
+							return;
+						}
+						branch = (AbstractPointTreeMap<E>) nodes[i];
+						break;
+					}
+					
+					index -= n;
+				}
+			}
+		}
+		
+		private void push(AbstractPointTreeMap<E> branch, int slot)
+		{
+			if (depth == branches.length)
+			{
+				branches = Arrays.copyOf(branches, depth * 2);
+				slots = Arrays.copyOf(slots, depth * 2);
+			}
+			branches[depth] = branch;
+			slots[depth++] = slot;
+		}
+		
+		private void checkForComodification()
+		{
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+	
+	final class KeySet extends AbstractSet<Point>
+	{
+		@Override
+		public Iterator<Point> iterator()
+		{
+			Iterator<PointTreeMap.Leaf<E>> it = leafIterator();
+			return new Iterator<Point>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return it.hasNext();
+				}
+				
+				@Override
+				public Point next()
+				{
+					return it.next()
+							 .getKey();
+				}
+				
+				@Override
+				public void remove()
+				{
+					it.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			return containsKey(o);
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!containsKey(o))
+				return false;
+			AbstractPointTreeMap.this.remove(o);
+			return true;
+		}
+		
+		@Override
+		public void clear()
+		{
+			AbstractPointTreeMap.this.clear();
+		}
+	}
+	
+	final class Values extends AbstractCollection<E>
+	{
+		@Override
+		public Iterator<E> iterator()
+		{
+			Iterator<PointTreeMap.Leaf<E>> it = leafIterator();
+			return new Iterator<E>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return it.hasNext();
+				}
+				
+				@Override
+				public E next()
+				{
+					return it.next()
+							 .getValue();
+				}
+				
+				@Override
+				public void remove()
+				{
+					it.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			return containsValue(o);
+		}
+		
+		@Override
+		public void clear()
+		{
+			AbstractPointTreeMap.this.clear();
+		}
+	}
+	
+	final class EntrySet extends AbstractSet<Entry<Point, E>>
+	{
+		@Override
+		public Iterator<Entry<Point, E>> iterator()
+		{
+			Iterator<PointTreeMap.Leaf<E>> it = leafIterator();
+			return new Iterator<Entry<Point, E>>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return it.hasNext();
+				}
+				
+				@Override
+				public Entry<Point, E> next()
+				{
+					return it.next();
+				}
+				
+				@Override
+				public void remove()
+				{
+					it.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			PointTreeMap.Leaf<E> leaf = e.getKey() instanceof Point ? getLeaf((Point) e.getKey()) : null;
+			return leaf != null && Objects.equals(leaf.getValue(), e.getValue());
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!contains(o))
+				return false;
+			AbstractPointTreeMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+		
+		@Override
+		public void clear()
+		{
+			AbstractPointTreeMap.this.clear();
+		}
+	}
+	
+	// A run of leaves sharing one slot, kept in insertion order
+	static final class Bucket<E> implements Node<E>
+	{
+		Leaf<E>[] leaves;
+		
+		int size;
+		
+		@SuppressWarnings("unchecked")
+		Bucket(int capacity)
+		{
+			leaves = (Leaf<E>[]) new Leaf<?>[capacity];
+		}
+		
+		int indexOf(Object key)
+		{
+			for (int i = 0; i < size; i++)
+				if (leaves[i].getKey()
+							 .equals(key))
+					return i;
+			return -1;
+		}
+		
+		void add(Leaf<E> leaf)
+		{
+			if (size == leaves.length)
+				leaves = Arrays.copyOf(leaves, size * 2);
+			leaves[size++] = leaf;
+		}
+		
+		void remove(int i)
+		{
+			System.arraycopy(leaves, i + 1, leaves, i, size - i - 1);
+			leaves[--size] = null;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return Arrays.toString(Arrays.copyOf(leaves, size));
+		}
+	}
+	
 	static class Leaf<E> implements PointTreeMap.Leaf<E>
 	{
 		private final Point key;
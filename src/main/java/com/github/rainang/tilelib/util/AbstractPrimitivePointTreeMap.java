@@ -0,0 +1,169 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.MutablePoint;
+import com.github.rainang.tilelib.geometry.Point;
+
+/**
+ * The base of the linear tree maps with primitive values. Keys are held in a {@link MortonIndex} next to an array of
+ * the value type, created by the subclass.
+ */
+abstract class AbstractPrimitivePointTreeMap
+{
+	final AABB bounds;
+	
+	final MortonIndex index;
+	
+	AbstractPrimitivePointTreeMap(AABB bounds, int dimensions)
+	{
+		this.bounds = bounds;
+		this.index = new MortonIndex(bounds, dimensions)
+		{
+			@Override
+			Object newValues(int capacity)
+			{
+				return AbstractPrimitivePointTreeMap.this.newValues(capacity);
+			}
+		};
+	}
+	
+	abstract Object newValues(int capacity);
+	
+	abstract Object valueAt(int i);
+	
+	// References
+	
+	int find(int x, int y)
+	{
+		return bounds.contains(x, y) ? index.find(index.code(x, y)) : MortonIndex.ABSENT;
+	}
+	
+	int find(int x, int y, int z)
+	{
+		return ((AABB3) bounds).contains(x, y, z) ? index.find(index.code(x, y, z)) : MortonIndex.ABSENT;
+	}
+	
+	int find(Point key)
+	{
+		if (key.dimensions() != dimensions())
+			return MortonIndex.ABSENT;
+		return dimensions() == 2 ? find(key.x(), key.y()) : find(key.x(), key.y(), key.z());
+	}
+	
+	int slot(int x, int y)
+	{
+		return bounds.contains(x, y) ? index.slot(index.code(x, y)) : MortonIndex.ABSENT;
+	}
+	
+	int slot(int x, int y, int z)
+	{
+		return ((AABB3) bounds).contains(x, y, z) ? index.slot(index.code(x, y, z)) : MortonIndex.ABSENT;
+	}
+	
+	int slot(Point key)
+	{
+		if (key.dimensions() != dimensions())
+			return MortonIndex.ABSENT;
+		return dimensions() == 2 ? slot(key.x(), key.y()) : slot(key.x(), key.y(), key.z());
+	}
+	
+	boolean removeAt(int ref)
+	{
+		if (ref == MortonIndex.ABSENT)
+			return false;
+		index.removeAt(ref);
+		return true;
+	}
+	
+	// Query Operations
+	
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	public int dimensions()
+	{
+		return index.dimensions;
+	}
+	
+	public int size()
+	{
+		return index.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return index.size() == 0;
+	}
+	
+	public boolean containsKey(Point key)
+	{
+		return find(key) != MortonIndex.ABSENT;
+	}
+	
+	public int count(AABB window)
+	{
+		int[] count = new int[1];
+		forEachIn(window, (key, i) -> count[0]++);
+		return count[0];
+	}
+	
+	// Modification Operations
+	
+	public boolean remove(Point key)
+	{
+		return removeAt(find(key));
+	}
+	
+	public void clear()
+	{
+		index.clear();
+	}
+	
+	// Iteration
+	
+	/**
+	 * Calls the action with the key and main run slot of every entry in order. The key is a single mutable point that
+	 * is reused between calls.
+	 */
+	void forEachSlot(SlotConsumer action)
+	{
+		index.flush();
+		MutablePoint p = index.newPoint();
+		for (int i = 0; i < index.length; i++)
+			action.accept(index.decode(index.codes[i], p), i);
+	}
+	
+	void forEachIn(AABB window, SlotConsumer action)
+	{
+		AABB w = AbstractPointTreeMap.project(window, dimensions());
+		index.flush();
+		MutablePoint p = index.newPoint();
+		index.ranges(w, (from, to, inside) ->
+		{
+			for (int i = from; i < to; i++)
+				if (w.contains(index.decode(index.codes[i], p)) || inside)
+					action.accept(p, i);
+		});
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("{");
+		forEachSlot((key, i) -> sb.append(sb.length() > 1 ? ", " : "")
+								  .append(key.asImmutable())
+								  .append('=')
+								  .append(valueAt(i)));
+		return sb.append('}')
+				 .toString();
+	}
+	
+	@FunctionalInterface
+	interface SlotConsumer
+	{
+		void accept(MutablePoint key, int i);
+	}
+}
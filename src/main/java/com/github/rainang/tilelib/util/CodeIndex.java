@@ -0,0 +1,283 @@
+package com.github.rainang.tilelib.util;
+
+import java.util.Arrays;
+
+/**
+ * A sorted array of <code>long</code> codes with a parallel array of values.
+ * <p>
+ * New codes are collected in a small sorted pending run and removed codes are marked in a bitset. Both are merged into
+ * the main run once the pending run is full, or before any ordered access through {@link #flush()}. Slots are passed
+ * around as references: a reference <code>i &gt;= 0</code> is slot <code>i</code> of the main run, and a negative
+ * reference <code>~i</code> is slot <code>i</code> of the pending run.</p>
+ * <p>
+ * The values are stored in arrays created by {@link #newValues(int)}, which subclasses implement for their element
+ * type. Codes must be non-negative.</p>
+ */
+abstract class CodeIndex
+{
+	static final int ABSENT = Integer.MIN_VALUE;
+	
+	private static final int MIN_PENDING = 32;
+	
+	long[] codes = new long[0];
+	
+	Object values;
+	
+	int length;
+	
+	long[] pendingCodes = new long[MIN_PENDING];
+	
+	Object pendingValues;
+	
+	int pendingSize;
+	
+	private long[] removed = new long[0];
+	
+	private int removedCount;
+	
+	boolean added;
+	
+	int modCount;
+	
+	CodeIndex()
+	{
+		this.values = newValues(0);
+		this.pendingValues = newValues(MIN_PENDING);
+	}
+	
+	abstract Object newValues(int capacity);
+	
+	void clearValue(Object values, int i) {}
+	
+	// Query Operations
+	
+	int size()
+	{
+		return length - removedCount + pendingSize;
+	}
+	
+	int find(long code)
+	{
+		int i = Arrays.binarySearch(codes, 0, length, code);
+		if (i >= 0)
+			return isRemoved(i) ? ABSENT : i;
+		
+		int j = Arrays.binarySearch(pendingCodes, 0, pendingSize, code);
+		return j >= 0 ? ~j : ABSENT;
+	}
+	
+	int lowerBound(long code, int from, int to)
+	{
+		while (from < to)
+		{
+			int mid = (from + to) >>> 1;
+			if (codes[mid] < code)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+	
+	// Returns the estimated heap size of the arrays, given the size of a value
+	long arrayBytes(int valueBytes)
+	{
+		return TreeStatistics.arrayBytes(codes.length, Long.BYTES + valueBytes) + TreeStatistics.arrayBytes(
+				pendingCodes.length, Long.BYTES + valueBytes) + TreeStatistics.arrayBytes(removed.length, Long.BYTES) +
+				TreeStatistics.ARRAY_HEADER * 2;
+	}
+	
+	// Modification Operations
+	
+	/**
+	 * Returns the reference of the slot of the code, adding the code if it is absent. {@link #added} tells whether the
+	 * code was added.
+	 */
+	int slot(long code)
+	{
+		int i = Arrays.binarySearch(codes, 0, length, code);
+		if (i >= 0)
+		{
+			added = isRemoved(i);
+			if (added)
+			{
+				removed[i >>> 6] &= ~(1L << i);
+				removedCount--;
+				modCount++;
+			}
+			return i;
+		}
+		
+		int j = Arrays.binarySearch(pendingCodes, 0, pendingSize, code);
+		if (j >= 0)
+		{
+			added = false;
+			return ~j;
+		}
+		
+		if (pendingSize == pendingCodes.length)
+		{
+			flush();
+			j = -1; // the pending run is empty after a flush
+		}
+		
+		j = ~j;
+		System.arraycopy(pendingCodes, j, pendingCodes, j + 1, pendingSize - j);
+		System.arraycopy(pendingValues, j, pendingValues, j + 1, pendingSize - j);
+		pendingCodes[j] = code;
+		pendingSize++;
+		added = true;
+		modCount++;
+		return ~j;
+	}
+	
+	void removeAt(int ref)
+	{
+		if (ref >= 0)
+		{
+			removed[ref >>> 6] |= 1L << ref;
+			removedCount++;
+			clearValue(values, ref);
+		}
+		else
+		{
+			int j = ~ref;
+			System.arraycopy(pendingCodes, j + 1, pendingCodes, j, pendingSize - j - 1);
+			System.arraycopy(pendingValues, j + 1, pendingValues, j, pendingSize - j - 1);
+			clearValue(pendingValues, --pendingSize);
+		}
+		modCount++;
+	}
+	
+	void clear()
+	{
+		codes = new long[0];
+		values = newValues(0);
+		length = 0;
+		removed = new long[0];
+		removedCount = 0;
+		resetPending(MIN_PENDING);
+		modCount++;
+	}
+	
+	// Merges
+	
+	/**
+	 * Merges the pending run into the main run and drops removed codes. Afterwards the main run holds every code in
+	 * order.
+	 */
+	void flush()
+	{
+		if (pendingSize == 0 && removedCount == 0)
+			return;
+		
+		int n = size();
+		long[] c = new long[n];
+		Object v = newValues(n);
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		
+		while (i < length || j < pendingSize)
+			if (j < pendingSize && (i == length || pendingCodes[j] < codes[i]))
+			{
+				c[k] = pendingCodes[j];
+				System.arraycopy(pendingValues, j++, v, k++, 1);
+			}
+			else if (isRemoved(i))
+				i++;
+			else
+			{
+				long limit = j < pendingSize ? pendingCodes[j] : Long.MAX_VALUE;
+				int end = i + 1;
+				while (end < length && codes[end] < limit && !isRemoved(end))
+					end++;
+				System.arraycopy(codes, i, c, k, end - i);
+				System.arraycopy(values, i, v, k, end - i);
+				k += end - i;
+				i = end;
+			}
+		
+		setMain(c, v, n);
+	}
+	
+	/**
+	 * Merges a sorted run of distinct codes into the index. Values of the run replace the values of equal codes.
+	 */
+	void merge(long[] c2, Object v2, int n2)
+	{
+		flush();
+		
+		long[] c = new long[length + n2];
+		Object v = newValues(length + n2);
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		
+		while (i < length && j < n2)
+		{
+			if (codes[i] < c2[j])
+			{
+				c[k] = codes[i];
+				System.arraycopy(values, i++, v, k++, 1);
+				continue;
+			}
+			if (codes[i] == c2[j])
+				i++;
+			c[k] = c2[j];
+			System.arraycopy(v2, j++, v, k++, 1);
+		}
+		
+		System.arraycopy(codes, i, c, k, length - i);
+		System.arraycopy(values, i, v, k, length - i);
+		k += length - i;
+		System.arraycopy(c2, j, c, k, n2 - j);
+		System.arraycopy(v2, j, v, k, n2 - j);
+		k += n2 - j;
+		
+		setMain(k == c.length ? c : Arrays.copyOf(c, k), k == c.length ? v : copyValues(v, k), k);
+		modCount++;
+	}
+	
+	void copyFrom(CodeIndex src)
+	{
+		src.flush();
+		setMain(Arrays.copyOf(src.codes, src.length), copyValues(src.values, src.length), src.length);
+	}
+	
+	private void setMain(long[] c, Object v, int n)
+	{
+		codes = c;
+		values = v;
+		length = n;
+		removed = new long[n + 63 >>> 6];
+		removedCount = 0;
+		resetPending(Math.max(MIN_PENDING, (int) Math.sqrt(n)));
+		modCount++;
+	}
+	
+	private void resetPending(int capacity)
+	{
+		pendingCodes = new long[capacity];
+		pendingValues = newValues(capacity);
+		pendingSize = 0;
+	}
+	
+	private Object copyValues(Object v, int n)
+	{
+		Object copy = newValues(n);
+		System.arraycopy(v, 0, copy, 0, n);
+		return copy;
+	}
+	
+	private boolean isRemoved(int i)
+	{
+		return removedCount > 0 && (removed[i >>> 6] & 1L << i) != 0;
+	}
+	
+	@FunctionalInterface
+	interface RangeConsumer
+	{
+		void accept(int from, int to, boolean inside);
+	}
+}
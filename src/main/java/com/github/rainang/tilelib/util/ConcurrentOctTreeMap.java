@@ -0,0 +1,60 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+/**
+ * A thread-safe octree map. Lookups and iteration never block, and writers change single slots with compare-and-set,
+ * so threads working in different regions of the map do not contend. Branches holding a single leaf or none are
+ * collapsed after removals.
+ * <p>
+ * Like {@link java.util.concurrent.ConcurrentHashMap}, the map does not permit <code>null</code> values and its
+ * iterators are weakly consistent. Keys outside the bounds of the map are ignored.</p>
+ */
+public class ConcurrentOctTreeMap<E> extends AbstractConcurrentPointTreeMap<E>
+{
+	public ConcurrentOctTreeMap(int factor, boolean center)
+	{
+		super(LinearOctTreeMap.bounds(factor, center), 3);
+	}
+	
+	@Override
+	public AABB3 bounds()
+	{
+		return (AABB3) super.bounds();
+	}
+	
+	@Override
+	AABB childBounds(AABB bounds, int index)
+	{
+		AABB3 b = (AABB3) bounds;
+		
+		int x = b.x();
+		int y = b.y();
+		int z = b.z();
+		int w = b.width() / 2;
+		int h = b.height() / 2;
+		int l = b.length() / 2;
+		
+		if ((index | 1) == index)
+			x += w;
+		if ((index | 2) == index)
+			y += h;
+		if ((index | 4) == index)
+			z += l;
+		
+		return new AABB3(Points.at(x, y, z), Points.at(w, h, l));
+	}
+	
+	@Override
+	int leafIndex(AABB bounds, Point key)
+	{
+		AABB3 b = (AABB3) bounds;
+		int i = key.x() < b.centerX() ? 0 : 1;
+		i |= key.y() < b.centerY() ? 0 : 2;
+		i |= key.z() < b.centerZ() ? 0 : 4;
+		return i;
+	}
+}
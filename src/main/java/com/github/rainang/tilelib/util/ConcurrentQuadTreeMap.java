@@ -0,0 +1,45 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+/**
+ * A thread-safe quadtree map. Lookups and iteration never block, and writers change single slots with
+ * compare-and-set, so threads working in different regions of the map do not contend. Branches holding a single leaf
+ * or none are collapsed after removals.
+ * <p>
+ * Like {@link java.util.concurrent.ConcurrentHashMap}, the map does not permit <code>null</code> values and its
+ * iterators are weakly consistent. Keys outside the bounds of the map are ignored.</p>
+ */
+public class ConcurrentQuadTreeMap<E> extends AbstractConcurrentPointTreeMap<E>
+{
+	public ConcurrentQuadTreeMap(int factor, boolean center)
+	{
+		super(LinearQuadTreeMap.bounds(factor, center), 2);
+	}
+	
+	@Override
+	AABB childBounds(AABB bounds, int index)
+	{
+		int x = bounds.x();
+		int y = bounds.y();
+		int w = bounds.width() / 2;
+		int h = bounds.height() / 2;
+		
+		if ((index | 1) == index)
+			x += w;
+		if ((index | 2) == index)
+			y += h;
+		
+		return new AABB(Points.at(x, y), Points.at(w, h));
+	}
+	
+	@Override
+	int leafIndex(AABB bounds, Point key)
+	{
+		int i = key.x() < bounds.centerX() ? 0 : 1;
+		i |= key.y() < bounds.centerY() ? 0 : 2;
+		return i;
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+
+/**
+ * A quadtree map from points to <code>double</code> values, storing its keys as sorted Morton codes like a
+ * {@link LinearQuadTreeMap} and its values in a <code>double[]</code>, without boxing.
+ * <p>
+ * Absent keys are answered with the <code>missing</code> value given to the lookup. The point passed to
+ * <code>forEach</code> and <code>query</code> actions is reused between calls and must be copied to be kept.</p>
+ */
+public class DoubleQuadTreeMap extends AbstractDoublePointTreeMap
+{
+	public DoubleQuadTreeMap(int factor, boolean center)
+	{
+		this(LinearQuadTreeMap.bounds(factor, center));
+	}
+	
+	private DoubleQuadTreeMap(AABB bounds)
+	{
+		super(bounds, 2);
+	}
+	
+	public DoubleQuadTreeMap copy()
+	{
+		DoubleQuadTreeMap tree = new DoubleQuadTreeMap(bounds);
+		tree.index.copyFrom(index);
+		return tree;
+	}
+	
+	@Override
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	public boolean containsKey(int x, int y)
+	{
+		return find(x, y) != MortonIndex.ABSENT;
+	}
+	
+	public double get(int x, int y, double missing)
+	{
+		return getAt(find(x, y), missing);
+	}
+	
+	public boolean put(int x, int y, double value)
+	{
+		return putAt(slot(x, y), value);
+	}
+	
+	public boolean remove(int x, int y)
+	{
+		return removeAt(find(x, y));
+	}
+}
@@ -0,0 +1,456 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.HexIndex;
+import com.github.rainang.tilelib.geometry.MutablePoint;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A map of hex points stored by their {@link HexIndex} id, in a sorted array like {@link LinearQuadTreeMap}. Every
+ * cell of the hex hierarchy is a contiguous run of the array, so range queries descend the cells instead of boxes.
+ * Keys that are not hex points, or lie out of range of the index, are ignored.
+ */
+public class HexTreeMap<E> extends AbstractMap<Point, E>
+{
+	private static final int SCAN = 16;
+	
+	final CodeIndex index = new CodeIndex()
+	{
+		@Override
+		Object newValues(int capacity)
+		{
+			return new Object[capacity];
+		}
+		
+		@Override
+		void clearValue(Object values, int i)
+		{
+			((Object[]) values)[i] = null;
+		}
+	};
+	
+	private Set<Entry<Point, E>> entrySet;
+	
+	// Returns the id of the key, or -1 if the key is not a hex point in range of the index
+	private static long id(Object key)
+	{
+		if (!(key instanceof Point) || !Points.isHexPoint((Point) key))
+			return -1;
+		return HexIndex.find(((Point) key).x(), ((Point) key).y());
+	}
+	
+	private int find(Object key)
+	{
+		long id = id(key);
+		return id < 0 ? CodeIndex.ABSENT : index.find(id);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private E value(int ref)
+	{
+		return (E) (ref >= 0 ? ((Object[]) index.values)[ref] : ((Object[]) index.pendingValues)[~ref]);
+	}
+	
+	private void setValue(int ref, E value)
+	{
+		if (ref >= 0)
+			((Object[]) index.values)[ref] = value;
+		else
+			((Object[]) index.pendingValues)[~ref] = value;
+	}
+	
+	private Entry<Point, E> entryAt(int i)
+	{
+		return new HexEntry(HexIndex.toHex(index.codes[i]), i);
+	}
+	
+	// Query Operations
+	
+	@Override
+	public int size()
+	{
+		return index.size();
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return index.size() == 0;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return find(key) != CodeIndex.ABSENT;
+	}
+	
+	@Override
+	public boolean containsValue(Object value)
+	{
+		index.flush();
+		Object[] values = (Object[]) index.values;
+		for (int i = 0; i < index.length; i++)
+			if (Objects.equals(values[i], value))
+				return true;
+		return false;
+	}
+	
+	@Override
+	public E get(Object key)
+	{
+		int ref = find(key);
+		return ref == CodeIndex.ABSENT ? null : value(ref);
+	}
+	
+	/**
+	 * Calls the consumer with every entry whose key lies in a cell of the {@link HexIndex}, in id order.
+	 *
+	 * @param id       the id of the cell
+	 * @param level    the level of the cell
+	 * @param consumer the consumer
+	 */
+	public void cell(long id, int level, Consumer<? super Entry<Point, E>> consumer)
+	{
+		index.flush();
+		int from = index.lowerBound(HexIndex.first(id, level), 0, index.length);
+		int to = index.lowerBound(HexIndex.end(id, level), from, index.length);
+		for (int i = from; i < to; i++)
+			consumer.accept(entryAt(i));
+	}
+	
+	/**
+	 * Calls the consumer with every entry whose key lies within a hex distance of the center, in id order.
+	 *
+	 * @param center   the center hex
+	 * @param radius   the largest distance from the center
+	 * @param consumer the consumer
+	 */
+	public void range(Point center, int radius, Consumer<? super Entry<Point, E>> consumer)
+	{
+		range(center, radius, (from, to, inside) ->
+		{
+			for (int i = from; i < to; i++)
+				if (inside || within(center, radius, index.codes[i]))
+					consumer.accept(entryAt(i));
+		});
+	}
+	
+	/**
+	 * Returns the number of keys within a hex distance of the center.
+	 *
+	 * @param center the center hex
+	 * @param radius the largest distance from the center
+	 *
+	 * @return the number of keys in range
+	 */
+	public int count(Point center, int radius)
+	{
+		int[] count = new int[1];
+		range(center, radius, (from, to, inside) ->
+		{
+			if (inside)
+				count[0] += to - from;
+			else
+				for (int i = from; i < to; i++)
+					if (within(center, radius, index.codes[i]))
+						count[0]++;
+		});
+		return count[0];
+	}
+	
+	private static boolean within(Point center, int radius, long id)
+	{
+		Point p = HexIndex.toHex(id);
+		return HexIndex.distance((long) p.x() - center.x(), (long) p.y() - center.y()) <= radius;
+	}
+	
+	private void range(Point center, int radius, CodeIndex.RangeConsumer action)
+	{
+		index.flush();
+		if (radius >= 0 && index.length > 0)
+			range(center, radius, 0, HexIndex.LEVELS, 0, index.length, Points.mutableHexAt(0, 0), action);
+	}
+	
+	// Calls the action with the runs of cells in range, given the cell and its run of the index
+	private void range(Point center, long radius, long id, int level, int from, int to, MutablePoint c,
+			CodeIndex.RangeConsumer action)
+	{
+		HexIndex.center(id, level, c);
+		long d = HexIndex.distance((long) c.x() - center.x(), (long) c.y() - center.y());
+		
+		if (d > radius + HexIndex.radius(level))
+			return;
+		
+		boolean inside = d + HexIndex.radius(level) <= radius;
+		
+		if (inside || level == 0 || to - from <= SCAN)
+		{
+			action.accept(from, to, inside);
+			return;
+		}
+		
+		for (int digit = 0, i = from; digit < HexIndex.APERTURE && i < to; digit++)
+		{
+			long child = HexIndex.child(id, digit);
+			int j = index.lowerBound(HexIndex.end(child, level - 1), i, to);
+			if (j > i)
+				range(center, radius, child, level - 1, i, j, c, action);
+			i = j;
+		}
+	}
+	
+	// Modification Operations
+	
+	/**
+	 * Associates the value with the key. Keys that are not hex points or lie out of range of the {@link HexIndex} are
+	 * ignored.
+	 *
+	 * @return the previous value of the key, or <code>null</code> if there was none or the key was ignored
+	 */
+	@Override
+	public E put(Point key, E value)
+	{
+		long id = id(key);
+		if (id < 0)
+			return null;
+		
+		int ref = index.slot(id);
+		E oldValue = index.added ? null : value(ref);
+		setValue(ref, value);
+		return oldValue;
+	}
+	
+	@Override
+	public E remove(Object key)
+	{
+		int ref = find(key);
+		if (ref == CodeIndex.ABSENT)
+			return null;
+		
+		E oldValue = value(ref);
+		index.removeAt(ref);
+		return oldValue;
+	}
+	
+	// Bulk Operations
+	
+	@Override
+	public void putAll(Map<? extends Point, ? extends E> m)
+	{
+		if (m.size() * 8 < size())
+		{
+			m.forEach(this::put);
+			return;
+		}
+		
+		long[] ids = new long[m.size()];
+		Object[] values = new Object[ids.length];
+		int n = 0;
+		
+		for (Entry<? extends Point, ? extends E> e : m.entrySet())
+		{
+			long id = id(e.getKey());
+			if (id >= 0)
+			{
+				ids[n] = id;
+				values[n++] = e.getValue();
+			}
+		}
+		
+		if (n < ids.length)
+		{
+			ids = Arrays.copyOf(ids, n);
+			values = Arrays.copyOf(values, n);
+		}
+		
+		Points.sortByCode(ids, values);
+		
+		// Keeps the last of equal keys, as the sort is stable
+		int size = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (size > 0 && ids[size - 1] == ids[i])
+				size--;
+			ids[size] = ids[i];
+			values[size++] = values[i];
+		}
+		
+		index.merge(ids, values, size);
+	}
+	
+	@Override
+	public void clear()
+	{
+		index.clear();
+	}
+	
+	// Views
+	
+	@Override
+	public Set<Entry<Point, E>> entrySet()
+	{
+		Set<Entry<Point, E>> es = entrySet;
+		return es == null ? entrySet = new EntrySet() : es;
+	}
+	
+	final class EntrySet extends AbstractSet<Entry<Point, E>>
+	{
+		@Override
+		public Iterator<Entry<Point, E>> iterator()
+		{
+			index.flush();
+			return new Iterator<Entry<Point, E>>()
+			{
+				private int cursor;
+				
+				private int lastReturned = -1;
+				
+				private int expectedModCount = index.modCount;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return cursor < index.length;
+				}
+				
+				@Override
+				public Entry<Point, E> next()
+				{
+					if (index.modCount != expectedModCount)
+						throw new ConcurrentModificationException();
+					if (cursor >= index.length)
+						throw new NoSuchElementException();
+					return entryAt(lastReturned = cursor++);
+				}
+				
+				// Removed slots stay in place until the next flush, so the cursor remains valid
+				@Override
+				public void remove()
+				{
+					if (lastReturned < 0)
+						throw new IllegalStateException();
+					if (index.modCount != expectedModCount)
+						throw new ConcurrentModificationException();
+					
+					index.removeAt(lastReturned);
+					lastReturned = -1;
+					expectedModCount = index.modCount;
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return HexTreeMap.this.size();
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			int ref = find(e.getKey());
+			return ref != CodeIndex.ABSENT && Objects.equals(value(ref), e.getValue());
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!contains(o))
+				return false;
+			HexTreeMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+		
+		@Override
+		public void clear()
+		{
+			HexTreeMap.this.clear();
+		}
+	}
+	
+	// Entries look their slot up again once the index has changed
+	final class HexEntry implements Entry<Point, E>
+	{
+		private final Point key;
+		
+		private int ref;
+		
+		private int expectedModCount;
+		
+		HexEntry(Point key, int ref)
+		{
+			this.key = key;
+			this.ref = ref;
+			this.expectedModCount = index.modCount;
+		}
+		
+		private int ref()
+		{
+			if (expectedModCount != index.modCount)
+			{
+				ref = find(key);
+				expectedModCount = index.modCount;
+			}
+			return ref;
+		}
+		
+		@Override
+		public Point getKey()
+		{
+			return key;
+		}
+		
+		@Override
+		public E getValue()
+		{
+			int ref = ref();
+			return ref == CodeIndex.ABSENT ? null : value(ref);
+		}
+		
+		@Override
+		public E setValue(E value)
+		{
+			int ref = ref();
+			if (ref == CodeIndex.ABSENT)
+				throw new IllegalStateException();
+			E oldValue = value(ref);
+			HexTreeMap.this.setValue(ref, value);
+			return oldValue;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return key.hashCode() ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public String toString()
+		{
+			return key + "=" + getValue();
+		}
+	}
+}
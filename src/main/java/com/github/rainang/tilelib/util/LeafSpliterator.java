@@ -0,0 +1,168 @@
+package com.github.rainang.tilelib.util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+final class LeafSpliterator<E> implements Spliterator<PointTreeMap.Leaf<E>>
+{
+	private final AbstractPointTreeMap<E> tree;
+	
+	private final int expectedModCount;
+	
+	private AbstractPointTreeMap<E> branch;
+	
+	private int from;
+	
+	private int to;
+	
+	private int size;
+	
+	private AbstractPointTreeMap<E>[] branches;
+	
+	private int[] slots;
+	
+	private int depth;
+	
+	private AbstractPointTreeMap.Bucket<E> bucket;
+	
+	private int bucketIndex;
+	
+	LeafSpliterator(AbstractPointTreeMap<E> tree)
+	{
+		this(tree, tree.modCount, tree, 0, tree.nodes().length, tree.size);
+	}
+	
+	private LeafSpliterator(AbstractPointTreeMap<E> tree, int expectedModCount, AbstractPointTreeMap<E> branch, int from,
+			int to, int size)
+	{
+		this.tree = tree;
+		this.expectedModCount = expectedModCount;
+		this.branch = branch;
+		this.from = from;
+		this.to = to;
+		this.size = size;
+	}
+	
+	@Override
+	public Spliterator<PointTreeMap.Leaf<E>> trySplit()
+	{
+		if (branches != null)
+			return null;
+		
+		while (to - from == 1 && branch.nodes()[from] instanceof AbstractPointTreeMap)
+		{
+			branch = (AbstractPointTreeMap<E>) branch.nodes()[from];
+			from = 0;
+			to = branch.nodes().length;
+		}
+		
+		if (to - from < 2)
+			return null;
+		
+		int mid = (from + to) >>> 1;
+		int n = 0;
+		for (int i = from; i < mid; i++)
+			n += AbstractPointTreeMap.count(branch.nodes()[i]);
+		
+		LeafSpliterator<E> prefix = new LeafSpliterator<>(tree, expectedModCount, branch, from, mid, n);
+		from = mid;
+		size -= n;
+		return prefix;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super PointTreeMap.Leaf<E>> action)
+	{
+		if (tree.modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+		
+		if (branches == null)
+		{
+			branches = newBranches(8);
+			slots = new int[8];
+			push(branch, from);
+		}
+		
+		while (depth > 0 || bucket != null)
+		{
+			if (bucket != null)
+			{
+				if (bucketIndex < bucket.size)
+				{
+					size--;
+					action.accept(bucket.leaves[bucketIndex++]);
+					return true;
+				}
+				bucket = null;
+				continue;
+			}
+			
+			AbstractPointTreeMap<E> b = branches[depth - 1];
+			int i = slots[depth - 1];
+			
+			if (i == (depth == 1 ? to : b.nodes().length))
+			{
+				depth--;
+				continue;
+			}
+			
+			slots[depth - 1] = i + 1;
+			Node<E> node = b.nodes()[i];
+			
+			if (node instanceof PointTreeMap.Leaf)
+			{
+				size--;
+				action.accept((PointTreeMap.Leaf<E>) node);
+				return true;
+			}
+			
+			if (node instanceof AbstractPointTreeMap.Bucket)
+			{
+				bucket = (AbstractPointTreeMap.Bucket<E>) node;
+				bucketIndex = 0;
+			}
+			else if (node instanceof AbstractPointTreeMap)
+				push((AbstractPointTreeMap<E>) node, 0);
+		}
+		
+		return false;
+	}
+	
+	@Override
+	public void forEachRemaining(Consumer<? super PointTreeMap.Leaf<E>> action)
+	{
+		while (tryAdvance(action))
+			;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <E> AbstractPointTreeMap<E>[] newBranches(int length)
+	{
+		return (AbstractPointTreeMap<E>[]) new AbstractPointTreeMap<?>[length];
+	}
+	
+	private void push(AbstractPointTreeMap<E> branch, int slot)
+	{
+		if (depth == branches.length)
+		{
+			branches = Arrays.copyOf(branches, depth * 2);
+			slots = Arrays.copyOf(slots, depth * 2);
+		}
+		branches[depth] = branch;
+		slots[depth++] = slot;
+	}
+	
+	@Override
+	public long estimateSize()
+	{
+		return size;
+	}
+	
+	@Override
+	public int characteristics()
+	{
+		return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+	}
+}
@@ -0,0 +1,63 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.util.Map;
+
+/**
+ * An octree map without branch objects, storing its keys as a sorted array of Morton codes next to an array of
+ * values.
+ * <p>
+ * Lookups are binary searches. New keys are collected in a small sorted run that is merged into the main arrays once
+ * it fills up, and removed keys are dropped on the next merge. Window queries scan the Morton intervals of the cells
+ * covering the window. The map suits large, mostly static maps, as it takes a fraction of the memory of a
+ * {@link OctTreeMap}.</p>
+ */
+public class LinearOctTreeMap<E> extends AbstractLinearPointTreeMap<E>
+{
+	public LinearOctTreeMap(int factor, boolean center)
+	{
+		this(bounds(factor, center));
+	}
+	
+	private LinearOctTreeMap(AABB3 bounds)
+	{
+		super(bounds, 3);
+	}
+	
+	static AABB3 bounds(int factor, boolean center)
+	{
+		factor = (int) Math.pow(2, factor);
+		int min = center ? -factor / 2 : 0;
+		return new AABB3(Points.at(min, min, min), Points.at(factor, factor, factor));
+	}
+	
+	public static <E> LinearOctTreeMap<E> bulkLoad(int factor, boolean center, Map<? extends Point, ? extends E> m)
+	{
+		LinearOctTreeMap<E> tree = new LinearOctTreeMap<>(factor, center);
+		tree.putAll(m);
+		return tree;
+	}
+	
+	@Override
+	public LinearOctTreeMap<E> copy()
+	{
+		LinearOctTreeMap<E> tree = new LinearOctTreeMap<>((AABB3) bounds);
+		tree.index.copyFrom(index);
+		return tree;
+	}
+	
+	@Override
+	public AABB3 bounds()
+	{
+		return (AABB3) bounds;
+	}
+	
+	@Override
+	public int dimensions()
+	{
+		return 3;
+	}
+}
@@ -0,0 +1,63 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.util.Map;
+
+/**
+ * A quadtree map without branch objects, storing its keys as a sorted array of Morton codes next to an array of
+ * values.
+ * <p>
+ * Lookups are binary searches. New keys are collected in a small sorted run that is merged into the main arrays once
+ * it fills up, and removed keys are dropped on the next merge. Window queries scan the Morton intervals of the cells
+ * covering the window. The map suits large, mostly static maps, as it takes a fraction of the memory of a
+ * {@link QuadTreeMap}.</p>
+ */
+public class LinearQuadTreeMap<E> extends AbstractLinearPointTreeMap<E>
+{
+	public LinearQuadTreeMap(int factor, boolean center)
+	{
+		this(bounds(factor, center));
+	}
+	
+	private LinearQuadTreeMap(AABB bounds)
+	{
+		super(bounds, 2);
+	}
+	
+	static AABB bounds(int factor, boolean center)
+	{
+		factor = (int) Math.pow(2, factor);
+		int min = center ? -factor / 2 : 0;
+		return new AABB(Points.at(min, min), Points.at(factor, factor));
+	}
+	
+	public static <E> LinearQuadTreeMap<E> bulkLoad(int factor, boolean center, Map<? extends Point, ? extends E> m)
+	{
+		LinearQuadTreeMap<E> tree = new LinearQuadTreeMap<>(factor, center);
+		tree.putAll(m);
+		return tree;
+	}
+	
+	@Override
+	public LinearQuadTreeMap<E> copy()
+	{
+		LinearQuadTreeMap<E> tree = new LinearQuadTreeMap<>(bounds);
+		tree.index.copyFrom(index);
+		return tree;
+	}
+	
+	@Override
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	@Override
+	public int dimensions()
+	{
+		return 2;
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB3;
+
+/**
+ * An octree map from points to <code>long</code> values, storing its keys as sorted Morton codes like a
+ * {@link LinearOctTreeMap} and its values in a <code>long[]</code>, without boxing.
+ * <p>
+ * Absent keys are answered with the <code>missing</code> value given to the lookup. The point passed to
+ * <code>forEach</code> and <code>query</code> actions is reused between calls and must be copied to be kept.</p>
+ */
+public class LongOctTreeMap extends AbstractLongPointTreeMap
+{
+	public LongOctTreeMap(int factor, boolean center)
+	{
+		this(LinearOctTreeMap.bounds(factor, center));
+	}
+	
+	private LongOctTreeMap(AABB3 bounds)
+	{
+		super(bounds, 3);
+	}
+	
+	public LongOctTreeMap copy()
+	{
+		LongOctTreeMap tree = new LongOctTreeMap((AABB3) bounds);
+		tree.index.copyFrom(index);
+		return tree;
+	}
+	
+	@Override
+	public AABB3 bounds()
+	{
+		return (AABB3) bounds;
+	}
+	
+	public boolean containsKey(int x, int y, int z)
+	{
+		return find(x, y, z) != MortonIndex.ABSENT;
+	}
+	
+	public long get(int x, int y, int z, long missing)
+	{
+		return getAt(find(x, y, z), missing);
+	}
+	
+	public boolean put(int x, int y, int z, long value)
+	{
+		return putAt(slot(x, y, z), value);
+	}
+	
+	public boolean remove(int x, int y, int z)
+	{
+		return removeAt(find(x, y, z));
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+
+/**
+ * A quadtree map from points to <code>long</code> values, storing its keys as sorted Morton codes like a
+ * {@link LinearQuadTreeMap} and its values in a <code>long[]</code>, without boxing.
+ * <p>
+ * Absent keys are answered with the <code>missing</code> value given to the lookup. The point passed to
+ * <code>forEach</code> and <code>query</code> actions is reused between calls and must be copied to be kept.</p>
+ */
+public class LongQuadTreeMap extends AbstractLongPointTreeMap
+{
+	public LongQuadTreeMap(int factor, boolean center)
+	{
+		this(LinearQuadTreeMap.bounds(factor, center));
+	}
+	
+	private LongQuadTreeMap(AABB bounds)
+	{
+		super(bounds, 2);
+	}
+	
+	public LongQuadTreeMap copy()
+	{
+		LongQuadTreeMap tree = new LongQuadTreeMap(bounds);
+		tree.index.copyFrom(index);
+		return tree;
+	}
+	
+	@Override
+	public AABB bounds()
+	{
+		return bounds;
+	}
+	
+	public boolean containsKey(int x, int y)
+	{
+		return find(x, y) != MortonIndex.ABSENT;
+	}
+	
+	public long get(int x, int y, long missing)
+	{
+		return getAt(find(x, y), missing);
+	}
+	
+	public boolean put(int x, int y, long value)
+	{
+		return putAt(slot(x, y), value);
+	}
+	
+	public boolean remove(int x, int y)
+	{
+		return removeAt(find(x, y));
+	}
+}
@@ -0,0 +1,393 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A read-only tree map over a buffer in the binary format written by {@link #write(QuadTreeMap, ValueCodec,
+ * OutputStream)}, such as a file mapped by {@link #open(Path, ValueCodec)}. The map is queried in place, nothing is
+ * read until a query reaches it. Modifications throw an {@link UnsupportedOperationException}.
+ * <p>
+ * The format holds a header, the branch records and the leaf records, in big-endian order. The header holds 10
+ * <code>int</code> values: a magic number, the version, the dimensions, the minimum x, y and z of the bounds, the
+ * width of the bounds, the size of a value, the number of leaves and the number of branches. Branch and leaf records
+ * are laid out like those of {@link OffHeapQuadTreeMap}, with branches numbered level by level from the root. Buffers
+ * are addressed by <code>int</code>, which limits the format to 2 GB.</p>
+ */
+public class MappedPointTreeMap<E> extends AbstractOffHeapPointTreeMap<E>
+{
+	private static final int MAGIC = 0x544C5054;
+	
+	private static final int VERSION = 1;
+	
+	private static final int HEADER = 10 * Integer.BYTES;
+	
+	/**
+	 * Creates a map over a buffer holding a map in the binary format, starting at index 0 of the buffer.
+	 *
+	 * @param buffer the buffer
+	 * @param codec  the codec of the values
+	 *
+	 * @throws IllegalArgumentException if the buffer does not hold a map of the format, or the values are of another
+	 *                                  size than those of the codec
+	 */
+	public MappedPointTreeMap(ByteBuffer buffer, ValueCodec<E> codec)
+	{
+		this(header(buffer, codec), buffer, codec);
+	}
+	
+	private MappedPointTreeMap(int[] header, ByteBuffer buffer, ValueCodec<E> codec)
+	{
+		super(bounds(header), header[2], codec, slice(buffer, HEADER, (int) branchBytes(header)), slice(buffer, HEADER +
+				(int) branchBytes(header), (int) leafBytes(header)));
+	}
+	
+	private MappedPointTreeMap(MappedPointTreeMap<E> src)
+	{
+		super(src.bounds, src.dimensions(), src.codec, src.branches, src.leaves);
+	}
+	
+	/**
+	 * Maps a file holding a map in the binary format into memory, and returns a map over it. The file stays mapped
+	 * until the map is garbage collected.
+	 *
+	 * @param path  the path of the file
+	 * @param codec the codec of the values
+	 *
+	 * @return a map over the file
+	 *
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static <E> MappedPointTreeMap<E> open(Path path, ValueCodec<E> codec) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return new MappedPointTreeMap<>(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), codec);
+		}
+	}
+	
+	/**
+	 * Writes a quadtree map in the binary format. Branches are written as they are reached, so nothing but the
+	 * branches waiting to be written is held in memory. The stream is flushed but not closed.
+	 *
+	 * @param map   the map
+	 * @param codec the codec of the values
+	 * @param out   the output stream
+	 *
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public static <E> void write(QuadTreeMap<? extends E> map, ValueCodec<E> codec, OutputStream out) throws
+			IOException
+	{
+		new Writer<>(map, codec).write(out);
+	}
+	
+	/**
+	 * Writes an octree map in the binary format. Branches are written as they are reached, so nothing but the
+	 * branches waiting to be written is held in memory. The stream is flushed but not closed.
+	 *
+	 * @param map   the map
+	 * @param codec the codec of the values
+	 * @param out   the output stream
+	 *
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public static <E> void write(OctTreeMap<? extends E> map, ValueCodec<E> codec, OutputStream out) throws
+			IOException
+	{
+		new Writer<>(map, codec).write(out);
+	}
+	
+	private static int[] header(ByteBuffer buffer, ValueCodec<?> codec)
+	{
+		if (buffer.capacity() < HEADER)
+			throw new IllegalArgumentException("Buffer too small: " + buffer.capacity());
+		
+		ByteBuffer b = buffer.duplicate()
+							 .order(ByteOrder.BIG_ENDIAN);
+		int[] header = new int[10];
+		for (int i = 0; i < header.length; i++)
+			header[i] = b.getInt(i * Integer.BYTES);
+		
+		if (header[0] != MAGIC)
+			throw new IllegalArgumentException("Not a tree map");
+		if (header[1] != VERSION)
+			throw new IllegalArgumentException("Unsupported version: " + header[1]);
+		if (header[2] != 2 && header[2] != 3)
+			throw new IllegalArgumentException("Illegal dimensions: " + header[2]);
+		if (header[7] != codec.size())
+			throw new IllegalArgumentException("Illegal value size: " + header[7] + ", expected: " + codec.size());
+		
+		long length = HEADER + branchBytes(header) + leafBytes(header);
+		if (header[9] < 1 || header[8] < 0 || length > buffer.capacity())
+			throw new IllegalArgumentException("Buffer too small: " + buffer.capacity() + ", expected: " + length);
+		return header;
+	}
+	
+	private static long branchBytes(int[] header)
+	{
+		return (long) header[9] * ((1 << header[2]) + 1) * Integer.BYTES;
+	}
+	
+	private static long leafBytes(int[] header)
+	{
+		return (long) header[8] * (header[2] * Integer.BYTES + header[7]);
+	}
+	
+	private static AABB bounds(int[] header)
+	{
+		int w = header[6];
+		if (header[2] == 2)
+			return new AABB(Points.at(header[3], header[4]), Points.at(w, w));
+		return new AABB3(Points.at(header[3], header[4], header[5]), Points.at(w, w, w));
+	}
+	
+	// Returns a read-only big-endian view of a range of the buffer
+	private static ByteBuffer slice(ByteBuffer buffer, int index, int length)
+	{
+		ByteBuffer b = buffer.asReadOnlyBuffer();
+		b.limit(index + length);
+		b.position(index);
+		return b.slice()
+				.order(ByteOrder.BIG_ENDIAN);
+	}
+	
+	// Modification Operations
+	
+	@Override
+	public E put(Point key, E value)
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public E remove(Object key)
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+	// Bulk Operations
+	
+	@Override
+	public void putAll(Map<? extends Point, ? extends E> m)
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public void clear()
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Returns a map over the same buffer, which is safe to share as neither map can be modified.
+	 */
+	@Override
+	public MappedPointTreeMap<E> copy()
+	{
+		return new MappedPointTreeMap<>(this);
+	}
+	
+	// Numbers the branches level by level, walking the tree once to count and once each for the branch and leaf records
+	static final class Writer<E>
+	{
+		private final AbstractPointTreeMap<? extends E> map;
+		
+		private final ValueCodec<E> codec;
+		
+		private final int dimensions;
+		
+		private final ByteBuffer value;
+		
+		private int branchCount;
+		
+		private int leafCount;
+		
+		Writer(AbstractPointTreeMap<? extends E> map, ValueCodec<E> codec)
+		{
+			this.map = map;
+			this.codec = codec;
+			this.dimensions = map.dimensions();
+			this.value = ByteBuffer.allocate(codec.size());
+		}
+		
+		void write(OutputStream out) throws IOException
+		{
+			walk(null, false);
+			
+			DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+			AABB bounds = map.bounds();
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+			data.writeInt(dimensions);
+			data.writeInt(bounds.x());
+			data.writeInt(bounds.y());
+			data.writeInt(dimensions == 3 ? ((AABB3) bounds).z() : 0);
+			data.writeInt(bounds.width());
+			data.writeInt(codec.size());
+			data.writeInt(leafCount);
+			data.writeInt(branchCount);
+			
+			walk(data, false);
+			walk(data, true);
+			data.flush();
+		}
+		
+		// Visits the branches level by level, writing either their records or the records of their leaves
+		private void walk(DataOutputStream out, boolean leaves) throws IOException
+		{
+			ArrayDeque<Cell> queue = new ArrayDeque<>();
+			AABB bounds = map.bounds();
+			int z = dimensions == 3 ? ((AABB3) bounds).z() : 0;
+			queue.add(new Cell(map, bounds.x(), bounds.y(), z, bounds.width()));
+			int branch = 1;
+			int leaf = 0;
+			
+			while (!queue.isEmpty())
+			{
+				Cell cell = queue.poll();
+				Object[] children = cell.children();
+				int half = cell.width / 2;
+				
+				for (int i = 0; i < children.length; i++)
+				{
+					Object child = children[i];
+					int slot = 0;
+					
+					if (child instanceof AbstractPointTreeMap.Leaf)
+					{
+						if (out != null && leaves)
+							writeLeaf(out, child);
+						slot = ~leaf++;
+					}
+					else if (child != null)
+					{
+						queue.add(new Cell(child, (i & 1) == 0 ? cell.x : cell.x + half, (i & 2) == 0 ? cell.y : cell
+								.y + half, (i & 4) == 0 ? cell.z : cell.z + half, half));
+						slot = branch++;
+					}
+					
+					if (out != null && !leaves)
+						out.writeInt(slot);
+				}
+				
+				if (out != null && !leaves)
+					out.writeInt(cell.size());
+			}
+			
+			branchCount = branch;
+			leafCount = leaf;
+		}
+		
+		// Children are leaves of the map being written
+		private void writeLeaf(DataOutputStream out, Object child) throws IOException
+		{
+			@SuppressWarnings("unchecked")
+			AbstractPointTreeMap.Leaf<? extends E> leaf = (AbstractPointTreeMap.Leaf<? extends E>) child;
+			Point key = leaf.getKey();
+			out.writeInt(key.x());
+			out.writeInt(key.y());
+			if (dimensions == 3)
+				out.writeInt(key.z());
+			codec.write(value, 0, leaf.getValue());
+			out.write(value.array());
+		}
+		
+		// A branch of the map, or the leaves of a bucket, which is written as branches holding a single leaf per slot
+		final class Cell
+		{
+			private final Object node;
+			
+			private final int x;
+			
+			private final int y;
+			
+			private final int z;
+			
+			private final int width;
+			
+			Cell(Object node, int x, int y, int z, int width)
+			{
+				this.node = node;
+				this.x = x;
+				this.y = y;
+				this.z = z;
+				this.width = width;
+			}
+			
+			int size()
+			{
+				return node instanceof AbstractPointTreeMap ? ((AbstractPointTreeMap<?>) node).size() : ((Object[])
+						node).length;
+			}
+			
+			// Returns the node of each slot, which is a leaf, a branch, the leaves of a bucket or null
+			Object[] children()
+			{
+				Object[] children = new Object[1 << dimensions];
+				
+				if (node instanceof AbstractPointTreeMap)
+				{
+					Node<?>[] nodes = ((AbstractPointTreeMap<?>) node).nodes();
+					for (int i = 0; i < nodes.length; i++)
+						if (nodes[i] instanceof AbstractPointTreeMap.Bucket)
+						{
+							AbstractPointTreeMap.Bucket<?> bucket = (AbstractPointTreeMap.Bucket<?>) nodes[i];
+							children[i] = bucket.size == 1 ? bucket.leaves[0] : bucket.size > 1 ? Arrays.copyOf(bucket
+									.leaves, bucket.size) : null;
+						}
+						else if (!(nodes[i] instanceof AbstractPointTreeMap) || !((AbstractPointTreeMap<?>) nodes[i])
+								.isEmpty())
+							children[i] = nodes[i];
+					return children;
+				}
+				
+				// Splits the leaves of a bucket by the slot of their key
+				int half = width / 2;
+				Object[] leaves = (Object[]) node;
+				int[] counts = new int[children.length];
+				for (Object leaf : leaves)
+					counts[index(((AbstractPointTreeMap.Leaf<?>) leaf).getKey(), half)]++;
+				
+				for (int i = 0; i < children.length; i++)
+					if (counts[i] > 0)
+						children[i] = new Object[counts[i]];
+				for (Object leaf : leaves)
+				{
+					int i = index(((AbstractPointTreeMap.Leaf<?>) leaf).getKey(), half);
+					((Object[]) children[i])[--counts[i]] = leaf;
+				}
+				
+				for (int i = 0; i < children.length; i++)
+					if (children[i] != null && ((Object[]) children[i]).length == 1)
+						children[i] = ((Object[]) children[i])[0];
+				return children;
+			}
+			
+			private int index(Point key, int half)
+			{
+				int i = key.x() < x + half ? 0 : 1;
+				i |= key.y() < y + half ? 0 : 2;
+				if (dimensions == 3)
+					i |= key.z() < z + half ? 0 : 4;
+				return i;
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.MutablePoint;
+import com.github.rainang.tilelib.geometry.PointCodec;
+import com.github.rainang.tilelib.geometry.Points;
+
+/**
+ * A {@link CodeIndex} of Morton codes relative to the minimum of a power-of-two box.
+ */
+abstract class MortonIndex extends CodeIndex
+{
+	private static final int SCAN = 16;
+	
+	final AABB bounds;
+	
+	final int dimensions;
+	
+	final int levels;
+	
+	MortonIndex(AABB bounds, int dimensions)
+	{
+		int width = bounds.width();
+		int levels = Integer.numberOfTrailingZeros(width);
+		if (Integer.bitCount(width) != 1 || levels > (dimensions == 2 ? 30 : PointCodec.BITS_3))
+			throw new IllegalArgumentException("Illegal width: " + width);
+		
+		this.bounds = bounds;
+		this.dimensions = dimensions;
+		this.levels = levels;
+	}
+	
+	// Codes
+	
+	// Relative codes use at most 63 bits, so they can be compared as signed longs
+	long code(int x, int y)
+	{
+		return Points.morton(x - bounds.x() ^ Integer.MIN_VALUE, y - bounds.y() ^ Integer.MIN_VALUE);
+	}
+	
+	long code(int x, int y, int z)
+	{
+		return Points.morton(x - bounds.x() + PointCodec.MIN_3, y - bounds.y() + PointCodec.MIN_3, z - ((AABB3)
+				bounds).z() + PointCodec.MIN_3);
+	}
+	
+	MutablePoint decode(long code, MutablePoint dest)
+	{
+		Points.fromMorton(code, dest);
+		if (dimensions == 2)
+			return dest.set((dest.x() ^ Integer.MIN_VALUE) + bounds.x(), (dest.y() ^ Integer.MIN_VALUE) + bounds.y());
+		return dest.set(dest.x() - PointCodec.MIN_3 + bounds.x(), dest.y() - PointCodec.MIN_3 + bounds.y(), dest.z() -
+				PointCodec.MIN_3 + ((AABB3) bounds).z());
+	}
+	
+	MutablePoint newPoint()
+	{
+		return dimensions == 2 ? Points.mutableAt(0, 0) : Points.mutableAt(0, 0, 0);
+	}
+	
+	// Query Operations
+	
+	/**
+	 * Calls the action with ranges of the flushed main run whose codes lie in cells intersecting the window. Ranges of
+	 * cells inside the window are flagged as such, the keys of other ranges still have to be tested.
+	 */
+	void ranges(AABB window, RangeConsumer action)
+	{
+		long[] w = new long[6];
+		w[0] = (long) window.x() - bounds.x();
+		w[1] = (long) window.maxX() - bounds.x();
+		w[2] = (long) window.y() - bounds.y();
+		w[3] = (long) window.maxY() - bounds.y();
+		w[4] = Long.MIN_VALUE;
+		w[5] = Long.MAX_VALUE;
+		if (dimensions == 3 && window instanceof AABB3)
+		{
+			w[4] = (long) ((AABB3) window).z() - ((AABB3) bounds).z();
+			w[5] = (long) ((AABB3) window).maxZ() - ((AABB3) bounds).z();
+		}
+		
+		if (length > 0)
+			ranges(w, 0, length, 0, levels, 0, 0, 0, action);
+	}
+	
+	private void ranges(long[] w, int from, int to, long base, int level, int x, int y, int z, RangeConsumer action)
+	{
+		long max = (1L << level) - 1;
+		
+		if (x > w[1] || x + max < w[0] || y > w[3] || y + max < w[2] || z > w[5] || z + max < w[4])
+			return;
+		
+		boolean inside = x >= w[0] && x + max <= w[1] && y >= w[2] && y + max <= w[3] && z >= w[4] && z + max <= w[5];
+		
+		if (inside || level == 0 || to - from <= SCAN)
+		{
+			action.accept(from, to, inside);
+			return;
+		}
+		
+		level--;
+		int shift = dimensions * level;
+		int half = 1 << level;
+		
+		for (int c = 0, i = from; c < 1 << dimensions && i < to; c++)
+		{
+			int j = lowerBound(base + ((long) (c + 1) << shift), i, to);
+			if (j > i)
+				ranges(w, i, j, base + ((long) c << shift), level, (c & 1) == 0 ? x : x + half, (c & 2) == 0 ? y : y +
+						half, (c & 4) == 0 ? z : z + half, action);
+			i = j;
+		}
+	}
+}
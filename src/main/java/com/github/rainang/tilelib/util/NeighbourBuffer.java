@@ -0,0 +1,119 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.Point;
+
+public class NeighbourBuffer<E>
+{
+	private final PointTreeMap.Leaf<E>[] leaves;
+	
+	private final double[] distances;
+	
+	private int size;
+	
+	private double maxDistance = Double.POSITIVE_INFINITY;
+	
+	@SuppressWarnings("unchecked")
+	public NeighbourBuffer(int capacity)
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		
+		this.leaves = (PointTreeMap.Leaf<E>[]) new PointTreeMap.Leaf<?>[capacity];
+		this.distances = new double[capacity];
+	}
+	
+	// Query Operations
+	
+	public int capacity()
+	{
+		return leaves.length;
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public PointTreeMap.Leaf<E> get(int index)
+	{
+		checkIndex(index);
+		return leaves[index];
+	}
+	
+	public Point key(int index)
+	{
+		return get(index).getKey();
+	}
+	
+	public E value(int index)
+	{
+		return get(index).getValue();
+	}
+	
+	public double distance(int index)
+	{
+		checkIndex(index);
+		return distances[index];
+	}
+	
+	double bound()
+	{
+		return size < leaves.length ? maxDistance : Math.min(maxDistance, distances[size - 1]);
+	}
+	
+	// Modification Operations
+	
+	void reset(double maxDistance)
+	{
+		clear();
+		this.maxDistance = maxDistance;
+	}
+	
+	void offer(PointTreeMap.Leaf<E> leaf, double distance)
+	{
+		if (distance > maxDistance || size == leaves.length && distance >= distances[size - 1])
+			return;
+		
+		int i = size < leaves.length ? size++ : size - 1;
+		
+		for (; i > 0 && distances[i - 1] > distance; i--)
+		{
+			leaves[i] = leaves[i - 1];
+			distances[i] = distances[i - 1];
+		}
+		
+		leaves[i] = leaf;
+		distances[i] = distance;
+	}
+	
+	public void clear()
+	{
+		for (int i = 0; i < size; i++)
+			leaves[i] = null;
+		size = 0;
+	}
+	
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++)
+			sb.append(i == 0 ? "" : ", ")
+			  .append(leaves[i])
+			  .append('@')
+			  .append(distances[i]);
+		return sb.append(']')
+				 .toString();
+	}
+}
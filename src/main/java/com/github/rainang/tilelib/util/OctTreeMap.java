@@ -2,19 +2,21 @@ package com.github.rainang.tilelib.util;
 
 import com.github.rainang.tilelib.geometry.AABB3;
 import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.PointCodec;
 import com.github.rainang.tilelib.geometry.Points;
 
+import java.util.Map;
+
 public class OctTreeMap<E> extends AbstractPointTreeMap<E>
 {
-	private final AABB3 bounds;
+	private AABB3 bounds;
 	
 	private final Node<E>[] nodes = (Node<E>[]) new Node[8];
 	
 	public <T> OctTreeMap(OctTreeMap<T> base)
 	{
 		this.bounds = base.bounds;
-		base.keySet()
-			.forEach(p -> put(p, null));
+		copyNodes(base, false);
 	}
 	
 	public OctTreeMap(int factor, boolean center)
@@ -24,7 +26,18 @@ public class OctTreeMap<E> extends AbstractPointTreeMap<E>
 		this.bounds = new AABB3(Points.at(min, min, min), Points.at(factor, factor, factor));
 	}
 	
-	OctTreeMap(AbstractPointTreeMap<E> parent, int index, Leaf<E> leaf)
+	public OctTreeMap(int factor, boolean center, int bucketCapacity, int maxDepth)
+	{
+		this(factor, center);
+		configure(bucketCapacity, maxDepth);
+	}
+	
+	private OctTreeMap(AABB3 bounds)
+	{
+		this.bounds = bounds;
+	}
+	
+	OctTreeMap(AbstractPointTreeMap<E> parent, int index)
 	{
 		AABB3 bounds = (AABB3) parent.bounds();
 		
@@ -46,13 +59,72 @@ public class OctTreeMap<E> extends AbstractPointTreeMap<E>
 		
 		this.parent = parent;
 		parent.nodes()[index] = this;
-		nodes()[leafIndex(leaf.getKey())] = leaf;
+	}
+	
+	public static <E> OctTreeMap<E> unbounded(int factor)
+	{
+		OctTreeMap<E> tree = new OctTreeMap<>(factor, true);
+		tree.unbounded = true;
+		tree.minWidth = tree.bounds.width();
+		return tree;
+	}
+	
+	public static <E> OctTreeMap<E> bulkLoad(int factor, boolean center, Map<? extends Point, ? extends E> m)
+	{
+		OctTreeMap<E> tree = new OctTreeMap<>(factor, center);
+		tree.putAll(m);
+		return tree;
+	}
+	
+	@Override
+	public OctTreeMap<E> copy()
+	{
+		OctTreeMap<E> tree = new OctTreeMap<>(bounds);
+		tree.copyNodes(this, true);
+		return tree;
+	}
+	
+	@Override
+	AbstractPointTreeMap<E> newInstance(AbstractPointTreeMap<E> parent, int index)
+	{
+		return new OctTreeMap<>(parent, index);
+	}
+	
+	@Override
+	int expand(Point key)
+	{
+		int w = bounds.width();
+		if (w > 1 << 29)
+			return -1;
+		
+		long x = key.x() < bounds.x() ? (long) bounds.x() - w : bounds.x();
+		long y = key.y() < bounds.y() ? (long) bounds.y() - w : bounds.y();
+		long z = key.z() < bounds.z() ? (long) bounds.z() - w : bounds.z();
+		if (x < Integer.MIN_VALUE || x + 2L * w - 1 > Integer.MAX_VALUE ||
+				y < Integer.MIN_VALUE || y + 2L * w - 1 > Integer.MAX_VALUE ||
+				z < Integer.MIN_VALUE || z + 2L * w - 1 > Integer.MAX_VALUE)
+			return -1;
+		
+		int i = (x < bounds.x() ? 1 : 0) | (y < bounds.y() ? 2 : 0) | (z < bounds.z() ? 4 : 0);
+		bounds = new AABB3(Points.at((int) x, (int) y, (int) z), Points.at(w * 2, w * 2, w * 2));
+		return i;
+	}
+	
+	@Override
+	void contract(int index)
+	{
+		int w = bounds.width() / 2;
+		int x = (index & 1) == 0 ? bounds.x() : bounds.x() + w;
+		int y = (index & 2) == 0 ? bounds.y() : bounds.y() + w;
+		int z = (index & 4) == 0 ? bounds.z() : bounds.z() + w;
+		bounds = new AABB3(Points.at(x, y, z), Points.at(w, w, w));
 	}
 	
 	@Override
-	AbstractPointTreeMap<E> newInstance(AbstractPointTreeMap<E> parent, int index, Leaf<E> leaf)
+	long mortonCode(Point key)
 	{
-		return new OctTreeMap<>(parent, index, leaf);
+		return Points.morton(key.x() - bounds.x() + PointCodec.MIN_3, key.y() - bounds.y() + PointCodec.MIN_3, key.z() -
+				bounds.z() + PointCodec.MIN_3);
 	}
 	
 	@Override
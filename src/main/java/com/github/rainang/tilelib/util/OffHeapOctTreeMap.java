@@ -0,0 +1,37 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB3;
+
+/**
+ * An octree map storing its branches, keys and values in direct buffers outside of the heap, so that the garbage
+ * collector does not trace its entries. Values are written and read by a {@link ValueCodec}, and the entries handed
+ * out by the map are views that read their value from the buffer.
+ * <p>
+ * Branches are not exposed as maps of their own, the map is its only branch.</p>
+ */
+public class OffHeapOctTreeMap<E> extends AbstractOffHeapPointTreeMap<E>
+{
+	public OffHeapOctTreeMap(int factor, boolean center, ValueCodec<E> codec)
+	{
+		this(LinearOctTreeMap.bounds(factor, center), codec);
+	}
+	
+	private OffHeapOctTreeMap(AABB3 bounds, ValueCodec<E> codec)
+	{
+		super(bounds, 3, codec);
+	}
+	
+	@Override
+	public OffHeapOctTreeMap<E> copy()
+	{
+		OffHeapOctTreeMap<E> tree = new OffHeapOctTreeMap<>((AABB3) bounds, codec);
+		tree.copyFrom(this);
+		return tree;
+	}
+		
+	@Override
+	public AABB3 bounds()
+	{
+		return (AABB3) bounds;
+	}
+}
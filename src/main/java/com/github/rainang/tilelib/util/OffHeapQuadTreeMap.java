@@ -0,0 +1,31 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+
+/**
+ * A quadtree map storing its branches, keys and values in direct buffers outside of the heap, so that the garbage
+ * collector does not trace its entries. Values are written and read by a {@link ValueCodec}, and the entries handed
+ * out by the map are views that read their value from the buffer.
+ * <p>
+ * Branches are not exposed as maps of their own, the map is its only branch.</p>
+ */
+public class OffHeapQuadTreeMap<E> extends AbstractOffHeapPointTreeMap<E>
+{
+	public OffHeapQuadTreeMap(int factor, boolean center, ValueCodec<E> codec)
+	{
+		this(LinearQuadTreeMap.bounds(factor, center), codec);
+	}
+	
+	private OffHeapQuadTreeMap(AABB bounds, ValueCodec<E> codec)
+	{
+		super(bounds, 2, codec);
+	}
+	
+	@Override
+	public OffHeapQuadTreeMap<E> copy()
+	{
+		OffHeapQuadTreeMap<E> tree = new OffHeapQuadTreeMap<>(bounds, codec);
+		tree.copyFrom(this);
+		return tree;
+	}
+	}
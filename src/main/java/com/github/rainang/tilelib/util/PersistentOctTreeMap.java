@@ -0,0 +1,61 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.Map;
+
+/**
+ * An immutable octree map. Updates through {@link #with(Point, Object)} and {@link #without(Point)} return a new map
+ * that shares every branch off the path to the key with this map, so keeping a snapshot costs nothing and an update
+ * allocates one branch per level. The mutating methods of {@link Map} throw an
+ * {@link UnsupportedOperationException}.
+ */
+public class PersistentOctTreeMap<E> extends AbstractPersistentPointTreeMap<E>
+{
+	public PersistentOctTreeMap(int factor, boolean center)
+	{
+		this(LinearOctTreeMap.bounds(factor, center), emptyRoot(3));
+	}
+	
+	private PersistentOctTreeMap(AABB3 bounds, Branch root)
+	{
+		super(bounds, root);
+	}
+	
+	@Override
+	PersistentOctTreeMap<E> newInstance(Branch root)
+	{
+		return new PersistentOctTreeMap<>((AABB3) bounds, root);
+	}
+	
+	@Override
+	public PersistentOctTreeMap<E> with(Point key, E value)
+	{
+		return (PersistentOctTreeMap<E>) super.with(key, value);
+	}
+	
+	@Override
+	public PersistentOctTreeMap<E> without(Point key)
+	{
+		return (PersistentOctTreeMap<E>) super.without(key);
+	}
+	
+	@Override
+	public PersistentOctTreeMap<E> withAll(Map<? extends Point, ? extends E> m)
+	{
+		return (PersistentOctTreeMap<E>) super.withAll(m);
+	}
+		
+	@Override
+	public AABB3 bounds()
+	{
+		return (AABB3) bounds;
+	}
+	
+	@Override
+	public int dimensions()
+	{
+		return 3;
+	}
+}
@@ -0,0 +1,55 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.Point;
+
+import java.util.Map;
+
+/**
+ * An immutable quadtree map. Updates through {@link #with(Point, Object)} and {@link #without(Point)} return a new map
+ * that shares every branch off the path to the key with this map, so keeping a snapshot costs nothing and an update
+ * allocates one branch per level. The mutating methods of {@link Map} throw an
+ * {@link UnsupportedOperationException}.
+ */
+public class PersistentQuadTreeMap<E> extends AbstractPersistentPointTreeMap<E>
+{
+	public PersistentQuadTreeMap(int factor, boolean center)
+	{
+		this(LinearQuadTreeMap.bounds(factor, center), emptyRoot(2));
+	}
+	
+	private PersistentQuadTreeMap(AABB bounds, Branch root)
+	{
+		super(bounds, root);
+	}
+	
+	@Override
+	PersistentQuadTreeMap<E> newInstance(Branch root)
+	{
+		return new PersistentQuadTreeMap<>(bounds, root);
+	}
+	
+	@Override
+	public PersistentQuadTreeMap<E> with(Point key, E value)
+	{
+		return (PersistentQuadTreeMap<E>) super.with(key, value);
+	}
+	
+	@Override
+	public PersistentQuadTreeMap<E> without(Point key)
+	{
+		return (PersistentQuadTreeMap<E>) super.without(key);
+	}
+	
+	@Override
+	public PersistentQuadTreeMap<E> withAll(Map<? extends Point, ? extends E> m)
+	{
+		return (PersistentQuadTreeMap<E>) super.withAll(m);
+	}
+		
+	@Override
+	public int dimensions()
+	{
+		return 2;
+	}
+}
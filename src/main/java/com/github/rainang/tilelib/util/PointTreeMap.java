@@ -1,12 +1,16 @@
 package com.github.rainang.tilelib.util;
 
 import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.DistanceMetric;
 import com.github.rainang.tilelib.geometry.Point;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface PointTreeMap<E> extends Map<Point, E>, Node<E>
 {
@@ -39,6 +43,20 @@ public interface PointTreeMap<E> extends Map<Point, E>, Node<E>
 	
 	AbstractPointTreeMap<E> getParent();
 	
+	Leaf<E> select(int index);
+	
+	int rank(Point key);
+	
+	void query(AABB window, Consumer<? super Leaf<E>> consumer);
+	
+	int count(AABB window);
+	
+	NeighbourBuffer<E> nearest(Point p, DistanceMetric metric, NeighbourBuffer<E> dest);
+	
+	NeighbourBuffer<E> nearest(Point p, double maxDistance, DistanceMetric metric, NeighbourBuffer<E> dest);
+	
+	void withinRadius(Point p, double radius, DistanceMetric metric, Consumer<? super Leaf<E>> consumer);
+	
 	int leafIndex(Point key);
 	
 	int branchIndex();
@@ -69,6 +87,18 @@ public interface PointTreeMap<E> extends Map<Point, E>, Node<E>
 	
 	void forEachBranchRecursive(Consumer<? super PointTreeMap<E>> consumer);
 	
+	PointTreeMap<E> copy();
+	
+	/**
+	 * Returns a snapshot of the structure of this map. The snapshot is kept until the structure changes, so polling
+	 * an unchanged map is cheap.
+	 * <p>
+	 * Taking the snapshot walks the map and updates the kept snapshot, so it must be called on the thread that owns
+	 * the map, or under the lock that guards its changes, like any other method of this map. {@link
+	 * ConcurrentQuadTreeMap} and {@link ConcurrentOctTreeMap} offer statistics that may be taken on any thread.</p>
+	 */
+	TreeStatistics statistics();
+	
 	// Views
 	
 	@Override
@@ -80,5 +110,11 @@ public interface PointTreeMap<E> extends Map<Point, E>, Node<E>
 	@Override
 	Set<Entry<Point, E>> entrySet();
 	
+	Iterator<Leaf<E>> leafIterator();
+	
+	Spliterator<Leaf<E>> leafSpliterator();
+	
+	Stream<Leaf<E>> leafStream();
+	
 	interface Leaf<E> extends Map.Entry<Point, E>, Node<E> {}
 }
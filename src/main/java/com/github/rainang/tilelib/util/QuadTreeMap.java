@@ -4,17 +4,18 @@ import com.github.rainang.tilelib.geometry.AABB;
 import com.github.rainang.tilelib.geometry.Point;
 import com.github.rainang.tilelib.geometry.Points;
 
+import java.util.Map;
+
 public class QuadTreeMap<E> extends AbstractPointTreeMap<E>
 {
-	private final AABB bounds;
+	private AABB bounds;
 	
 	private final Node<E>[] nodes = (Node<E>[]) new Node[4];
 	
 	public <T> QuadTreeMap(QuadTreeMap<T> base)
 	{
 		this.bounds = base.bounds;
-		base.keySet()
-			.forEach(p -> put(p, null));
+		copyNodes(base, false);
 	}
 	
 	public QuadTreeMap(int factor, boolean center)
@@ -24,7 +25,18 @@ public class QuadTreeMap<E> extends AbstractPointTreeMap<E>
 		this.bounds = new AABB(Points.at(min, min), Points.at(factor, factor));
 	}
 	
-	QuadTreeMap(AbstractPointTreeMap<E> parent, int index, Leaf<E> leaf)
+	public QuadTreeMap(int factor, boolean center, int bucketCapacity, int maxDepth)
+	{
+		this(factor, center);
+		configure(bucketCapacity, maxDepth);
+	}
+	
+	private QuadTreeMap(AABB bounds)
+	{
+		this.bounds = bounds;
+	}
+	
+	QuadTreeMap(AbstractPointTreeMap<E> parent, int index)
 	{
 		AABB bounds = parent.bounds();
 		
@@ -42,13 +54,68 @@ public class QuadTreeMap<E> extends AbstractPointTreeMap<E>
 		
 		this.parent = parent;
 		parent.nodes()[index] = this;
-		nodes()[leafIndex(leaf.getKey())] = leaf;
+	}
+	
+	public static <E> QuadTreeMap<E> unbounded(int factor)
+	{
+		QuadTreeMap<E> tree = new QuadTreeMap<>(factor, true);
+		tree.unbounded = true;
+		tree.minWidth = tree.bounds.width();
+		return tree;
+	}
+	
+	public static <E> QuadTreeMap<E> bulkLoad(int factor, boolean center, Map<? extends Point, ? extends E> m)
+	{
+		QuadTreeMap<E> tree = new QuadTreeMap<>(factor, center);
+		tree.putAll(m);
+		return tree;
+	}
+	
+	@Override
+	public QuadTreeMap<E> copy()
+	{
+		QuadTreeMap<E> tree = new QuadTreeMap<>(bounds);
+		tree.copyNodes(this, true);
+		return tree;
+	}
+	
+	@Override
+	AbstractPointTreeMap<E> newInstance(AbstractPointTreeMap<E> parent, int index)
+	{
+		return new QuadTreeMap<>(parent, index);
+	}
+	
+	@Override
+	int expand(Point key)
+	{
+		int w = bounds.width();
+		if (w > 1 << 29)
+			return -1;
+		
+		long x = key.x() < bounds.x() ? (long) bounds.x() - w : bounds.x();
+		long y = key.y() < bounds.y() ? (long) bounds.y() - w : bounds.y();
+		if (x < Integer.MIN_VALUE || x + 2L * w - 1 > Integer.MAX_VALUE ||
+				y < Integer.MIN_VALUE || y + 2L * w - 1 > Integer.MAX_VALUE)
+			return -1;
+		
+		int i = (x < bounds.x() ? 1 : 0) | (y < bounds.y() ? 2 : 0);
+		bounds = new AABB(Points.at((int) x, (int) y), Points.at(w * 2, w * 2));
+		return i;
+	}
+	
+	@Override
+	void contract(int index)
+	{
+		int w = bounds.width() / 2;
+		int x = (index & 1) == 0 ? bounds.x() : bounds.x() + w;
+		int y = (index & 2) == 0 ? bounds.y() : bounds.y() + w;
+		bounds = new AABB(Points.at(x, y), Points.at(w, w));
 	}
 	
 	@Override
-	AbstractPointTreeMap<E> newInstance(AbstractPointTreeMap<E> parent, int index, Leaf<E> leaf)
+	long mortonCode(Point key)
 	{
-		return new QuadTreeMap<>(parent, index, leaf);
+		return Points.morton(key.x() - bounds.x() ^ Integer.MIN_VALUE, key.y() - bounds.y() ^ Integer.MIN_VALUE);
 	}
 	
 	@Override
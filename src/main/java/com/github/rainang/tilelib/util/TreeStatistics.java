@@ -0,0 +1,240 @@
+package com.github.rainang.tilelib.util;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the structure of a {@link PointTreeMap}, as returned by {@link PointTreeMap#statistics()}. Depths are
+ * counted from the map the statistics were taken of, which is at depth 0.
+ * <p>
+ * Memory footprints are estimates for a 64-bit virtual machine with compressed references. They include branches,
+ * leaves and keys, but not values.</p>
+ */
+public final class TreeStatistics
+{
+	static final int HEADER = 12;
+	
+	static final int ARRAY_HEADER = 16;
+	
+	static final int REFERENCE = 4;
+	
+	private final int size;
+	
+	private final int branchCount;
+	
+	private final int bucketCount;
+	
+	private final int[] leavesPerDepth;
+	
+	private final int[] branchesPerDepth;
+	
+	private final long slotCount;
+	
+	private final long usedSlotCount;
+	
+	private final long heapBytes;
+	
+	private final long offHeapBytes;
+	
+	private TreeStatistics(Builder builder)
+	{
+		this.size = builder.size;
+		this.branchCount = builder.branchCount;
+		this.bucketCount = builder.bucketCount;
+		this.leavesPerDepth = Arrays.copyOf(builder.leavesPerDepth, builder.height + 1);
+		this.branchesPerDepth = Arrays.copyOf(builder.branchesPerDepth, builder.height + 1);
+		this.slotCount = builder.slotCount;
+		this.usedSlotCount = builder.usedSlotCount;
+		this.heapBytes = builder.heapBytes;
+		this.offHeapBytes = builder.offHeapBytes;
+	}
+	
+	// Returns the size of an object with the number of references and of 4-byte fields, aligned to 8 bytes
+	static long objectBytes(int references, int ints)
+	{
+		return align(HEADER + (long) (references + ints) * 4);
+	}
+	
+	static long arrayBytes(int length, int elementBytes)
+	{
+		return align(ARRAY_HEADER + (long) length * elementBytes);
+	}
+	
+	private static long align(long bytes)
+	{
+		return bytes + 7 & ~7L;
+	}
+	
+	// Query Operations
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public int branchCount()
+	{
+		return branchCount;
+	}
+	
+	/**
+	 * Returns the number of buckets, which hold the leaves of a single slot.
+	 */
+	public int bucketCount()
+	{
+		return bucketCount;
+	}
+	
+	/**
+	 * Returns the greatest depth of a branch or leaf.
+	 */
+	public int height()
+	{
+		return leavesPerDepth.length - 1;
+	}
+	
+	public int leafCount(int depth)
+	{
+		return depth < 0 || depth >= leavesPerDepth.length ? 0 : leavesPerDepth[depth];
+	}
+	
+	public int branchCount(int depth)
+	{
+		return depth < 0 || depth >= branchesPerDepth.length ? 0 : branchesPerDepth[depth];
+	}
+	
+	/**
+	 * Returns the number of leaves at each depth, from depth 0 to the {@link #height()}.
+	 */
+	public int[] depthHistogram()
+	{
+		return leavesPerDepth.clone();
+	}
+	
+	public double averageLeafDepth()
+	{
+		long sum = 0;
+		for (int depth = 0; depth < leavesPerDepth.length; depth++)
+			sum += (long) depth * leavesPerDepth[depth];
+		return size == 0 ? 0 : (double) sum / size;
+	}
+	
+	/**
+	 * Returns the number of slots of all branches. Maps storing their leaves in arrays rather than branches count the
+	 * capacity of the arrays.
+	 */
+	public long slotCount()
+	{
+		return slotCount;
+	}
+	
+	public long usedSlotCount()
+	{
+		return usedSlotCount;
+	}
+	
+	public long emptySlotCount()
+	{
+		return slotCount - usedSlotCount;
+	}
+	
+	/**
+	 * Returns the ratio of used slots to all slots, or 1 if there are no slots.
+	 */
+	public double fillRatio()
+	{
+		return slotCount == 0 ? 1 : (double) usedSlotCount / slotCount;
+	}
+	
+	public long heapBytes()
+	{
+		return heapBytes;
+	}
+	
+	public long offHeapBytes()
+	{
+		return offHeapBytes;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("TreeStatistics[size=%d, branches=%d, buckets=%d, height=%d, fill=%.3f, heap=%d, " +
+				"offHeap=%d, depths=%s]", size, branchCount, bucketCount, height(), fillRatio(), heapBytes,
+				offHeapBytes, Arrays.toString(leavesPerDepth));
+	}
+	
+	static final class Builder
+	{
+		private int size;
+		
+		private int branchCount;
+		
+		private int bucketCount;
+		
+		private int height;
+		
+		private int[] leavesPerDepth = new int[8];
+		
+		private int[] branchesPerDepth = new int[8];
+		
+		private long slotCount;
+		
+		private long usedSlotCount;
+		
+		private long heapBytes;
+		
+		private long offHeapBytes;
+		
+		Builder branch(int depth, int slots, int usedSlots)
+		{
+			ensureDepth(depth);
+			branchesPerDepth[depth]++;
+			branchCount++;
+			slotCount += slots;
+			usedSlotCount += usedSlots;
+			return this;
+		}
+		
+		Builder leaves(int depth, int count)
+		{
+			ensureDepth(depth);
+			leavesPerDepth[depth] += count;
+			size += count;
+			return this;
+		}
+		
+		Builder bucket()
+		{
+			bucketCount++;
+			return this;
+		}
+		
+		Builder heapBytes(long bytes)
+		{
+			heapBytes += bytes;
+			return this;
+		}
+		
+		Builder offHeapBytes(long bytes)
+		{
+			offHeapBytes += bytes;
+			return this;
+		}
+		
+		private void ensureDepth(int depth)
+		{
+			if (depth >= leavesPerDepth.length)
+			{
+				int length = Math.max(depth + 1, leavesPerDepth.length * 2);
+				leavesPerDepth = Arrays.copyOf(leavesPerDepth, length);
+				branchesPerDepth = Arrays.copyOf(branchesPerDepth, length);
+			}
+			height = Math.max(height, depth);
+		}
+		
+		TreeStatistics build()
+		{
+			return new TreeStatistics(this);
+		}
+	}
+}
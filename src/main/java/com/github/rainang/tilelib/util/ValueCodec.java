@@ -0,0 +1,100 @@
+package com.github.rainang.tilelib.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes values of a fixed size into a {@link ByteBuffer} and reads them back, for maps storing their values outside
+ * of the heap. Objects that do not fit a fixed size can be stored by handle, such as an index into a table kept by the
+ * caller.
+ */
+public interface ValueCodec<E>
+{
+	ValueCodec<Integer> INT = new ValueCodec<Integer>()
+	{
+		@Override
+		public int size()
+		{
+			return Integer.BYTES;
+		}
+		
+		@Override
+		public void write(ByteBuffer buffer, int index, Integer value)
+		{
+			buffer.putInt(index, value);
+		}
+		
+		@Override
+		public Integer read(ByteBuffer buffer, int index)
+		{
+			return buffer.getInt(index);
+		}
+	};
+	
+	ValueCodec<Long> LONG = new ValueCodec<Long>()
+	{
+		@Override
+		public int size()
+		{
+			return Long.BYTES;
+		}
+		
+		@Override
+		public void write(ByteBuffer buffer, int index, Long value)
+		{
+			buffer.putLong(index, value);
+		}
+		
+		@Override
+		public Long read(ByteBuffer buffer, int index)
+		{
+			return buffer.getLong(index);
+		}
+	};
+	
+	ValueCodec<Double> DOUBLE = new ValueCodec<Double>()
+	{
+		@Override
+		public int size()
+		{
+			return Double.BYTES;
+		}
+		
+		@Override
+		public void write(ByteBuffer buffer, int index, Double value)
+		{
+			buffer.putDouble(index, value);
+		}
+		
+		@Override
+		public Double read(ByteBuffer buffer, int index)
+		{
+			return buffer.getDouble(index);
+		}
+	};
+	
+	/**
+	 * Returns the number of bytes taken by a value.
+	 *
+	 * @return the number of bytes taken by a value
+	 */
+	int size();
+	
+	/**
+	 * Writes the value at the absolute index of the buffer.
+	 *
+	 * @param buffer the buffer
+	 * @param index  the index of the first byte
+	 * @param value  the value
+	 */
+	void write(ByteBuffer buffer, int index, E value);
+	
+	/**
+	 * Reads a value at the absolute index of the buffer.
+	 *
+	 * @param buffer the buffer
+	 * @param index  the index of the first byte
+	 *
+	 * @return the value
+	 */
+	E read(ByteBuffer buffer, int index);
+}
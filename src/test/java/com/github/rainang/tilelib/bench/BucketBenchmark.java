@@ -0,0 +1,95 @@
+package com.github.rainang.tilelib.bench;
+
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+import com.github.rainang.tilelib.util.QuadTreeMap;
+import com.github.rainang.tilelib.util.TreeStatistics;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures put and get times and the resulting tree shape of a {@link QuadTreeMap} for several bucket capacities, on
+ * uniformly spread and on clustered keys.
+ * <p>
+ * Run the main method with the test classpath, e.g. {@code java -cp build/classes/main:build/classes/test
+ * com.github.rainang.tilelib.bench.BucketBenchmark}.</p>
+ */
+public class BucketBenchmark
+{
+	private static final int SIZE = 200_000;
+	
+	private static final int REPETITIONS = 10;
+	
+	private static final int[] CAPACITIES = {1, 8, 16, 32, 64};
+	
+	private static Point[] uniform()
+	{
+		Point[] keys = new Point[SIZE];
+		for (int i = 0; i < SIZE; i++)
+		{
+			int k = (int) (i * 0x9E3779B1L & 0xFFFFFF);
+			keys[i] = Points.at((k & 4095) - 2048, (k >>> 12) - 2048);
+		}
+		return keys;
+	}
+	
+	// 1000 clusters, each within a 16x16 area
+	private static Point[] clustered()
+	{
+		Random random = new Random(7);
+		int[][] centers = new int[1000][2];
+		for (int[] center : centers)
+		{
+			center[0] = random.nextInt(4000) - 2000;
+			center[1] = random.nextInt(4000) - 2000;
+		}
+		
+		Set<Point> keys = new LinkedHashSet<>();
+		while (keys.size() < SIZE)
+		{
+			int[] center = centers[random.nextInt(centers.length)];
+			keys.add(Points.at(center[0] + random.nextInt(16), center[1] + random.nextInt(16)));
+		}
+		return keys.toArray(new Point[SIZE]);
+	}
+	
+	private static void run(String name, Point[] keys, int capacity)
+	{
+		long bestPut = Long.MAX_VALUE, bestGet = Long.MAX_VALUE;
+		QuadTreeMap<Integer> map = null;
+		for (int rep = 0; rep < REPETITIONS; rep++)
+		{
+			map = new QuadTreeMap<>(12, true, capacity, Integer.MAX_VALUE);
+			long t0 = System.nanoTime();
+			for (int i = 0; i < keys.length; i++)
+				map.put(keys[i], i);
+			bestPut = Math.min(bestPut, System.nanoTime() - t0);
+			
+			long sum = 0;
+			t0 = System.nanoTime();
+			for (Point p : keys)
+				sum += map.get(p);
+			bestGet = Math.min(bestGet, System.nanoTime() - t0);
+			if (sum != (long) keys.length * (keys.length - 1) / 2)
+				throw new IllegalStateException("lost keys");
+		}
+		
+		TreeStatistics statistics = map.statistics();
+		System.out.printf("%-9s cap %2d  put %6.1f ns  get %6.1f ns  height %2d  avg depth %5.2f  branches %,7d  " +
+		                  "heap %,6d KB%n", name, capacity, (double) bestPut / keys.length,
+		                  (double) bestGet / keys.length, statistics.height(), statistics.averageLeafDepth(),
+		                  statistics.branchCount(), statistics.heapBytes() / 1024);
+	}
+	
+	public static void main(String[] args)
+	{
+		Point[] uniform = uniform();
+		Point[] clustered = clustered();
+		for (int capacity : CAPACITIES)
+			run("uniform", uniform, capacity);
+		for (int capacity : CAPACITIES)
+			run("clustered", clustered, capacity);
+	}
+}
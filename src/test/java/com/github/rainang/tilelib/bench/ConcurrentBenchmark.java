@@ -0,0 +1,102 @@
+package com.github.rainang.tilelib.bench;
+
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+import com.github.rainang.tilelib.util.ConcurrentQuadTreeMap;
+import com.github.rainang.tilelib.util.QuadTreeMap;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the throughput of a {@link ConcurrentQuadTreeMap} with that of a synchronized {@link QuadTreeMap} under a
+ * mix of gets, puts and removes on random keys, for several thread counts and write ratios.
+ * <p>
+ * The results are only meaningful on a machine with at least as many cores as threads. Run the main method with the
+ * test classpath, e.g. {@code java -cp build/classes/main:build/classes/test
+ * com.github.rainang.tilelib.bench.ConcurrentBenchmark}.</p>
+ */
+public class ConcurrentBenchmark
+{
+	private static final int KEYS = 1 << 16;
+	
+	private static final int BATCH = 256;
+	
+	private static final long MILLIS = 1500;
+	
+	private static final int[] WRITE_PERCENTAGES = {10, 50};
+	
+	private static final int[] THREADS = {1, 4, 16};
+	
+	private static long run(Map<Point, Integer> map, Point[] keys, int threads, int writePercentage)
+			throws InterruptedException
+	{
+		AtomicBoolean stop = new AtomicBoolean();
+		LongAdder ops = new LongAdder();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++)
+		{
+			SplittableRandom random = new SplittableRandom(t);
+			workers[t] = new Thread(() ->
+			{
+				long n = 0;
+				while (!stop.get())
+				{
+					for (int i = 0; i < BATCH; i++)
+					{
+						Point key = keys[random.nextInt(keys.length)];
+						if (random.nextInt(100) >= writePercentage)
+							map.get(key);
+						else if (random.nextBoolean())
+							map.put(key, 1);
+						else
+							map.remove(key);
+					}
+					n += BATCH;
+				}
+				ops.add(n);
+			});
+		}
+		
+		for (Thread worker : workers)
+			worker.start();
+		Thread.sleep(MILLIS);
+		stop.set(true);
+		for (Thread worker : workers)
+			worker.join();
+		return ops.sum() * 1000 / MILLIS;
+	}
+	
+	public static void main(String[] args) throws InterruptedException
+	{
+		SplittableRandom random = new SplittableRandom(1);
+		Point[] keys = new Point[KEYS];
+		for (int i = 0; i < KEYS; i++)
+			keys[i] = Points.at(random.nextInt(2048) - 1024, random.nextInt(2048) - 1024);
+		
+		System.out.printf("%d available processors%n", Runtime.getRuntime()
+		                                                       .availableProcessors());
+		for (int writePercentage : WRITE_PERCENTAGES)
+			for (int threads : THREADS)
+			{
+				Map<Point, Integer> concurrent = new ConcurrentQuadTreeMap<>(11, true);
+				Map<Point, Integer> synchronizedMap = Collections.synchronizedMap(new QuadTreeMap<>(11, true));
+				for (int i = 0; i < KEYS; i += 2)
+				{
+					concurrent.put(keys[i], 1);
+					synchronizedMap.put(keys[i], 1);
+				}
+				
+				// warm up
+				run(concurrent, keys, threads, writePercentage);
+				run(synchronizedMap, keys, threads, writePercentage);
+				
+				System.out.printf("writes %d%%  threads %2d  concurrent %,10d ops/s  synchronized %,10d ops/s%n",
+				                  writePercentage, threads, run(concurrent, keys, threads, writePercentage),
+				                  run(synchronizedMap, keys, threads, writePercentage));
+			}
+	}
+}
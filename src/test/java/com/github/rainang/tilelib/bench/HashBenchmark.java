@@ -0,0 +1,116 @@
+package com.github.rainang.tilelib.bench;
+
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Measures how evenly {@link Point#hashCode()} spreads hex, rectangle and cube ranges over the buckets of a {@link
+ * HashMap}, and how long puts and gets of those keys take. The distribution is also reported for the former hash, which
+ * ignored z and combined x and y by their double bits.
+ * <p>
+ * Run the main method with the test classpath, e.g. {@code java -cp build/classes/main:build/classes/test
+ * com.github.rainang.tilelib.bench.HashBenchmark}.</p>
+ */
+public class HashBenchmark
+{
+	private static final int REPETITIONS = 15;
+	
+	private static final int GETS = 5;
+	
+	private static List<Point> hex(int radius)
+	{
+		List<Point> keys = new ArrayList<>();
+		for (int x = -radius; x <= radius; x++)
+			for (int y = Math.max(-radius, -x - radius); y <= Math.min(radius, -x + radius); y++)
+				keys.add(Points.hexAt(x, y));
+		return keys;
+	}
+	
+	private static List<Point> rectangle(int width)
+	{
+		List<Point> keys = new ArrayList<>();
+		for (int x = 0; x < width; x++)
+			for (int y = 0; y < width; y++)
+				keys.add(Points.at(x, y));
+		return keys;
+	}
+	
+	private static List<Point> cube(int width)
+	{
+		List<Point> keys = new ArrayList<>();
+		for (int x = 0; x < width; x++)
+			for (int y = 0; y < width; y++)
+				for (int z = 0; z < width; z++)
+					keys.add(Points.at(x, y, z));
+		return keys;
+	}
+	
+	private static int legacyHash(Point p)
+	{
+		long bits = Double.doubleToLongBits(p.x());
+		bits ^= Double.doubleToLongBits(p.y()) * 31;
+		return (((int) bits) ^ ((int) (bits >> 32)));
+	}
+	
+	private static String distribution(List<Point> keys, boolean legacy)
+	{
+		int capacity = Integer.highestOneBit((int) (keys.size() / 0.75f) * 2 - 1);
+		int[] buckets = new int[capacity];
+		for (Point p : keys)
+		{
+			int h = legacy ? legacyHash(p) : p.hashCode();
+			buckets[(h ^ h >>> 16) & capacity - 1]++;
+		}
+		
+		int used = 0, max = 0;
+		long probes = 0;
+		for (int count : buckets)
+		{
+			if (count > 0)
+				used++;
+			max = Math.max(max, count);
+			probes += (long) count * count;
+		}
+		return String.format("buckets %d/%d  max %d  probes/key %.2f", used, capacity, max,
+		                     (double) probes / keys.size());
+	}
+	
+	private static void run(String name, List<Point> keys)
+	{
+		int n = keys.size();
+		long bestPut = Long.MAX_VALUE, bestGet = Long.MAX_VALUE;
+		for (int rep = 0; rep < REPETITIONS; rep++)
+		{
+			HashMap<Point, Integer> map = new HashMap<>();
+			long t0 = System.nanoTime();
+			for (Point p : keys)
+				map.put(p, 1);
+			bestPut = Math.min(bestPut, System.nanoTime() - t0);
+			
+			long sum = 0;
+			t0 = System.nanoTime();
+			for (int i = 0; i < GETS; i++)
+				for (Point p : keys)
+					sum += map.get(p);
+			bestGet = Math.min(bestGet, (System.nanoTime() - t0) / GETS);
+			if (sum != (long) GETS * n)
+				throw new IllegalStateException("lost keys");
+		}
+		
+		System.out.printf("%-9s n=%d%n", name, n);
+		System.out.printf("  legacy   %s%n", distribution(keys, true));
+		System.out.printf("  current  %s  put %.1f ns  get %.1f ns%n", distribution(keys, false),
+		                  (double) bestPut / n, (double) bestGet / n);
+	}
+	
+	public static void main(String[] args)
+	{
+		run("hex", hex(150));
+		run("rectangle", rectangle(256));
+		run("cube", cube(40));
+	}
+}
@@ -0,0 +1,78 @@
+package com.github.rainang.tilelib.bench;
+
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+import com.github.rainang.tilelib.util.QuadTreeMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the lookup time of a {@link QuadTreeMap} with that of a {@link HashMap} holding the same keys, from 10
+ * thousand to 10 million entries. Lookups use equal but not identical keys in a random order.
+ * <p>
+ * Run the main method with the test classpath and a heap of at least 5 GB, e.g. {@code java -Xmx5g -cp
+ * build/classes/main:build/classes/test com.github.rainang.tilelib.bench.LookupBenchmark}.</p>
+ */
+public class LookupBenchmark
+{
+	private static double time(Map<Point, Integer> map, Point[] probes, int repetitions)
+	{
+		long n = probes.length;
+		long best = Long.MAX_VALUE;
+		for (int rep = 0; rep < repetitions; rep++)
+		{
+			long sum = 0;
+			long t0 = System.nanoTime();
+			for (Point p : probes)
+				sum += map.get(p);
+			best = Math.min(best, System.nanoTime() - t0);
+			if (sum != n * (n - 1) / 2)
+				throw new IllegalStateException("lost keys");
+		}
+		return (double) best / n;
+	}
+	
+	public static void main(String[] args)
+	{
+		for (int n : new int[]{10_000, 100_000, 1_000_000, 10_000_000})
+		{
+			Point[] keys = new Point[n];
+			for (int i = 0; i < n; i++)
+			{
+				int k = (int) (i * 0x9E3779B1L & 0xFFFFFF);
+				keys[i] = Points.at((k & 4095) - 2048, (k >>> 12) - 2048);
+			}
+			
+			Random random = new Random(n);
+			Point[] probes = keys.clone();
+			for (int i = n - 1; i > 0; i--)
+			{
+				int j = random.nextInt(i + 1);
+				Point p = probes[i];
+				probes[i] = probes[j];
+				probes[j] = p;
+			}
+			for (int i = 0; i < n; i++)
+				probes[i] = Points.at(probes[i].x(), probes[i].y());
+			
+			int repetitions = n >= 10_000_000 ? 3 : n >= 1_000_000 ? 5 : 20;
+			
+			QuadTreeMap<Integer> tree = new QuadTreeMap<>(12, true);
+			for (int i = 0; i < n; i++)
+				tree.put(keys[i], i);
+			double treeTime = time(tree, probes, repetitions);
+			tree = null;
+			
+			HashMap<Point, Integer> hash = new HashMap<>();
+			for (int i = 0; i < n; i++)
+				hash.put(keys[i], i);
+			double hashTime = time(hash, probes, repetitions);
+			hash = null;
+			
+			System.out.printf("n=%,d  QuadTreeMap.get %.1f ns  HashMap.get %.1f ns%n", n, treeTime, hashTime);
+			System.gc();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.github.rainang.tilelib.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AABBTest
+{
+	@Test
+	public void emptyBoxesDoNotIntersect()
+	{
+		AABB box = new AABB(Points.at(0, 0), Points.at(4, 4));
+		AABB empty = new AABB(Points.at(1, 1), Points.at(0, 2));
+		assertFalse(box.intersects(empty));
+		assertFalse(empty.intersects(box));
+		assertFalse(new MutableAABB().intersects(box));
+		
+		AABB3 box3 = new AABB3(Points.at(0, 0, 0), Points.at(4, 4, 4));
+		AABB3 empty3 = new AABB3(Points.at(1, 1, 1), Points.at(2, 2, 0));
+		assertFalse(box3.intersects(empty3));
+		assertFalse(empty3.intersects(box3));
+		assertFalse(empty3.intersects(box));
+		assertTrue(box3.intersects(box));
+	}
+	
+	@Test
+	public void unionWithEmptyBox()
+	{
+		AABB box = new AABB(Points.at(5, 6), Points.at(2, 3));
+		MutableAABB union = new MutableAABB().union(box, new MutableAABB());
+		assertEquals(5, union.x());
+		assertEquals(6, union.y());
+		assertEquals(2, union.width());
+		assertEquals(3, union.height());
+		
+		union = box.union(new MutableAABB(), new MutableAABB());
+		assertEquals(5, union.x());
+		assertEquals(2, union.width());
+		
+		AABB3 box3 = new AABB3(Points.at(5, 6, 7), Points.at(2, 3, 4));
+		MutableAABB3 union3 = new MutableAABB3().union(box3, new MutableAABB3());
+		assertEquals(7, union3.z());
+		assertEquals(4, union3.length());
+		assertEquals(6, union3.y());
+		
+		union3 = box3.union(new MutableAABB3(), new MutableAABB3());
+		assertEquals(5, union3.x());
+		assertEquals(4, union3.length());
+	}
+	
+	@Test
+	public void forEachPointAtIntegerLimit()
+	{
+		int[] count = new int[1];
+		new AABB(Points.at(Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 2), Points.at(2, 3)).forEachPoint(
+				(x, y) -> count[0]++);
+		assertEquals(6, count[0]);
+		
+		count[0] = 0;
+		new AABB3(Points.at(0, 0, Integer.MAX_VALUE - 1), Points.at(2, 2, 2)).forEachPoint(
+				(x, y, z) -> count[0]++);
+		assertEquals(8, count[0]);
+		
+		count[0] = 0;
+		new AABB3(Points.at(0, 0, 0), Points.at(2, 2, 5)).forEachPoint((x, y) -> count[0]++);
+		assertEquals(4, count[0]);
+	}
+}
@@ -0,0 +1,138 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentQuadTreeMapTest
+{
+	private static final int THREADS = 8;
+	
+	private static final int OPERATIONS = 50_000;
+	
+	// Each thread owns the keys of one row in eight, so its reference map knows the value of every key it reads
+	@Test
+	public void writersOfDisjointKeys() throws InterruptedException
+	{
+		ConcurrentQuadTreeMap<Integer> map = new ConcurrentQuadTreeMap<>(5, true);
+		@SuppressWarnings("unchecked")
+		Map<Point, Integer>[] references = new Map[THREADS];
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[THREADS];
+		
+		for (int t = 0; t < THREADS; t++)
+		{
+			int owner = t;
+			Map<Point, Integer> reference = references[t] = new HashMap<>();
+			threads[t] = new Thread(() ->
+			{
+				SplittableRandom random = new SplittableRandom(owner);
+				try
+				{
+					for (int i = 0; i < OPERATIONS; i++)
+					{
+						Point key = Points.at(random.nextInt(32) - 16, random.nextInt(4) * THREADS + owner - 16);
+						switch (random.nextInt(3))
+						{
+							case 0:
+								assertEquals(reference.put(key, i), map.put(key, i));
+								break;
+							case 1:
+								assertEquals(reference.remove(key), map.remove(key));
+								break;
+							default:
+								assertEquals(reference.get(key), map.get(key));
+						}
+					}
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+		
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		assertNull(failure.get());
+		
+		Map<Point, Integer> expected = new HashMap<>();
+		for (Map<Point, Integer> reference : references)
+			expected.putAll(reference);
+		assertEquals(expected, map);
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.size(), map.statistics()
+										 .size());
+	}
+	
+	@Test
+	public void windowOfThreeDimensions()
+	{
+		AABB window = new AABB3(Points.at(-2, -2, 100), Points.at(4, 4, 1));
+		ConcurrentQuadTreeMap<Integer> map = new ConcurrentQuadTreeMap<>(4, true);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map.put(Points.at(x, y), x);
+		
+		int[] n = new int[1];
+		map.query(window, e -> n[0]++);
+		assertEquals(16, n[0]);
+	}
+	
+	@Test
+	public void statistics()
+	{
+		ConcurrentQuadTreeMap<Integer> map = new ConcurrentQuadTreeMap<>(4, true);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map.put(Points.at(x, y), x);
+		
+		TreeStatistics statistics = map.statistics();
+		assertEquals(256, statistics.size());
+		assertEquals(4, statistics.height());
+		assertEquals(256, statistics.leafCount(4));
+		assertEquals(85, statistics.branchCount());
+		assertEquals(340, statistics.usedSlotCount());
+	}
+	
+	@Test
+	public void statisticsWhileWriting() throws InterruptedException
+	{
+		ConcurrentQuadTreeMap<Integer> map = new ConcurrentQuadTreeMap<>(6, true);
+		Thread writer = new Thread(() ->
+		{
+			for (int i = 0; i < 100_000; i++)
+			{
+				int x = i * 7 % 64 - 32, y = i * 13 % 64 - 32;
+				if (i % 3 == 0)
+					map.remove(Points.at(x, y));
+				else
+					map.put(Points.at(x, y), i);
+			}
+		});
+		writer.start();
+		while (writer.isAlive())
+		{
+			TreeStatistics statistics = map.statistics();
+			assertTrue(statistics.size() <= 64 * 64);
+			assertTrue(statistics.usedSlotCount() <= statistics.slotCount());
+		}
+		writer.join();
+		
+		assertEquals(map.size(), map.statistics()
+									.size());
+	}
+}
@@ -0,0 +1,23 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Points;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntQuadTreeMapTest
+{
+	@Test
+	public void windowOfThreeDimensions()
+	{
+		AABB window = new AABB3(Points.at(-2, -2, 100), Points.at(4, 4, 1));
+		IntQuadTreeMap map = new IntQuadTreeMap(4, true);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map.put(Points.at(x, y), x);
+		
+		assertEquals(16, map.count(window));
+	}
+}
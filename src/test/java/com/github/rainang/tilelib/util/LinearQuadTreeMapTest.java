@@ -0,0 +1,39 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Points;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class LinearQuadTreeMapTest
+{
+	@Test
+	public void putKeyOfOtherDimensions()
+	{
+		LinearQuadTreeMap<Integer> map = new LinearQuadTreeMap<>(4, true);
+		assertNull(map.put(Points.at(1, 2, 3), 5));
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(Points.at(1, 2, 3)));
+		
+		map.putAll(Collections.singletonMap(Points.at(1, 2, 3), 5));
+		assertEquals(0, map.size());
+	}
+	
+	@Test
+	public void windowOfThreeDimensions()
+	{
+		AABB window = new AABB3(Points.at(-2, -2, 100), Points.at(4, 4, 1));
+		LinearQuadTreeMap<Integer> map = new LinearQuadTreeMap<>(4, true);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map.put(Points.at(x, y), x);
+		
+		assertEquals(16, map.count(window));
+	}
+}
@@ -0,0 +1,87 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Point;
+import com.github.rainang.tilelib.geometry.Points;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapQuadTreeMapTest
+{
+	@Test
+	public void sameAsQuadTreeMap()
+	{
+		OffHeapQuadTreeMap<Integer> map = new OffHeapQuadTreeMap<>(5, true, ValueCodec.INT);
+		QuadTreeMap<Integer> reference = new QuadTreeMap<>(5, true);
+		SplittableRandom random = new SplittableRandom(1);
+		
+		for (int i = 0; i < 20_000; i++)
+		{
+			Point key = Points.at(random.nextInt(32) - 16, random.nextInt(32) - 16);
+			switch (random.nextInt(3))
+			{
+				case 0:
+					assertEquals(reference.put(key, i), map.put(key, i));
+					break;
+				case 1:
+					assertEquals(reference.remove(key), map.remove(key));
+					break;
+				default:
+					assertEquals(reference.get(key), map.get(key));
+			}
+			assertEquals(reference.size(), map.size());
+		}
+		
+		reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+		AABB window = new AABB(Points.at(-5, -3), Points.at(9, 7));
+		assertEquals(reference.count(window), map.count(window));
+	}
+	
+	@Test
+	public void reuseRemovedRecords()
+	{
+		OffHeapQuadTreeMap<Integer> map = new OffHeapQuadTreeMap<>(5, true, ValueCodec.INT);
+		for (int x = -16; x < 16; x++)
+			for (int y = -16; y < 16; y++)
+				map.put(Points.at(x, y), x);
+		long bytes = map.statistics()
+						.offHeapBytes();
+		
+		for (int round = 0; round < 3; round++)
+		{
+			for (int x = -16; x < 16; x++)
+				for (int y = -16; y < 16; y++)
+					assertEquals(Integer.valueOf(x), map.remove(Points.at(x, y)));
+			assertTrue(map.isEmpty());
+			
+			for (int x = -16; x < 16; x++)
+				for (int y = -16; y < 16; y++)
+					map.put(Points.at(x, y), y);
+			assertEquals(1024, map.size());
+			assertEquals(Integer.valueOf(7), map.get(Points.at(3, 7)));
+			assertEquals(bytes, map.statistics()
+								   .offHeapBytes());
+			
+			for (int x = -16; x < 16; x++)
+				for (int y = -16; y < 16; y++)
+					map.put(Points.at(x, y), x);
+		}
+	}
+	
+	@Test
+	public void windowOfThreeDimensions()
+	{
+		AABB window = new AABB3(Points.at(-2, -2, 100), Points.at(4, 4, 1));
+		OffHeapQuadTreeMap<Integer> map = new OffHeapQuadTreeMap<>(4, true, ValueCodec.INT);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map.put(Points.at(x, y), x);
+		
+		assertEquals(16, map.count(window));
+	}
+}
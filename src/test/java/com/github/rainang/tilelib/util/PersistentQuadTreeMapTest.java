@@ -0,0 +1,25 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Points;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PersistentQuadTreeMapTest
+{
+	@Test
+	public void windowOfThreeDimensions()
+	{
+		AABB window = new AABB3(Points.at(-2, -2, 100), Points.at(4, 4, 1));
+		PersistentQuadTreeMap<Integer> map = new PersistentQuadTreeMap<>(4, true);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map = map.with(Points.at(x, y), x);
+		
+		int[] n = new int[1];
+		map.query(window, e -> n[0]++);
+		assertEquals(16, n[0]);
+	}
+}
@@ -0,0 +1,96 @@
+package com.github.rainang.tilelib.util;
+
+import com.github.rainang.tilelib.geometry.AABB;
+import com.github.rainang.tilelib.geometry.AABB3;
+import com.github.rainang.tilelib.geometry.Points;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class QuadTreeMapTest
+{
+	private static int countLeaves(PointTreeMap<?> map)
+	{
+		int[] count = new int[1];
+		map.forEachLeafRecursive(leaf -> count[0]++);
+		return count[0];
+	}
+	
+	@Test
+	public void growAfterRemovalsWithoutAutoCollapse()
+	{
+		QuadTreeMap<String> map = QuadTreeMap.unbounded(2);
+		map.setAutoCollapse(false);
+		map.put(Points.at(0, 0), "a");
+		map.put(Points.at(1, 1), "b");
+		map.put(Points.at(-1, -1), "c");
+		map.remove(Points.at(1, 1));
+		map.remove(Points.at(-1, -1));
+		map.put(Points.at(100, 100), "d");
+		
+		assertEquals("a", map.get(Points.at(0, 0)));
+		assertEquals("d", map.get(Points.at(100, 100)));
+		assertEquals(2, map.size());
+		assertEquals(2, countLeaves(map));
+		
+		map.setAutoCollapse(true);
+		assertEquals("a", map.get(Points.at(0, 0)));
+		assertEquals(2, countLeaves(map));
+	}
+	
+	@Test
+	public void clearBranchWithoutAutoCollapse()
+	{
+		QuadTreeMap<String> map = QuadTreeMap.unbounded(1);
+		map.setAutoCollapse(false);
+		for (int i = 0; i < 16; i++)
+			map.put(Points.at(i, i), "v" + i);
+		map.getBranch(Points.at(0, 0))
+		   .clear();
+		map.put(Points.at(-64, 64), "w");
+		
+		assertEquals(map.size(), countLeaves(map));
+		assertEquals("w", map.get(Points.at(-64, 64)));
+		
+		map.setAutoCollapse(true);
+		assertEquals(map.size(), countLeaves(map));
+	}
+	
+	@Test
+	public void putKeyOfOtherDimensions()
+	{
+		QuadTreeMap<Integer> map = new QuadTreeMap<>(4, true);
+		assertNull(map.put(Points.at(1, 2, 3), 5));
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(Points.at(1, 2, 3)));
+		
+		map.putAll(Collections.singletonMap(Points.at(1, 2, 3), 5));
+		assertEquals(0, map.size());
+		
+		QuadTreeMap<Integer> unbounded = QuadTreeMap.unbounded(1);
+		assertNull(unbounded.put(Points.at(100, 2, 3), 5));
+		assertEquals(0, unbounded.size());
+	}
+	
+	@Test
+	public void windowOfThreeDimensions()
+	{
+		AABB window = new AABB3(Points.at(-2, -2, 100), Points.at(4, 4, 1));
+		QuadTreeMap<Integer> map = new QuadTreeMap<>(4, true);
+		for (int x = -8; x < 8; x++)
+			for (int y = -8; y < 8; y++)
+				map.put(Points.at(x, y), x);
+		
+		int[] n = new int[1];
+		map.query(window, leaf -> n[0]++);
+		
+		assertEquals(16, map.count(window));
+		assertEquals(16, n[0]);
+		assertEquals(16, map.removeIf(window, (key, value) -> true));
+		assertEquals(240, map.size());
+	}
+}